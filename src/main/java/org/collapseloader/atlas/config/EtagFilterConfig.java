@@ -1,15 +1,28 @@
 package org.collapseloader.atlas.config;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
+import java.util.List;
+
 @Configuration
 public class EtagFilterConfig {
+    // File downloads set strong ETags themselves and must not be buffered in memory to compute one.
+    private static final List<String> STREAMED_PREFIXES = List.of(
+            "/uploads/",
+            "/api/v1/agent/download",
+            "/api/v1/overlay/download");
 
     @Bean
     public ShallowEtagHeaderFilter shallowEtagHeaderFilter() {
-        return new ShallowEtagHeaderFilter();
+        return new ShallowEtagHeaderFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                return STREAMED_PREFIXES.stream().anyMatch(path::startsWith);
+            }
+        };
     }
 }
-
@@ -1,19 +1,12 @@
 package org.collapseloader.atlas.config;
 
-import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.collapseloader.atlas.domain.users.repository.UserRepository;
-import org.collapseloader.atlas.domain.users.service.JwtService;
-import org.collapseloader.atlas.domain.users.service.TokenBlacklistService;
+import org.collapseloader.atlas.domain.users.security.JwtAuthenticator;
 import org.jspecify.annotations.NullMarked;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -21,18 +14,10 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
-    private final TokenBlacklistService tokenBlacklistService;
-    private final UserRepository userRepository;
+    private final JwtAuthenticator jwtAuthenticator;
 
-    public JwtAuthenticationFilter(JwtService jwtService, @Lazy UserDetailsService userDetailsService,
-                                   TokenBlacklistService tokenBlacklistService,
-                                   @Lazy UserRepository userRepository) {
-        this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
-        this.tokenBlacklistService = tokenBlacklistService;
-        this.userRepository = userRepository;
+    public JwtAuthenticationFilter(JwtAuthenticator jwtAuthenticator) {
+        this.jwtAuthenticator = jwtAuthenticator;
     }
 
     @Override
@@ -52,34 +37,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String username;
-        try {
-            username = jwtService.extractUsername(jwt);
-        } catch (JwtException | IllegalArgumentException ignored) {
-            filterChain.doFilter(request, response);
-            return;
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (tokenBlacklistService.isBlacklisted(jwt)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                try {
-                    if (jwtService.isTokenValid(jwt, userDetails)) {
-                        var users = userRepository.findAllByUsernameIgnoreCase(username);
-                        if (users.size() == 1) {
-                            var user = users.getFirst();
-                            var authToken = new UsernamePasswordAuthenticationToken(user, null,
-                                    userDetails.getAuthorities());
-                            SecurityContextHolder.getContext().setAuthentication(authToken);
-                        }
-                    }
-                } catch (JwtException | IllegalArgumentException ignored) {
-                }
-            } catch (org.springframework.security.core.userdetails.UsernameNotFoundException ignored) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            var authToken = jwtAuthenticator.authenticate(jwt);
+            if (authToken != null) {
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
         filterChain.doFilter(request, response);
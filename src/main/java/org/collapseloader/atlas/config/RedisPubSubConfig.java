@@ -0,0 +1,22 @@
+package org.collapseloader.atlas.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+public class RedisPubSubConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // the default executor starts a thread per message, so listeners could see a channel's messages out of order
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("redis-pubsub").daemon().factory()));
+        return container;
+    }
+}
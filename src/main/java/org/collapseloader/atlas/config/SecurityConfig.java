@@ -82,7 +82,7 @@ public class SecurityConfig {
                             "https://proxy.collapseloader.org"));
                     config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
                     config.setAllowedHeaders(List.of("*"));
-                    config.setExposedHeaders(List.of("Authorization"));
+                    config.setExposedHeaders(List.of("Authorization", "X-Next-Cursor"));
                     config.setAllowCredentials(true);
                     return config;
                 }))
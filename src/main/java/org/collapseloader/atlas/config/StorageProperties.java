@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "atlas.storage")
@@ -12,4 +14,15 @@ public class StorageProperties {
     private String tempDir = "temp";
     private String trashDir = ".trash";
     private int trashRetentionDays = 30;
+    private int integrityScanThreads = 4;
+    private int integrityScanBatchSize = 256;
+    private boolean watchEnabled = true;
+    private long watchDebounceMs = 2000;
+    private boolean dedupEnabled = false;
+    private String blobDir = ".blobs";
+    private boolean precompressEnabled = true;
+    private String precompressDir = ".precompressed";
+    private List<String> precompressExtensions = List.of("json", "txt", "xml", "toml", "properties", "cfg", "js",
+            "css", "html", "svg");
+    private long precompressMinBytes = 1024;
 }
@@ -0,0 +1,117 @@
+package org.collapseloader.atlas.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Cache} that checks a bounded in-process map before the shared Redis cache.
+ * <p>
+ * Reads that miss locally are filled from Redis (or the loader) and kept locally until the size/TTL bound evicts
+ * them. Evictions and clears go to both tiers and are announced through {@code invalidationPublisher} so other
+ * instances drop their local copies.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final com.google.common.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final BiConsumer<String, Object> invalidationPublisher;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    public TwoLevelCache(String name,
+                         com.google.common.cache.Cache<Object, Object> local,
+                         Cache remote,
+                         BiConsumer<String, Object> invalidationPublisher,
+                         MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteHits = Counter.builder("atlas.cache.remote.gets")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .description("Lookups that missed the local tier and were answered by Redis")
+                .register(meterRegistry);
+        this.remoteMisses = Counter.builder("atlas.cache.remote.gets")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .description("Lookups that missed both cache tiers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object stored = local.getIfPresent(key);
+        if (stored != null) {
+            return stored;
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        stored = toStoreValue(wrapper.get());
+        local.put(key, stored);
+        return stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored != null) {
+            return (T) fromStoreValue(stored);
+        }
+        T value = remote.get(key, valueLoader);
+        local.put(key, toStoreValue(value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        invalidationPublisher.accept(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * Drops local copies only; used when another instance changed the shared tier.
+     */
+    void invalidateLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+}
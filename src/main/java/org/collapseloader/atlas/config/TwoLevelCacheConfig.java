@@ -0,0 +1,47 @@
+package org.collapseloader.atlas.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+@Configuration
+public class TwoLevelCacheConfig {
+
+    @Value("${atlas.cache.local.max-size:1000}")
+    private long localMaxSize;
+
+    @Value("${atlas.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${atlas.cache.invalidation-channel:atlas:cache:invalidate}")
+    private String invalidationChannel;
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate redisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader()))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, redisTemplate, objectMapper,
+                meterRegistry, invalidationChannel, Math.max(1, localMaxSize),
+                Duration.ofSeconds(Math.max(1, localTtlSeconds)));
+        listenerContainer.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return cacheManager;
+    }
+}
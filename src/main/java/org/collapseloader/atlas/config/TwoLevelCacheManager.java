@@ -0,0 +1,116 @@
+package org.collapseloader.atlas.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps the Redis cache manager so every cache gets a bounded local tier in front of it, and keeps local tiers of
+ * all instances coherent by listening for invalidations on a Redis channel.
+ * <p>
+ * Only string keys are sent individually; any other key (e.g. the empty key of no-arg {@code @Cacheable} methods)
+ * is announced as a full clear of that cache, which is always safe.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private final CacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+
+    private final String origin = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote,
+                                StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                String channel,
+                                long localMaxSize,
+                                Duration localTtl) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache shared = remote.getCache(name);
+        if (shared == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> createCache(n, shared));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return List.copyOf(caches.keySet());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), Invalidation.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation: {}", e.getMessage());
+            return;
+        }
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(invalidation.cache());
+        if (cache != null) {
+            cache.invalidateLocal(invalidation.key());
+        }
+    }
+
+    private TwoLevelCache createCache(String name, Cache shared) {
+        com.google.common.cache.Cache<Object, Object> local = CacheBuilder.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, local, name, Tags.of("cache.level", "local"));
+        return new TwoLevelCache(name, local, shared, this::publishInvalidation, meterRegistry);
+    }
+
+    private void publishInvalidation(String cache, Object key) {
+        String wireKey = key instanceof String s ? s : null;
+        try {
+            redisTemplate.convertAndSend(channel,
+                    objectMapper.writeValueAsString(new Invalidation(origin, cache, wireKey)));
+        } catch (Exception e) {
+            log.warn("Failed to publish invalidation for cache {}: {}", cache, e.getMessage());
+        }
+    }
+
+    record Invalidation(String origin, String cache, String key) {
+    }
+}
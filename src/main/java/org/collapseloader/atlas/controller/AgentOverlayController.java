@@ -1,10 +1,11 @@
 package org.collapseloader.atlas.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.collapseloader.atlas.dto.ApiResponse;
 import org.collapseloader.atlas.titan.service.FileMetadataService;
+import org.collapseloader.atlas.titan.service.TitanDownloadService;
 import org.collapseloader.atlas.titan.service.TitanFileStorageService;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -36,21 +37,25 @@ public class AgentOverlayController {
 
     private final TitanFileStorageService storageService;
     private final FileMetadataService metadataService;
+    private final TitanDownloadService downloadService;
 
-    public AgentOverlayController(TitanFileStorageService storageService, FileMetadataService metadataService) {
+    public AgentOverlayController(TitanFileStorageService storageService, FileMetadataService metadataService,
+                                  TitanDownloadService downloadService) {
         this.storageService = storageService;
         this.metadataService = metadataService;
+        this.downloadService = downloadService;
     }
 
     @GetMapping({"/agent/download", "/agent/download/windows", "/agent/download/linux"})
-    public ResponseEntity<Resource> downloadAgent() {
-        return serveFile(AGENT_JAR, "CollapseAgent.jar", JAR_MEDIA_TYPE);
+    public void downloadAgent(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveFile(AGENT_JAR, "CollapseAgent.jar", JAR_MEDIA_TYPE, request, response);
     }
 
     @GetMapping("/overlay/download/{os:windows|linux}")
-    public ResponseEntity<Resource> downloadOverlay(@PathVariable String os) {
+    public void downloadOverlay(@PathVariable String os, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         OverlayAsset overlay = resolveOverlay(os);
-        return serveFile(overlay.path(), overlay.fileName(), overlay.mediaType());
+        serveFile(overlay.path(), overlay.fileName(), overlay.mediaType(), request, response);
     }
 
     @GetMapping("/agent-overlay/checksums")
@@ -84,22 +89,10 @@ public class AgentOverlayController {
         return ResponseEntity.ok(ApiResponse.success(storeOverlay(file, overlay)));
     }
 
-    private ResponseEntity<Resource> serveFile(String relativePath, String fileName, MediaType mediaType) {
-        try {
-            Path path = storageService.load(relativePath);
-            if (!Files.exists(path)) {
-                throw new ResponseStatusException(NOT_FOUND, "Requested artifact is missing");
-            }
-            Resource resource = new org.springframework.core.io.UrlResource(path.toUri());
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentType(mediaType)
-                    .body(resource);
-        } catch (java.net.MalformedURLException e) {
-            throw new ResponseStatusException(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Failed to resolve artifact location", e);
+    private void serveFile(String relativePath, String fileName, MediaType mediaType, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        if (!downloadService.serve(relativePath, fileName, mediaType, null, request, response)) {
+            throw new ResponseStatusException(NOT_FOUND, "Requested artifact is missing");
         }
     }
 
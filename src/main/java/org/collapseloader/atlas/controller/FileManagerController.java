@@ -5,6 +5,8 @@ import org.collapseloader.atlas.domain.clients.repository.FabricDependenceReposi
 import org.collapseloader.atlas.titan.model.FileMetadata;
 import org.collapseloader.atlas.titan.service.FileMetadataService;
 import org.collapseloader.atlas.titan.service.TitanFileStorageService;
+import org.collapseloader.atlas.titan.service.TitanIntegrityScanner;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +27,7 @@ public class FileManagerController {
 
     private final TitanFileStorageService storageService;
     private final FileMetadataService metadataService;
+    private final TitanIntegrityScanner integrityScanner;
     private final FabricDependenceRepository fabricDependenceRepository;
 
     @GetMapping
@@ -85,8 +88,11 @@ public class FileManagerController {
 
     @PostMapping("/sync")
     public ResponseEntity<Void> forceSync() {
-        storageService.verifyIntegrity();
-        return ResponseEntity.ok().build();
+        return switch (integrityScanner.scan()) {
+            case COMPLETED -> ResponseEntity.ok().build();
+            case ALREADY_RUNNING -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case FAILED -> ResponseEntity.internalServerError().build();
+        };
     }
 
     @GetMapping("/trash")
@@ -1,5 +1,6 @@
 package org.collapseloader.atlas.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.BadRequestException;
 import org.collapseloader.atlas.domain.clients.entity.ClientType;
@@ -7,17 +8,18 @@ import org.collapseloader.atlas.domain.clients.entity.fabric.FabricDependence;
 import org.collapseloader.atlas.domain.clients.repository.FabricClientRepository;
 import org.collapseloader.atlas.exception.EntityNotFoundException;
 import org.collapseloader.atlas.titan.service.TitanFileStorageService;
+import org.collapseloader.atlas.titan.service.TitanStreamingUploadService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/v1/admin/upload")
 @RequiredArgsConstructor
@@ -25,6 +27,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class UploadController {
     private static final Logger log = LoggerFactory.getLogger(UploadController.class);
     private final TitanFileStorageService storageService;
+    private final TitanStreamingUploadService streamingUploadService;
     private final FabricClientRepository fabricClientRepository;
 
     @PostMapping
@@ -78,6 +81,57 @@ public class UploadController {
         return ResponseEntity.ok(storedFile);
     }
 
+    @PostMapping("/stream")
+    public ResponseEntity<TitanStreamingUploadService.UploadStatus> beginStreamingUpload(
+            @RequestParam("filename") String filename,
+            @RequestParam(required = false) String target,
+            @RequestParam(required = false, defaultValue = "") String path,
+            @RequestParam("totalSize") long totalSize,
+            @RequestParam("chunkSize") long chunkSize) throws BadRequestException {
+
+        TitanFileStorageService.UploadTarget uploadTarget = parseTarget(target);
+        String subDir = uploadTarget != null ? uploadTarget.getSubDir() : path;
+        return ResponseEntity.ok(streamingUploadService.begin(filename, subDir, totalSize, chunkSize));
+    }
+
+    @GetMapping("/stream/{uploadId}")
+    public ResponseEntity<TitanStreamingUploadService.UploadStatus> streamingUploadStatus(
+            @PathVariable String uploadId) {
+        return ResponseEntity.ok(streamingUploadService.status(uploadId));
+    }
+
+    @PutMapping(value = "/stream/{uploadId}/chunks/{chunkIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<TitanStreamingUploadService.UploadStatus> uploadStreamingChunk(
+            @PathVariable String uploadId,
+            @PathVariable int chunkIndex,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(streamingUploadService.writeChunk(uploadId, chunkIndex,
+                request.getContentLengthLong(), request.getInputStream()));
+    }
+
+    @PostMapping("/stream/{uploadId}/complete")
+    @CacheEvict(value = {"fabric_clients_list", "forge_clients_list", "clients_list"}, allEntries = true)
+    public ResponseEntity<TitanFileStorageService.StoredFile> completeStreamingUpload(
+            @PathVariable String uploadId,
+            @RequestParam(required = false) String target,
+            @RequestParam(required = false) Long clientId) throws BadRequestException {
+
+        TitanFileStorageService.UploadTarget uploadTarget = parseTarget(target);
+        TitanFileStorageService.StoredFile storedFile = streamingUploadService.complete(uploadId);
+
+        if (uploadTarget == TitanFileStorageService.UploadTarget.FABRIC_DEPS && clientId != null) {
+            registerFabricDep(storedFile, clientId);
+        }
+
+        return ResponseEntity.ok(storedFile);
+    }
+
+    @DeleteMapping("/stream/{uploadId}")
+    public ResponseEntity<Void> abortStreamingUpload(@PathVariable String uploadId) {
+        streamingUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
     private void registerFabricDep(TitanFileStorageService.StoredFile storedFile, Long clientId) {
         try {
             var client = fabricClientRepository.findByIdAndType(clientId, ClientType.FABRIC)
@@ -23,5 +23,11 @@ public interface UserAchievementRepository extends JpaRepository<UserAchievement
 
     long countByAchievementId(Long achievementId);
 
+    @Query("select ua.achievement.id, count(ua) from UserAchievement ua group by ua.achievement.id")
+    List<Object[]> countUnlocksByAchievement();
+
+    @Query("select ua.achievement.id from UserAchievement ua where ua.user.id = :userId")
+    List<Long> findAchievementIdsByUserId(@Param("userId") Long userId);
+
     Optional<UserAchievement> findByUserIdAndAchievementId(Long userId, Long achievementId);
 }
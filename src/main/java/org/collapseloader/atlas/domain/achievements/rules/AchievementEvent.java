@@ -0,0 +1,20 @@
+package org.collapseloader.atlas.domain.achievements.rules;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain events that {@link AchievementRule}s evaluate. Publishing one is cheap: rules run in memory and only
+ * unlocks the user does not already hold reach the database.
+ */
+public sealed interface AchievementEvent {
+    Long userId();
+
+    record SessionStarted(Long userId, LocalDateTime at) implements AchievementEvent {
+    }
+
+    record PlaytimeChanged(Long userId, long totalSeconds) implements AchievementEvent {
+    }
+
+    record LaunchesChanged(Long userId, long totalLaunches) implements AchievementEvent {
+    }
+}
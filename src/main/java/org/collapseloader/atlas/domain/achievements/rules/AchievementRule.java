@@ -0,0 +1,13 @@
+package org.collapseloader.atlas.domain.achievements.rules;
+
+import java.util.function.Consumer;
+
+/**
+ * Decides which achievements an event earns. Implementations are Spring beans and are picked up automatically.
+ */
+public interface AchievementRule {
+    /**
+     * @param unlock receives the key of every achievement the event earns; repeats are filtered by the caller
+     */
+    void evaluate(AchievementEvent event, Consumer<String> unlock);
+}
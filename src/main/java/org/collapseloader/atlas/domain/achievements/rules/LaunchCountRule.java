@@ -0,0 +1,21 @@
+package org.collapseloader.atlas.domain.achievements.rules;
+
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+@Component
+public class LaunchCountRule implements AchievementRule {
+    @Override
+    public void evaluate(AchievementEvent event, Consumer<String> unlock) {
+        if (!(event instanceof AchievementEvent.LaunchesChanged launches)) {
+            return;
+        }
+        if (launches.totalLaunches() >= 1) {
+            unlock.accept("FIRST_GAME");
+        }
+        if (launches.totalLaunches() >= 50) {
+            unlock.accept("FREQUENT_FLYER");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.collapseloader.atlas.domain.achievements.rules;
+
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+@Component
+public class PlaytimeRule implements AchievementRule {
+    @Override
+    public void evaluate(AchievementEvent event, Consumer<String> unlock) {
+        if (!(event instanceof AchievementEvent.PlaytimeChanged playtime)) {
+            return;
+        }
+        if (playtime.totalSeconds() >= 3600) {
+            unlock.accept("PLAYED_1Hour");
+        }
+        if (playtime.totalSeconds() >= 36000) {
+            unlock.accept("PLAYED_10Hours");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.collapseloader.atlas.domain.achievements.rules;
+
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.function.Consumer;
+
+@Component
+public class TimeOfDayRule implements AchievementRule {
+    @Override
+    public void evaluate(AchievementEvent event, Consumer<String> unlock) {
+        if (!(event instanceof AchievementEvent.SessionStarted started)) {
+            return;
+        }
+        int hour = started.at().getHour();
+        DayOfWeek dayOfWeek = started.at().getDayOfWeek();
+
+        if (hour >= 2 && hour < 5) {
+            unlock.accept("NIGHT_OWL");
+        }
+        if (hour >= 5 && hour < 8) {
+            unlock.accept("EARLY_BIRD");
+        }
+        if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            unlock.accept("WEEKEND_WARRIOR");
+        }
+    }
+}
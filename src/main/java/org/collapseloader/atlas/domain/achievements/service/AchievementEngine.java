@@ -0,0 +1,277 @@
+package org.collapseloader.atlas.domain.achievements.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.domain.achievements.entity.Achievement;
+import org.collapseloader.atlas.domain.achievements.repository.AchievementRepository;
+import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
+import org.collapseloader.atlas.domain.achievements.rules.AchievementEvent;
+import org.collapseloader.atlas.domain.achievements.rules.AchievementRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unlocks achievements without touching the database for repeats. Each user's unlocked achievement ids are kept as
+ * a {@link BitSet} in a bounded cache, loaded with one query on first use; an unlock the user already holds returns
+ * immediately. New unlocks are marked in the cache and queued, and a scheduled writer persists the queue with one
+ * batch insert and sends the STOMP notifications for the rows that were actually inserted. A batch that fails to
+ * insert is queued again for the next flush, up to {@code atlas.achievements.unlock-max-attempts} times, since the event
+ * behind a one-shot unlock may never happen again.
+ */
+@Slf4j
+@Component
+public class AchievementEngine {
+    private static final String INSERT_UNLOCK = """
+            insert into user_achievements (user_id, achievement_id, unlocked_at)
+            select :userId, :achievementId, now() where exists (select 1 from users where id = :userId)
+            on conflict (user_id, achievement_id) do nothing
+            """;
+
+    private record Unlock(long userId, int achievementId, String key, int attempts) {
+    }
+
+    private final AchievementRepository achievementRepository;
+    private final UserAchievementRepository userAchievementRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AchievementStats achievementStats;
+    private final List<AchievementRule> rules;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final Cache<Long, BitSet> unlocked;
+    private final Queue<Unlock> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Counter dropped;
+
+    private final Object catalogLock = new Object();
+    private volatile Map<String, Integer> catalog = Map.of();
+    private volatile long catalogLoadedAt;
+
+    public AchievementEngine(AchievementRepository achievementRepository,
+                             UserAchievementRepository userAchievementRepository,
+                             NamedParameterJdbcTemplate jdbcTemplate,
+                             SimpMessagingTemplate messagingTemplate,
+                             AchievementStats achievementStats,
+                             List<AchievementRule> rules,
+                             MeterRegistry meterRegistry,
+                             @Value("${atlas.achievements.unlock-cache.max-size:50000}") long cacheMaxSize,
+                             @Value("${atlas.achievements.unlock-cache.ttl-seconds:1800}") long cacheTtlSeconds,
+                             @Value("${atlas.achievements.unlock-queue-capacity:10000}") int queueCapacity,
+                             @Value("${atlas.achievements.unlock-max-attempts:120}") int maxAttempts) {
+        this.achievementRepository = achievementRepository;
+        this.userAchievementRepository = userAchievementRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.achievementStats = achievementStats;
+        this.rules = List.copyOf(rules);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.unlocked = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, cacheMaxSize))
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1, cacheTtlSeconds)))
+                .build();
+
+        Gauge.builder("atlas.achievements.unlock.queue.depth", depth, AtomicInteger::get)
+                .description("Achievement unlocks waiting to be persisted")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("atlas.achievements.unlock.dropped")
+                .description("Achievement unlocks dropped because the queue was full or they could not be persisted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs every rule against the event and unlocks what they report.
+     */
+    public void publish(AchievementEvent event) {
+        for (AchievementRule rule : rules) {
+            try {
+                rule.evaluate(event, key -> unlock(event.userId(), key));
+            } catch (RuntimeException e) {
+                log.warn("Achievement rule {} failed for user {}: {}", rule.getClass().getSimpleName(),
+                        event.userId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Queues the unlock unless the user already holds the achievement.
+     *
+     * @throws IllegalArgumentException if no achievement has this key
+     */
+    public void unlock(Long userId, String key) {
+        Integer achievementId = resolve(key);
+        if (achievementId == null) {
+            throw new IllegalArgumentException("Achievement not found: " + key);
+        }
+        BitSet held = held(userId);
+        if (held.get(achievementId)) {
+            return;
+        }
+
+        boolean[] marked = new boolean[1];
+        unlocked.asMap().compute(userId, (id, current) -> {
+            BitSet base = current != null ? current : held;
+            if (base.get(achievementId)) {
+                return base;
+            }
+            BitSet next = (BitSet) base.clone();
+            next.set(achievementId);
+            marked[0] = true;
+            return next;
+        });
+        if (!marked[0]) {
+            return;
+        }
+
+        if (depth.incrementAndGet() > queueCapacity) {
+            depth.decrementAndGet();
+            dropped.increment();
+            unlocked.invalidate(userId);
+            return;
+        }
+        queue.offer(new Unlock(userId, achievementId, key, 0));
+    }
+
+    /**
+     * Drops the cached state for the user so the next unlock re-reads it, e.g. after a revoke.
+     */
+    public void forget(Long userId) {
+        unlocked.invalidate(userId);
+    }
+
+    public void invalidateCatalog() {
+        catalogLoadedAt = 0;
+        catalog = Map.of();
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.achievements.unlock-flush-ms:500}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        List<Unlock> batch = new ArrayList<>();
+        Unlock unlock;
+        while ((unlock = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(unlock);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] inserted;
+        try {
+            inserted = jdbcTemplate.batchUpdate(INSERT_UNLOCK, batch.stream()
+                    .map(u -> new MapSqlParameterSource()
+                            .addValue("userId", u.userId())
+                            .addValue("achievementId", (long) u.achievementId()))
+                    .toArray(SqlParameterSource[]::new));
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist {} achievement unlocks, retrying on next flush: {}", batch.size(),
+                    e.getMessage());
+            requeue(batch);
+            return;
+        }
+
+        List<Unlock> granted = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < inserted.length && inserted[i] != 0) {
+                granted.add(batch.get(i));
+                achievementStats.recordUnlocked((long) batch.get(i).achievementId());
+            }
+        }
+        notifyUsers(granted);
+    }
+
+    private void requeue(List<Unlock> batch) {
+        for (Unlock u : batch) {
+            if (u.attempts() + 1 >= maxAttempts) {
+                log.error("Giving up on achievement {} for user {} after {} attempts", u.key(), u.userId(),
+                        maxAttempts);
+                dropped.increment();
+                unlocked.invalidate(u.userId());
+                continue;
+            }
+            depth.incrementAndGet();
+            queue.offer(new Unlock(u.userId(), u.achievementId(), u.key(), u.attempts() + 1));
+        }
+    }
+
+    private void notifyUsers(List<Unlock> granted) {
+        if (granted.isEmpty()) {
+            return;
+        }
+        Set<Long> userIds = new HashSet<>();
+        granted.forEach(u -> userIds.add(u.userId()));
+        Map<Long, String> usernames = new HashMap<>();
+        try {
+            jdbcTemplate.query("select id, username from users where id in (:ids)", Map.of("ids", userIds),
+                    (RowCallbackHandler) rs -> usernames.put(rs.getLong(1), rs.getString(2)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load usernames for achievement notifications: {}", e.getMessage());
+            return;
+        }
+
+        for (Unlock u : granted) {
+            String username = usernames.get(u.userId());
+            if (username == null) {
+                continue;
+            }
+            log.info("Unlocked achievement {} for user {}", u.key(), u.userId());
+            messagingTemplate.convertAndSendToUser(username, "/queue/achievements", Map.of("key", u.key()));
+        }
+    }
+
+    private BitSet held(Long userId) {
+        try {
+            return unlocked.get(userId, () -> {
+                BitSet bits = new BitSet();
+                for (Long id : userAchievementRepository.findAchievementIdsByUserId(userId)) {
+                    bits.set(Math.toIntExact(id));
+                }
+                return bits;
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load achievements for user " + userId, e.getCause());
+        }
+    }
+
+    private Integer resolve(String key) {
+        Integer id = catalog.get(key);
+        if (id == null && System.currentTimeMillis() - catalogLoadedAt >= 5000) {
+            synchronized (catalogLock) {
+                Map<String, Integer> ids = new HashMap<>();
+                for (Achievement achievement : achievementRepository.findAll()) {
+                    ids.put(achievement.getKey(), Math.toIntExact(achievement.getId()));
+                }
+                catalog = Map.copyOf(ids);
+                catalogLoadedAt = System.currentTimeMillis();
+            }
+            id = catalog.get(key);
+        }
+        return id;
+    }
+}
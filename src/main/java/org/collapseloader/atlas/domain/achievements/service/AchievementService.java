@@ -2,19 +2,16 @@ package org.collapseloader.atlas.domain.achievements.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.config.AfterCommit;
 import org.collapseloader.atlas.domain.achievements.dto.AchievementResponse;
 import org.collapseloader.atlas.domain.achievements.dto.UserAchievementResponse;
 import org.collapseloader.atlas.domain.achievements.entity.Achievement;
-import org.collapseloader.atlas.domain.achievements.entity.UserAchievement;
 import org.collapseloader.atlas.domain.achievements.repository.AchievementRepository;
 import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
-import org.collapseloader.atlas.domain.users.repository.UserRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,26 +20,13 @@ import java.util.stream.Collectors;
 public class AchievementService {
     private final AchievementRepository achievementRepository;
     private final UserAchievementRepository userAchievementRepository;
-    private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final AchievementStats achievementStats;
+    private final AchievementEngine achievementEngine;
 
     @Transactional(readOnly = true)
     public List<AchievementResponse> getAllAchievements() {
-        long totalUsers = userRepository.count();
-
-        if (totalUsers == 0)
-            totalUsers = 1;
-
-        List<Achievement> achievements = achievementRepository.findAll();
-        long finalTotalUsers = totalUsers;
-
-        return achievements.stream()
-                .map(a -> {
-                    long count = userAchievementRepository.countByAchievementId(a.getId());
-                    double percentage = (double) count / finalTotalUsers * 100.0;
-                    percentage = Math.round(percentage * 10.0) / 10.0;
-                    return mapToResponse(a, percentage);
-                })
+        return achievementRepository.findAll().stream()
+                .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
@@ -53,27 +37,11 @@ public class AchievementService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    /**
+     * Grants the achievement asynchronously; repeats for achievements the user already holds cost no I/O.
+     */
     public void unlockAchievement(Long userId, String key) {
-        if (userAchievementRepository.existsByUserIdAndAchievementKey(userId, key)) {
-            return;
-        }
-
-        var achievement = achievementRepository.findByKey(key)
-                .orElseThrow(() -> new IllegalArgumentException("Achievement not found: " + key));
-
-        var user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
-
-        UserAchievement ua = new UserAchievement(user, achievement);
-        userAchievementRepository.save(ua);
-
-        log.info("Unlocked achievement {} for user {}", key, userId);
-
-        messagingTemplate.convertAndSendToUser(
-                user.getUsername(),
-                "/queue/achievements",
-                Map.of("key", key));
+        achievementEngine.unlock(userId, key);
     }
 
     @Transactional
@@ -85,6 +53,8 @@ public class AchievementService {
                 .orElseThrow(() -> new IllegalArgumentException("User does not have achievement: " + key));
 
         userAchievementRepository.delete(ua);
+        achievementStats.recordRevoked(achievement.getId());
+        AfterCommit.run(() -> achievementEngine.forget(userId));
         log.info("Revoked achievement {} from user {}", key, userId);
     }
 
@@ -94,6 +64,7 @@ public class AchievementService {
             throw new IllegalArgumentException("Achievement already exists: " + key);
         }
         achievementRepository.save(new Achievement(key, icon, hidden));
+        AfterCommit.run(achievementEngine::invalidateCatalog);
     }
 
     @Transactional
@@ -114,6 +85,7 @@ public class AchievementService {
             achievement.setHidden(hidden);
 
         achievementRepository.save(achievement);
+        AfterCommit.run(achievementEngine::invalidateCatalog);
     }
 
     @Transactional
@@ -129,6 +101,8 @@ public class AchievementService {
         }
 
         achievementRepository.deleteById(id);
+        achievementStats.recordAchievementDeleted(id);
+        AfterCommit.run(achievementEngine::invalidateCatalog);
     }
 
     @Transactional
@@ -163,12 +137,6 @@ public class AchievementService {
     }
 
     private AchievementResponse mapToResponse(Achievement achievement) {
-        long totalUsers = userRepository.count();
-        if (totalUsers == 0)
-            totalUsers = 1;
-        long count = userAchievementRepository.countByAchievementId(achievement.getId());
-        double percentage = (double) count / totalUsers * 100.0;
-        percentage = Math.round(percentage * 10.0) / 10.0;
-        return mapToResponse(achievement, percentage);
+        return mapToResponse(achievement, achievementStats.percentage(achievement.getId()));
     }
 }
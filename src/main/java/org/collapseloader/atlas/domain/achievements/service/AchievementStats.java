@@ -0,0 +1,108 @@
+package org.collapseloader.atlas.domain.achievements.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.config.AfterCommit;
+import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory unlock counts per achievement and the total user count, so unlock percentages cost no queries.
+ * <p>
+ * Loaded with one grouped count on first use, kept current by the write paths (applied after their transaction
+ * commits) and reconciled against the database periodically to pick up changes made by other instances.
+ */
+@Slf4j
+@Component
+public class AchievementStats {
+    private final UserAchievementRepository userAchievementRepository;
+    private final UserRepository userRepository;
+    private final Map<Long, AtomicLong> unlocks = new ConcurrentHashMap<>();
+    private final AtomicLong totalUsers = new AtomicLong();
+    private volatile boolean loaded;
+
+    public AchievementStats(UserAchievementRepository userAchievementRepository, UserRepository userRepository) {
+        this.userAchievementRepository = userAchievementRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @return share of users holding the achievement, in percent rounded to one decimal
+     */
+    public double percentage(Long achievementId) {
+        ensureLoaded();
+        AtomicLong count = unlocks.get(achievementId);
+        long users = Math.max(1, totalUsers.get());
+        double percentage = (double) (count == null ? 0 : count.get()) / users * 100.0;
+        return Math.round(percentage * 10.0) / 10.0;
+    }
+
+    public void recordUnlocked(Long achievementId) {
+        AfterCommit.run(() -> unlocks.computeIfAbsent(achievementId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    public void recordRevoked(Long achievementId) {
+        AfterCommit.run(() -> decrement(achievementId));
+    }
+
+    public void recordAchievementDeleted(Long achievementId) {
+        AfterCommit.run(() -> unlocks.remove(achievementId));
+    }
+
+    public void recordUserCreated() {
+        AfterCommit.run(totalUsers::incrementAndGet);
+    }
+
+    public void recordUserDeleted(Collection<Long> achievementIds) {
+        AfterCommit.run(() -> {
+            totalUsers.decrementAndGet();
+            achievementIds.forEach(this::decrement);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.achievements.stats-reconcile-ms:600000}",
+            initialDelayString = "${atlas.achievements.stats-reconcile-ms:600000}")
+    public void reconcile() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile achievement statistics: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private synchronized void reload() {
+        Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+        for (Object[] row : userAchievementRepository.countUnlocksByAchievement()) {
+            counts.put((Long) row[0], new AtomicLong(((Number) row[1]).longValue()));
+        }
+        long users = userRepository.count();
+
+        unlocks.keySet().retainAll(counts.keySet());
+        counts.forEach((id, count) -> unlocks.computeIfAbsent(id, k -> new AtomicLong()).set(count.get()));
+        totalUsers.set(users);
+        loaded = true;
+    }
+
+    private void decrement(Long achievementId) {
+        AtomicLong count = unlocks.get(achievementId);
+        if (count != null) {
+            count.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+}
@@ -2,11 +2,8 @@ package org.collapseloader.atlas.domain.analytics.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.collapseloader.atlas.domain.analytics.dto.response.AdminAnalyticsClientRecordResponse;
-import org.collapseloader.atlas.domain.analytics.entity.AnalyticsClientRecord;
 import org.collapseloader.atlas.domain.analytics.entity.Platform;
 import org.collapseloader.atlas.domain.analytics.repository.AnalyticsClientRepostiory;
-import org.collapseloader.atlas.domain.clients.entity.Client;
-import org.collapseloader.atlas.domain.clients.repository.ClientRepository;
 import org.collapseloader.atlas.exception.EntityNotFoundException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -19,27 +16,20 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class AnalyticsClientService {
     private final AnalyticsClientRepostiory analyticsClientRepostiory;
-    private final ClientRepository clientRepository;
+    private final AnalyticsIngestPipeline ingestPipeline;
 
-    public AnalyticsClientService(AnalyticsClientRepostiory analyticsClientRepostiory, ClientRepository clientRepository) {
+    public AnalyticsClientService(AnalyticsClientRepostiory analyticsClientRepostiory,
+                                  AnalyticsIngestPipeline ingestPipeline) {
         this.analyticsClientRepostiory = analyticsClientRepostiory;
-        this.clientRepository = clientRepository;
+        this.ingestPipeline = ingestPipeline;
     }
 
-    @Transactional
     public void recordClientLaunch(String clientName, Platform platform) {
-        Client client = clientRepository.findByName(clientName)
-                .orElseThrow(() -> new EntityNotFoundException("Client not found: " + clientName));
-
-        if (client != null) {
-            AnalyticsClientRecord record = new AnalyticsClientRecord();
-
-            record.setClient(client);
-            record.setLaunchTimestamp(System.currentTimeMillis());
-            record.setPlatform(platform);
-
-            analyticsClientRepostiory.save(record);
+        Long clientId = ingestPipeline.resolveClientId(clientName);
+        if (clientId == null) {
+            throw new EntityNotFoundException("Client not found: " + clientName);
         }
+        ingestPipeline.submitClientLaunch(clientId, platform);
     }
 
     @Scheduled(fixedRate = 12, timeUnit = TimeUnit.HOURS) // every 12 hours
@@ -0,0 +1,213 @@
+package org.collapseloader.atlas.domain.analytics.service;
+
+import com.google.common.net.InternetDomainName;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.domain.analytics.entity.Platform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes launch and server-join events off the request thread. Events go into a bounded lock-free queue that a
+ * scheduled writer drains: client launches become one JDBC batch insert per chunk, and server joins are counted per
+ * raw domain, reduced to their top private domain once per distinct value and written as a single upsert batch.
+ * <p>
+ * When the queue is full new events are dropped and counted rather than blocking the launcher.
+ */
+@Slf4j
+@Service
+public class AnalyticsIngestPipeline {
+
+    private sealed interface Event permits ClientLaunch, ServerJoin {
+    }
+
+    private record ClientLaunch(long clientId, Platform platform, long timestamp) implements Event {
+    }
+
+    private record ServerJoin(String domain) implements Event {
+    }
+
+    private static final String INSERT_CLIENT_LAUNCH = """
+            insert into analytics_clients (client_id, launch_timestamp, platform)
+            select ?, ?, ? where exists (select 1 from clients where id = ?)
+            """;
+    private static final String UPSERT_SERVER_JOINS = """
+            insert into analytics_servers (domain, join_count) values (?, ?)
+            on conflict (domain) do update set join_count = analytics_servers.join_count + excluded.join_count
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long nameRefreshMs;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Counter droppedLaunches;
+    private final Counter droppedJoins;
+    private final Timer flushTimer;
+
+    private final Object clientIdsLock = new Object();
+    private volatile Map<String, Long> clientIds = Map.of();
+    private volatile long clientIdsLoadedAt;
+
+    public AnalyticsIngestPipeline(JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${atlas.analytics.ingest.queue-capacity:50000}") int capacity,
+                                   @Value("${atlas.analytics.ingest.batch-size:500}") int batchSize,
+                                   @Value("${atlas.analytics.ingest.client-name-refresh-ms:60000}") long nameRefreshMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.nameRefreshMs = Math.max(1000, nameRefreshMs);
+
+        Gauge.builder("atlas.analytics.ingest.queue.depth", depth, AtomicInteger::get)
+                .description("Analytics events waiting to be written")
+                .register(meterRegistry);
+        this.droppedLaunches = Counter.builder("atlas.analytics.ingest.dropped")
+                .description("Analytics events dropped because the queue was full")
+                .tag("type", "client_launch")
+                .register(meterRegistry);
+        this.droppedJoins = Counter.builder("atlas.analytics.ingest.dropped")
+                .description("Analytics events dropped because the queue was full")
+                .tag("type", "server_join")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("atlas.analytics.ingest.flush")
+                .description("Time taken to write one drained batch of analytics events")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the client id, or {@code null} if no client has this name
+     */
+    public Long resolveClientId(String clientName) {
+        Long id = clientIds.get(clientName);
+        if (id == null && System.currentTimeMillis() - clientIdsLoadedAt >= 5000) {
+            refreshClientIds();
+            id = clientIds.get(clientName);
+        }
+        return id;
+    }
+
+    public void submitClientLaunch(long clientId, Platform platform) {
+        if (!offer(new ClientLaunch(clientId, platform, System.currentTimeMillis()))) {
+            droppedLaunches.increment();
+        }
+    }
+
+    public void submitServerJoin(String domain) {
+        if (!offer(new ServerJoin(domain.trim().toLowerCase(Locale.ROOT)))) {
+            droppedJoins.increment();
+        }
+    }
+
+    private boolean offer(Event event) {
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            return false;
+        }
+        queue.offer(event);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.analytics.ingest.flush-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+        if (System.currentTimeMillis() - clientIdsLoadedAt >= nameRefreshMs) {
+            refreshClientIds();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        List<Object[]> launches = new ArrayList<>();
+        Map<String, Long> joins = new HashMap<>();
+        Event event;
+        while ((event = queue.poll()) != null) {
+            depth.decrementAndGet();
+            switch (event) {
+                case ClientLaunch launch -> {
+                    launches.add(new Object[]{launch.clientId(), launch.timestamp(), launch.platform().name(),
+                            launch.clientId()});
+                    if (launches.size() >= batchSize) {
+                        writeLaunches(launches);
+                        launches = new ArrayList<>();
+                    }
+                }
+                case ServerJoin join -> joins.merge(join.domain(), 1L, Long::sum);
+            }
+        }
+        writeLaunches(launches);
+        writeJoins(joins);
+    }
+
+    private void writeLaunches(List<Object[]> launches) {
+        if (launches.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_CLIENT_LAUNCH, launches);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} client launch records: {}", launches.size(), e.getMessage());
+            }
+        });
+    }
+
+    private void writeJoins(Map<String, Long> joinsByDomain) {
+        if (joinsByDomain.isEmpty()) {
+            return;
+        }
+        Map<String, Long> joinsByTopDomain = new TreeMap<>();
+        joinsByDomain.forEach((domain, count) -> {
+            try {
+                String topDomain = InternetDomainName.from(domain).topPrivateDomain().toString();
+                joinsByTopDomain.merge(topDomain, count, Long::sum);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                log.debug("Ignoring join for unrecognised server domain {}", domain);
+            }
+        });
+        if (joinsByTopDomain.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(joinsByTopDomain.size());
+        joinsByTopDomain.forEach((domain, count) -> rows.add(new Object[]{domain, count}));
+        flushTimer.record(() -> {
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SERVER_JOINS, rows);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write joins for {} server domains: {}", rows.size(), e.getMessage());
+            }
+        });
+    }
+
+    private void refreshClientIds() {
+        synchronized (clientIdsLock) {
+            try {
+                Map<String, Long> ids = new HashMap<>();
+                jdbcTemplate.query("select id, name from clients where name is not null order by id",
+                        (RowCallbackHandler) rs -> ids.putIfAbsent(rs.getString(2), rs.getLong(1)));
+                clientIds = Map.copyOf(ids);
+            } catch (RuntimeException e) {
+                log.warn("Failed to load client names for analytics: {}", e.getMessage());
+            } finally {
+                clientIdsLoadedAt = System.currentTimeMillis();
+            }
+        }
+    }
+}
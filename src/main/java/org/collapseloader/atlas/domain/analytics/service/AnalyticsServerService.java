@@ -1,11 +1,8 @@
 package org.collapseloader.atlas.domain.analytics.service;
 
-import com.google.common.net.InternetDomainName;
 import lombok.extern.slf4j.Slf4j;
 import org.collapseloader.atlas.domain.analytics.dto.response.AdminAnalyticsServerRecordResponse;
-import org.collapseloader.atlas.domain.analytics.entity.AnalyticsServerRecord;
 import org.collapseloader.atlas.domain.analytics.repository.AnalyticsServerRepository;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,31 +14,15 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class AnalyticsServerService {
     private final AnalyticsServerRepository serverRepository;
+    private final AnalyticsIngestPipeline ingestPipeline;
 
-    public AnalyticsServerService(AnalyticsServerRepository serverRepository) {
+    public AnalyticsServerService(AnalyticsServerRepository serverRepository, AnalyticsIngestPipeline ingestPipeline) {
         this.serverRepository = serverRepository;
+        this.ingestPipeline = ingestPipeline;
     }
 
-    @Transactional
     public void recordServerJoin(String domain) {
-        String trimmedDomain = domain.trim().toLowerCase();
-
-        InternetDomainName internetDomainName = InternetDomainName.from(trimmedDomain).topPrivateDomain();
-        String domainName = internetDomainName.toString();
-
-        int updated = serverRepository.incrementJoinCountByDomain(domainName);
-        if (updated > 0) {
-            return;
-        }
-
-        try {
-            AnalyticsServerRecord server = new AnalyticsServerRecord();
-            server.setDomain(domainName);
-            server.setJoinCount(1L);
-            serverRepository.save(server);
-        } catch (DataIntegrityViolationException ex) {
-            serverRepository.incrementJoinCountByDomain(domainName);
-        }
+        ingestPipeline.submitServerJoin(domain);
     }
 
     @Scheduled(fixedRate = 12, timeUnit = TimeUnit.HOURS)
@@ -3,8 +3,8 @@ package org.collapseloader.atlas.domain.analytics.service;
 import org.collapseloader.atlas.domain.analytics.dto.response.StatisticsResponse;
 import org.collapseloader.atlas.domain.analytics.entity.AnalyticsCounter;
 import org.collapseloader.atlas.domain.analytics.repository.AnalyticsCounterRepository;
+import org.collapseloader.atlas.domain.analytics.service.WriteBehindCounters.Kind;
 import org.collapseloader.atlas.domain.clients.repository.ClientRepository;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,40 +14,32 @@ public class AnalyticsService {
 
     private final AnalyticsCounterRepository counterRepository;
     private final ClientRepository clientRepository;
+    private final WriteBehindCounters counters;
 
     public AnalyticsService(
             AnalyticsCounterRepository counterRepository,
-            ClientRepository clientRepository) {
+            ClientRepository clientRepository,
+            WriteBehindCounters counters) {
         this.counterRepository = counterRepository;
         this.clientRepository = clientRepository;
+        this.counters = counters;
     }
 
-    @Transactional
     public long incrementLoaderLaunches() {
-        int updated = counterRepository.incrementValueByKey(LOADER_LAUNCHES_KEY);
-        if (updated == 0) {
-            try {
-                AnalyticsCounter created = new AnalyticsCounter();
-                created.setKey(LOADER_LAUNCHES_KEY);
-                created.setValue(0);
-                counterRepository.save(created);
-            } catch (DataIntegrityViolationException ignored) {
-            }
-            counterRepository.incrementValueByKey(LOADER_LAUNCHES_KEY);
-        }
-
-        return counterRepository.findByKey(LOADER_LAUNCHES_KEY)
-                .map(AnalyticsCounter::getValue)
-                .orElse(0L);
+        counters.increment(Kind.ANALYTICS, LOADER_LAUNCHES_KEY);
+        return loaderLaunches();
     }
 
     @Transactional(readOnly = true)
     public StatisticsResponse getStatistics() {
-        long totalClientLaunches = clientRepository.sumLaunches();
-        long totalClientDownloads = clientRepository.sumDownloads();
-        long totalLoaderLaunches = counterRepository.findByKey(LOADER_LAUNCHES_KEY)
+        long totalClientLaunches = clientRepository.sumLaunches() + counters.unflushedTotal(Kind.CLIENT_LAUNCHES);
+        long totalClientDownloads = clientRepository.sumDownloads() + counters.unflushedTotal(Kind.CLIENT_DOWNLOADS);
+        return new StatisticsResponse(totalClientLaunches, totalClientDownloads, loaderLaunches());
+    }
+
+    private long loaderLaunches() {
+        return counters.value(Kind.ANALYTICS, LOADER_LAUNCHES_KEY, () -> counterRepository.findByKey(LOADER_LAUNCHES_KEY)
                 .map(AnalyticsCounter::getValue)
-                .orElse(0L);
-        return new StatisticsResponse(totalClientLaunches, totalClientDownloads, totalLoaderLaunches);
+                .orElse(0L));
     }
 }
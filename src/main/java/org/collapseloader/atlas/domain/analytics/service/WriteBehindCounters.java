@@ -0,0 +1,214 @@
+package org.collapseloader.atlas.domain.analytics.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Write-behind buffer for hot counter columns. Increments land in per-row {@link LongAdder}s and are flushed to
+ * Postgres as one batched statement per {@link Kind}, so concurrent launches never queue on the same row lock.
+ * <p>
+ * Reads return the stored value plus whatever this instance has not written yet. The stored value is cached until the
+ * next flush tick, which drops every cached value and retires idle cells, so increments written by other instances show
+ * up within one flush interval. Pending deltas are flushed on shutdown; a failed flush puts them back for the next
+ * attempt.
+ */
+@Slf4j
+@Service
+public class WriteBehindCounters {
+
+    public enum Kind {
+        ANALYTICS("""
+                insert into analytics_counters (value, counter_key) values (?, ?)
+                on conflict (counter_key) do update set value = analytics_counters.value + excluded.value
+                """),
+        CLIENT_DOWNLOADS("update clients set downloads = downloads + ? where id = ?"),
+        CLIENT_LAUNCHES("update clients set launches = launches + ? where id = ?"),
+        PROFILE_LAUNCHES("update user_profiles set launches_count = launches_count + ? where user_id = ?");
+
+        private final String sql;
+
+        Kind(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private record Key(Kind kind, Object id) {
+    }
+
+    private static final class Cell {
+        final LongAdder pending = new LongAdder();
+        final AtomicLong inFlight = new AtomicLong();
+        volatile Long base;
+        volatile boolean retired;
+
+        long unflushed() {
+            return pending.sum() + inFlight.get();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Key, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<Kind, List<Consumer<Map<Object, Long>>>> flushListeners = new EnumMap<>(Kind.class);
+
+    public WriteBehindCounters(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        for (Kind kind : Kind.values()) {
+            flushListeners.put(kind, new CopyOnWriteArrayList<>());
+        }
+        Gauge.builder("atlas.counters.pending", this, c -> c.cells.values().stream().mapToLong(Cell::unflushed).sum())
+                .description("Counter increments not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public void increment(Kind kind, Object id) {
+        add(new Key(kind, id), 1);
+    }
+
+    private void add(Key key, long delta) {
+        Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+        cell.pending.add(delta);
+        if (cell.retired) {
+            // the flush dropped this cell from the map while we were adding; move whatever it still holds
+            long orphaned = cell.pending.sumThenReset();
+            if (orphaned != 0) {
+                add(key, orphaned);
+            }
+        }
+    }
+
+    /**
+     * @return increments for the row that this instance has accepted but not yet committed
+     */
+    public long unflushed(Kind kind, Object id) {
+        Cell cell = cells.get(new Key(kind, id));
+        return cell == null ? 0 : cell.unflushed();
+    }
+
+    public long unflushedTotal(Kind kind) {
+        long total = 0;
+        for (var entry : cells.entrySet()) {
+            if (entry.getKey().kind() == kind) {
+                total += entry.getValue().unflushed();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Current value of the row: the stored value, read through {@code loader} at most once per flush interval, plus
+     * the unflushed increments.
+     */
+    public long value(Kind kind, Object id, LongSupplier loader) {
+        Cell cell = cells.computeIfAbsent(new Key(kind, id), k -> new Cell());
+        Long base = cell.base;
+        if (base == null) {
+            base = loader.getAsLong();
+            cell.base = base;
+        }
+        return base + cell.unflushed();
+    }
+
+    /**
+     * Registers a callback that receives the per-row deltas of every committed flush of {@code kind}.
+     */
+    public void onFlush(Kind kind, Consumer<Map<Object, Long>> listener) {
+        flushListeners.get(kind).add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.counters.flush-ms:5000}", initialDelayString = "${atlas.counters.flush-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public synchronized void flush() {
+        Map<Kind, SortedMap<Object, Long>> batches = new EnumMap<>(Kind.class);
+        for (var entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            cell.base = null;
+            long delta = cell.pending.sumThenReset();
+            if (delta != 0) {
+                cell.inFlight.addAndGet(delta);
+                batches.computeIfAbsent(entry.getKey().kind(), k -> new TreeMap<>())
+                        .put(entry.getKey().id(), delta);
+            } else if (cell.inFlight.get() == 0) {
+                // only read since the last flush
+                retire(entry.getKey(), cell);
+            }
+        }
+        batches.forEach(this::flushKind);
+    }
+
+    private void retire(Key key, Cell cell) {
+        cell.retired = true;
+        cells.remove(key, cell);
+        long late = cell.pending.sumThenReset();
+        if (late != 0) {
+            add(key, late);
+        }
+    }
+
+    private boolean write(Kind kind, List<Object[]> args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(kind.sql, args));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} {} counters, retrying on next flush: {}", args.size(), kind, e.getMessage());
+            return false;
+        }
+    }
+
+    private void flushKind(Kind kind, SortedMap<Object, Long> deltas) {
+        // rows are updated in key order so concurrent flushes from other instances cannot deadlock
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+        boolean committed = write(kind, args);
+
+        deltas.forEach((id, delta) -> {
+            Key key = new Key(kind, id);
+            Cell cell = cells.get(key);
+            if (!committed) {
+                cell.pending.add(delta);
+                cell.inFlight.addAndGet(-delta);
+                return;
+            }
+            cell.inFlight.addAndGet(-delta);
+            cell.base = null;
+            if (cell.pending.sum() == 0) {
+                retire(key, cell);
+            }
+        });
+
+        if (committed) {
+            for (var listener : flushListeners.get(kind)) {
+                try {
+                    listener.accept(Collections.unmodifiableMap(deltas));
+                } catch (RuntimeException e) {
+                    log.warn("Counter flush listener for {} failed: {}", kind, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.collapseloader.atlas.domain.clients.controller;
+
+import org.collapseloader.atlas.domain.clients.dto.response.ClientManifestResponse;
+import org.collapseloader.atlas.domain.clients.entity.ClientType;
+import org.collapseloader.atlas.domain.clients.service.ClientManifestService;
+import org.collapseloader.atlas.dto.ApiResponse;
+import org.collapseloader.atlas.exception.ValidationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/clients/manifest")
+public class ClientManifestController {
+    private final ClientManifestService manifestService;
+
+    public ClientManifestController(ClientManifestService manifestService) {
+        this.manifestService = manifestService;
+    }
+
+    @GetMapping("/{type}/{version}")
+    public ResponseEntity<ApiResponse<ClientManifestResponse>> getManifest(
+            @PathVariable String type,
+            @PathVariable String version,
+            @RequestParam(required = false) Long since) {
+        ClientType clientType;
+        try {
+            clientType = ClientType.fromValue(type);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(e.getMessage());
+        }
+
+        var data = manifestService.getManifest(clientType, version, since);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success(data));
+    }
+}
@@ -0,0 +1,31 @@
+package org.collapseloader.atlas.domain.clients.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+public record ClientManifestResponse(
+        @JsonProperty("client_type") String clientType,
+        String version,
+        long revision,
+        Long since,
+        boolean delta,
+        List<Entry> entries,
+        List<String> removed
+) implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public record Entry(
+            String path,
+            String kind,
+            @JsonProperty("md5_hash") String md5Hash,
+            long size,
+            long revision
+    ) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.collapseloader.atlas.domain.clients.service.ClientManifestListener;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.Instant;
@@ -21,6 +22,7 @@ import java.util.List;
  * are lazy one-to-many relations with cascade removal.</p>
  */
 @Entity
+@EntityListeners(ClientManifestListener.class)
 @Table(name = "clients")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.STRING)
@@ -2,8 +2,10 @@ package org.collapseloader.atlas.domain.clients.entity.forge;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.collapseloader.atlas.domain.clients.service.ClientManifestListener;
 
 @Entity
+@EntityListeners(ClientManifestListener.class)
 @Table(name = "forge_dependences", uniqueConstraints = @UniqueConstraint(columnNames = {"client_id", "name"}))
 @Data
 public class ForgeDependence {
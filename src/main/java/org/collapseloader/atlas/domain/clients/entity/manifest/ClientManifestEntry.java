@@ -0,0 +1,42 @@
+package org.collapseloader.atlas.domain.clients.entity.manifest;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One file in a client manifest. Rows are never deleted: a file that leaves the manifest is kept as a
+ * {@link #removed} tombstone so {@code since} queries can report the removal.
+ */
+@Entity
+@Table(name = "client_manifest_entries",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"manifest_key", "path"}),
+        indexes = @Index(name = "client_manifest_revision_idx", columnList = "manifest_key, revision"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ClientManifestEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "manifest_key", nullable = false)
+    private String manifestKey;
+
+    @Column(nullable = false)
+    private String path;
+
+    @Column(nullable = false)
+    private String kind;
+
+    @Column(name = "md5_hash")
+    private String md5Hash;
+
+    private long size;
+
+    @Column(nullable = false)
+    private long revision;
+
+    private boolean removed;
+}
@@ -0,0 +1,7 @@
+package org.collapseloader.atlas.domain.clients.repository;
+
+import org.collapseloader.atlas.domain.clients.entity.manifest.ClientManifestEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ClientManifestEntryRepository extends JpaRepository<ClientManifestEntry, Long> {
+}
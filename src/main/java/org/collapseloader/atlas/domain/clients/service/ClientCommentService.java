@@ -8,6 +8,7 @@ import org.collapseloader.atlas.domain.clients.repository.ClientCommentRepositor
 import org.collapseloader.atlas.domain.clients.repository.ClientRepository;
 import org.collapseloader.atlas.domain.users.entity.Role;
 import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
 import org.collapseloader.atlas.exception.ForbiddenException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ public class ClientCommentService {
 
     private final ClientRepository clientRepository;
     private final ClientCommentRepository commentRepository;
+    private final UserRepository userRepository;
 
     @Transactional(readOnly = true)
     public List<ClientCommentResponse> getComments(Long clientId) {
@@ -48,7 +50,7 @@ public class ClientCommentService {
 
         var comment = new ClientComment();
         comment.setClient(client);
-        comment.setUser(user);
+        comment.setUser(userRepository.getReferenceById(user.getId()));
         comment.setContent(normalized);
 
         var saved = commentRepository.saveAndFlush(comment);
@@ -0,0 +1,27 @@
+package org.collapseloader.atlas.domain.clients.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.collapseloader.atlas.config.AfterCommit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on client and dependency entities that schedules a manifest rebuild once the change is committed.
+ */
+@Component
+public class ClientManifestListener {
+    private final ObjectProvider<ClientManifestService> manifestService;
+
+    public ClientManifestListener(ObjectProvider<ClientManifestService> manifestService) {
+        this.manifestService = manifestService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        AfterCommit.run(() -> manifestService.ifAvailable(ClientManifestService::markDirty));
+    }
+}
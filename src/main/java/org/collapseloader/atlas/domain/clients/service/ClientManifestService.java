@@ -0,0 +1,288 @@
+package org.collapseloader.atlas.domain.clients.service;
+
+import org.collapseloader.atlas.domain.clients.dto.response.ClientManifestResponse;
+import org.collapseloader.atlas.domain.clients.entity.Client;
+import org.collapseloader.atlas.domain.clients.entity.ClientType;
+import org.collapseloader.atlas.domain.clients.entity.manifest.ClientManifestEntry;
+import org.collapseloader.atlas.domain.clients.repository.ClientManifestEntryRepository;
+import org.collapseloader.atlas.domain.clients.repository.ClientRepository;
+import org.collapseloader.atlas.domain.clients.repository.FabricClientRepository;
+import org.collapseloader.atlas.domain.clients.repository.ForgeClientRepository;
+import org.collapseloader.atlas.exception.EntityNotFoundException;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.collapseloader.atlas.titan.service.FileMetadataService;
+import org.collapseloader.atlas.titan.service.TitanFileStorageService.UploadTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Versioned file manifests for launchers, one per client type and Minecraft version.
+ * <p>
+ * Each manifest lists every client jar and dependency of that type/version with its md5 and size, taken from the
+ * client tables and falling back to {@code file_metadata}. Entries are persisted with the global revision at which
+ * they last changed, and removed files are kept as tombstones, so {@code since=<revision>} returns exactly what was
+ * added, changed or removed. Manifests are rebuilt in the background when client data changes and served from
+ * memory, so a launcher that is already up to date costs no database work at all.
+ * <p>
+ * Revisions are shared by every Atlas instance, so a refresh reads the current revision and writes the next one
+ * inside a transaction holding a Postgres advisory lock; concurrent refreshes on other instances queue behind it.
+ */
+@Service
+public class ClientManifestService {
+    static final String KIND_CLIENT = "client";
+    static final String KIND_DEPENDENCY = "dependency";
+    private static final Logger log = LoggerFactory.getLogger(ClientManifestService.class);
+    static final String REVISION_LOCK_SQL = "select pg_advisory_xact_lock(" + 0x6d616e6966657374L + ")";
+
+    private final ClientRepository clientRepository;
+    private final FabricClientRepository fabricClientRepository;
+    private final ForgeClientRepository forgeClientRepository;
+    private final ClientManifestEntryRepository entryRepository;
+    private final FileMetadataService metadataService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile Map<String, Manifest> manifests;
+
+    public ClientManifestService(ClientRepository clientRepository,
+                                 FabricClientRepository fabricClientRepository,
+                                 ForgeClientRepository forgeClientRepository,
+                                 ClientManifestEntryRepository entryRepository,
+                                 FileMetadataService metadataService,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate) {
+        this.clientRepository = clientRepository;
+        this.fabricClientRepository = fabricClientRepository;
+        this.forgeClientRepository = forgeClientRepository;
+        this.entryRepository = entryRepository;
+        this.metadataService = metadataService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    private static String manifestKey(ClientType type, String version) {
+        return type.getApiValue() + ":" + (version == null ? "" : version.trim());
+    }
+
+    private static String clientPath(Client client, UploadTarget target) {
+        String filename = client.getFilename();
+        if (filename == null || filename.isBlank()) {
+            return null;
+        }
+        String normalized = filename.replace("\\", "/");
+        return normalized.contains("/") ? normalized : target.getSubDir() + "/" + normalized;
+    }
+
+    private static String dependencyPath(String name, UploadTarget target) {
+        return name == null || name.isBlank() ? null : target.getSubDir() + "/" + name + ".jar";
+    }
+
+    public ClientManifestResponse getManifest(ClientType type, String version, Long since) {
+        Map<String, Manifest> current = manifests;
+        if (current == null) {
+            refresh();
+            current = manifests;
+        }
+
+        Manifest manifest = current.get(manifestKey(type, version));
+        if (manifest == null) {
+            throw new EntityNotFoundException("Manifest not found for " + type.getApiValue() + " " + version);
+        }
+
+        boolean delta = since != null && since > 0;
+        long floor = delta ? since : 0;
+        List<ClientManifestResponse.Entry> entries = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (ClientManifestEntry entry : manifest.entries()) {
+            if (entry.getRevision() <= floor) {
+                continue;
+            }
+            if (entry.isRemoved()) {
+                if (delta) {
+                    removed.add(entry.getPath());
+                }
+            } else {
+                entries.add(new ClientManifestResponse.Entry(entry.getPath(), entry.getKind(), entry.getMd5Hash(),
+                        entry.getSize(), entry.getRevision()));
+            }
+        }
+        return new ClientManifestResponse(type.getApiValue(), version, manifest.revision(), delta ? since : null,
+                delta, entries, removed);
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshQuietly();
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.manifest.refresh-check-ms:2000}")
+    public void refreshIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            refreshQuietly();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${atlas.manifest.full-refresh-ms:300000}",
+            initialDelayString = "${atlas.manifest.full-refresh-ms:300000}")
+    public void scheduledRefresh() {
+        refreshQuietly();
+    }
+
+    public synchronized void refresh() {
+        List<ClientManifestEntry> stored = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(REVISION_LOCK_SQL);
+            return advance();
+        });
+        manifests = buildSnapshot(stored);
+    }
+
+    private List<ClientManifestEntry> advance() {
+        Map<String, Map<String, ClientManifestEntry>> desired = collectDesired();
+
+        List<ClientManifestEntry> stored = new ArrayList<>(entryRepository.findAll());
+        Map<String, Map<String, ClientManifestEntry>> storedByKey = new HashMap<>();
+        long revision = 0;
+        for (ClientManifestEntry entry : stored) {
+            storedByKey.computeIfAbsent(entry.getManifestKey(), k -> new HashMap<>()).put(entry.getPath(), entry);
+            revision = Math.max(revision, entry.getRevision());
+        }
+        long next = revision + 1;
+
+        List<ClientManifestEntry> changed = new ArrayList<>();
+        desired.forEach((key, files) -> {
+            Map<String, ClientManifestEntry> existing = storedByKey.getOrDefault(key, Map.of());
+            files.forEach((path, file) -> {
+                ClientManifestEntry entry = existing.get(path);
+                if (entry == null) {
+                    entry = file;
+                    stored.add(entry);
+                } else if (!entry.isRemoved() && Objects.equals(entry.getMd5Hash(), file.getMd5Hash())
+                        && entry.getSize() == file.getSize() && entry.getKind().equals(file.getKind())) {
+                    return;
+                }
+                entry.setKind(file.getKind());
+                entry.setMd5Hash(file.getMd5Hash());
+                entry.setSize(file.getSize());
+                entry.setRemoved(false);
+                entry.setRevision(next);
+                changed.add(entry);
+            });
+        });
+        storedByKey.forEach((key, files) -> files.forEach((path, entry) -> {
+            if (!entry.isRemoved() && !desired.getOrDefault(key, Map.of()).containsKey(path)) {
+                entry.setRemoved(true);
+                entry.setRevision(next);
+                changed.add(entry);
+            }
+        }));
+
+        if (!changed.isEmpty()) {
+            entryRepository.saveAll(changed);
+            log.info("Client manifests advanced to revision {} ({} changed entries)", next, changed.size());
+        }
+        return stored;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            log.error("Failed to refresh client manifests", e);
+        }
+    }
+
+    private Map<String, Map<String, ClientManifestEntry>> collectDesired() {
+        Map<String, Map<String, ClientManifestEntry>> desired = new HashMap<>();
+
+        for (Client client : clientRepository.findAllByType(ClientType.VANILLA)) {
+            addFile(desired, ClientType.VANILLA, client, clientPath(client, UploadTarget.CLIENTS), KIND_CLIENT,
+                    client.getMd5Hash(), client.getSize());
+        }
+        fabricClientRepository.findAllByType(ClientType.FABRIC).forEach(client -> {
+            addFile(desired, ClientType.FABRIC, client, clientPath(client, UploadTarget.FABRIC_CLIENTS),
+                    KIND_CLIENT, client.getMd5Hash(), client.getSize());
+            client.getDependencies().forEach(dep -> addFile(desired, ClientType.FABRIC, client,
+                    dependencyPath(dep.getName(), UploadTarget.FABRIC_DEPS), KIND_DEPENDENCY,
+                    dep.getMd5Hash(), dep.getSize()));
+        });
+        forgeClientRepository.findAllByType(ClientType.FORGE).forEach(client -> {
+            addFile(desired, ClientType.FORGE, client, clientPath(client, UploadTarget.FORGE_CLIENTS),
+                    KIND_CLIENT, client.getMd5Hash(), client.getSize());
+            client.getDependencies().forEach(dep -> addFile(desired, ClientType.FORGE, client,
+                    dependencyPath(dep.getName(), UploadTarget.FORGE_DEPS), KIND_DEPENDENCY,
+                    dep.getMd5Hash(), dep.getSize()));
+        });
+
+        List<String> incomplete = desired.values().stream()
+                .flatMap(files -> files.values().stream())
+                .filter(entry -> entry.getMd5Hash() == null || entry.getMd5Hash().isBlank() || entry.getSize() <= 0)
+                .map(ClientManifestEntry::getPath)
+                .distinct()
+                .toList();
+        if (!incomplete.isEmpty()) {
+            Map<String, FileMetadata> metadata = metadataService.findByFilePaths(incomplete);
+            desired.values().forEach(files -> files.values().forEach(entry -> {
+                FileMetadata file = metadata.get(entry.getPath());
+                if (file == null) {
+                    return;
+                }
+                if (entry.getMd5Hash() == null || entry.getMd5Hash().isBlank()) {
+                    entry.setMd5Hash(file.getMd5());
+                }
+                if (entry.getSize() <= 0) {
+                    entry.setSize(file.getSize());
+                }
+            }));
+        }
+        return desired;
+    }
+
+    private void addFile(Map<String, Map<String, ClientManifestEntry>> desired, ClientType type, Client client,
+                         String path, String kind, String md5Hash, long size) {
+        if (path == null) {
+            return;
+        }
+        String key = manifestKey(type, client.getVersion());
+        desired.computeIfAbsent(key, k -> new LinkedHashMap<>()).computeIfAbsent(path, p -> {
+            ClientManifestEntry entry = new ClientManifestEntry();
+            entry.setManifestKey(key);
+            entry.setPath(path);
+            entry.setKind(kind);
+            entry.setMd5Hash(md5Hash);
+            entry.setSize(size);
+            return entry;
+        });
+    }
+
+    private Map<String, Manifest> buildSnapshot(List<ClientManifestEntry> entries) {
+        Map<String, List<ClientManifestEntry>> byKey = new HashMap<>();
+        for (ClientManifestEntry entry : entries) {
+            byKey.computeIfAbsent(entry.getManifestKey(), k -> new ArrayList<>()).add(entry);
+        }
+        Map<String, Manifest> snapshot = new HashMap<>();
+        byKey.forEach((key, list) -> {
+            list.sort(Comparator.comparing(ClientManifestEntry::getPath));
+            long revision = list.stream().mapToLong(ClientManifestEntry::getRevision).max().orElse(0);
+            snapshot.put(key, new Manifest(revision, List.copyOf(list)));
+        });
+        return Map.copyOf(snapshot);
+    }
+
+    private record Manifest(long revision, List<ClientManifestEntry> entries) {
+    }
+}
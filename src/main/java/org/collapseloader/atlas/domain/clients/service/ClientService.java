@@ -1,6 +1,10 @@
 package org.collapseloader.atlas.domain.clients.service;
 
-import org.collapseloader.atlas.domain.achievements.service.AchievementService;
+import jakarta.annotation.PostConstruct;
+import org.collapseloader.atlas.domain.achievements.rules.AchievementEvent;
+import org.collapseloader.atlas.domain.achievements.service.AchievementEngine;
+import org.collapseloader.atlas.domain.analytics.service.WriteBehindCounters;
+import org.collapseloader.atlas.domain.analytics.service.WriteBehindCounters.Kind;
 import org.collapseloader.atlas.domain.clients.dto.request.AdminClientRequest;
 import org.collapseloader.atlas.domain.clients.dto.request.ClientCreateRequest;
 import org.collapseloader.atlas.domain.clients.dto.response.ClientResponse;
@@ -19,20 +23,29 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ClientService {
     private final ClientRepository clientRepository;
     private final UserProfileRepository userProfileRepository;
-    private final AchievementService achievementService;
+    private final AchievementEngine achievementEngine;
+    private final WriteBehindCounters counters;
 
     public ClientService(
             ClientRepository clientRepository,
             UserProfileRepository userProfileRepository,
-            AchievementService achievementService) {
+            AchievementEngine achievementEngine,
+            WriteBehindCounters counters) {
         this.clientRepository = clientRepository;
         this.userProfileRepository = userProfileRepository;
-        this.achievementService = achievementService;
+        this.achievementEngine = achievementEngine;
+        this.counters = counters;
+    }
+
+    @PostConstruct
+    void registerLaunchAchievements() {
+        counters.onFlush(Kind.PROFILE_LAUNCHES, this::unlockLaunchAchievements);
     }
 
     @CacheEvict(value = "clients_list", allEntries = true)
@@ -75,42 +88,33 @@ public class ClientService {
                 .toList();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public ClientResponse incrementDownloads(Long id) {
-        int updated = clientRepository.incrementDownloads(id);
-        if (updated == 0) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found: " + id);
-        }
         var client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found: " + id));
+        counters.increment(Kind.CLIENT_DOWNLOADS, id);
         return toResponse(client);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public ClientResponse incrementLaunches(Long id, User user) {
-        int updated = clientRepository.incrementLaunches(id);
-        if (updated == 0) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found: " + id);
-        }
-
-        if (user != null) {
-            var profile = userProfileRepository.findByUserId(user.getId()).orElse(null);
-            if (profile != null) {
-                profile.setLaunchesCount(profile.getLaunchesCount() + 1);
-                userProfileRepository.save(profile);
-
-                achievementService.unlockAchievement(user.getId(), "FIRST_GAME");
-                if (profile.getLaunchesCount() >= 50) {
-                    achievementService.unlockAchievement(user.getId(), "FREQUENT_FLYER");
-                }
-            }
-        }
-
         var client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found: " + id));
+        counters.increment(Kind.CLIENT_LAUNCHES, id);
+        if (user != null) {
+            counters.increment(Kind.PROFILE_LAUNCHES, user.getId());
+        }
         return toResponse(client);
     }
 
+    private void unlockLaunchAchievements(Map<Object, Long> launchesByUser) {
+        var userIds = launchesByUser.keySet().stream().map(Long.class::cast).toList();
+        for (var profile : userProfileRepository.findAllByUserIdIn(userIds)) {
+            achievementEngine.publish(new AchievementEvent.LaunchesChanged(profile.getUser().getId(),
+                    profile.getLaunchesCount()));
+        }
+    }
+
     private ClientResponse toResponse(Client client) {
         return new ClientResponse(
                 client.getId(),
@@ -122,8 +126,8 @@ public class ClientService {
                 client.getMainClass(),
                 client.isShow(),
                 client.isWorking(),
-                client.getLaunches(),
-                client.getDownloads(),
+                client.getLaunches() + counters.unflushed(Kind.CLIENT_LAUNCHES, client.getId()),
+                client.getDownloads() + counters.unflushed(Kind.CLIENT_DOWNLOADS, client.getId()),
                 client.getType() != null ? client.getType().getApiValue() : null,
                 client.getCreatedAt());
     }
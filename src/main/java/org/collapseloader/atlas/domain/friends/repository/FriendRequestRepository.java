@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -80,4 +81,16 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest, Lo
             @Param("userId") Long userId,
             @Param("otherUserIds") List<Long> otherUserIds
     );
+
+    @Query("""
+            select fr from FriendRequest fr
+            join fetch fr.requester
+            join fetch fr.addressee
+            where fr.status = :status
+            and (fr.requester.id in :userIds or fr.addressee.id in :userIds)
+            """)
+    List<FriendRequest> findByStatusForUsers(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("status") FriendRequestStatus status
+    );
 }
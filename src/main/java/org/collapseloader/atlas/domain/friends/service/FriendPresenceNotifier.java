@@ -0,0 +1,64 @@
+package org.collapseloader.atlas.domain.friends.service;
+
+import org.collapseloader.atlas.domain.friends.entity.FriendRequestStatus;
+import org.collapseloader.atlas.domain.friends.repository.FriendRequestRepository;
+import org.collapseloader.atlas.domain.users.dto.response.UserStatusResponse;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pushes presence changes to the friends of the users involved over {@code /user/queue/friends}. All friendships
+ * for a batch of changes are loaded with one query.
+ */
+@Service
+public class FriendPresenceNotifier {
+    private static final Logger log = LoggerFactory.getLogger(FriendPresenceNotifier.class);
+
+    private final FriendRequestRepository friendRequestRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public FriendPresenceNotifier(FriendRequestRepository friendRequestRepository,
+                                  SimpMessagingTemplate messagingTemplate) {
+        this.friendRequestRepository = friendRequestRepository;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    public void notifyFriends(Map<Long, UserStatusResponse> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            var friendships = friendRequestRepository.findByStatusForUsers(changes.keySet(), FriendRequestStatus.ACCEPTED);
+            for (var friendship : friendships) {
+                send(friendship.getRequester(), friendship.getAddressee(), changes);
+                send(friendship.getAddressee(), friendship.getRequester(), changes);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to push presence changes for {} users: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    private void send(User subject, User recipient, Map<Long, UserStatusResponse> changes) {
+        UserStatusResponse status = changes.get(subject.getId());
+        if (status == null) {
+            return;
+        }
+        var payload = new HashMap<String, Object>();
+        payload.put("type", "PRESENCE");
+        payload.put("sender", subject.getUsername());
+        payload.put("status", status.status().name());
+        if (status.clientName() != null) {
+            payload.put("client_name", status.clientName());
+        }
+        if (status.updatedAt() != null) {
+            payload.put("updated_at", status.updatedAt().toEpochMilli());
+        }
+        messagingTemplate.convertAndSendToUser(recipient.getUsername(), "/queue/friends", payload);
+    }
+}
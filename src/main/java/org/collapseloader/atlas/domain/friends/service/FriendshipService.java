@@ -6,6 +6,7 @@ import org.collapseloader.atlas.domain.friends.entity.FriendRequest;
 import org.collapseloader.atlas.domain.friends.entity.FriendRequestStatus;
 import org.collapseloader.atlas.domain.friends.repository.FriendRequestRepository;
 import org.collapseloader.atlas.domain.users.dto.response.SearchUserResponse;
+import org.collapseloader.atlas.domain.users.dto.response.UserStatusResponse;
 import org.collapseloader.atlas.domain.users.entity.User;
 import org.collapseloader.atlas.domain.users.repository.UserRepository;
 import org.collapseloader.atlas.domain.users.service.UserStatusService;
@@ -19,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class FriendshipService {
@@ -43,8 +45,11 @@ public class FriendshipService {
     @Transactional(readOnly = true)
     public List<FriendResponse> getFriends(User principal) {
         var requests = friendRequestRepository.findByStatusForUser(principal.getId(), FriendRequestStatus.ACCEPTED);
+        var statuses = userStatusService.getStatuses(requests.stream()
+                .map(request -> friendOf(principal, request).getId())
+                .toList());
         return requests.stream()
-                .map(request -> mapFriendResponse(principal, request))
+                .map(request -> mapFriendResponse(principal, request, statuses))
                 .toList();
     }
 
@@ -58,8 +63,11 @@ public class FriendshipService {
             case BLOCKED -> friendRequestRepository.findByStatusForUser(principal.getId(), FriendRequestStatus.BLOCKED);
             case ALL -> friendRequestRepository.findByStatusForUser(principal.getId(), FriendRequestStatus.PENDING);
         };
+        var statuses = userStatusService.getStatuses(requests.stream()
+                .flatMap(request -> Stream.of(request.getRequester().getId(), request.getAddressee().getId()))
+                .toList());
         return requests.stream()
-                .map(this::mapRequestResponse)
+                .map(request -> mapRequestResponse(request, statuses))
                 .toList();
     }
 
@@ -89,8 +97,10 @@ public class FriendshipService {
             throw new ForbiddenException("User is blocked");
         }
 
+        var requester = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
         var request = FriendRequest.builder()
-                .requester(principal)
+                .requester(requester)
                 .addressee(target)
                 .status(FriendRequestStatus.PENDING)
                 .build();
@@ -101,7 +111,7 @@ public class FriendshipService {
         payload.put("type", "REQUEST_RECEIVED");
         payload.put("sender", principal.getUsername());
 
-        var nickname = principal.getProfile() != null ? principal.getProfile().getNickname() : null;
+        var nickname = requester.getProfile() != null ? requester.getProfile().getNickname() : null;
         if (nickname != null) {
             payload.put("nickname", nickname);
         }
@@ -132,7 +142,8 @@ public class FriendshipService {
 
         payload.put("type", "FRIEND_ADDED");
         payload.put("sender", principal.getUsername());
-        var nickname = principal.getProfile() != null ? principal.getProfile().getNickname() : null;
+        var addressee = request.getAddressee();
+        var nickname = addressee.getProfile() != null ? addressee.getProfile().getNickname() : null;
         if (nickname != null) {
             payload.put("nickname", nickname);
         }
@@ -171,14 +182,16 @@ public class FriendshipService {
         var target = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
+        var blocker = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
         var request = friendRequestRepository.findBetweenUsers(principal.getId(), userId)
                 .orElseGet(() -> FriendRequest.builder()
-                        .requester(principal)
+                        .requester(blocker)
                         .addressee(target)
                         .build());
 
         request.setStatus(FriendRequestStatus.BLOCKED);
-        request.setBlockedBy(principal);
+        request.setBlockedBy(blocker);
         var saved = friendRequestRepository.save(request);
         return mapRequestResponse(saved);
     }
@@ -255,19 +268,29 @@ public class FriendshipService {
                 .orElse(null);
     }
 
-    private FriendResponse mapFriendResponse(User principal, FriendRequest request) {
-        User friend = request.getRequester().getId().equals(principal.getId())
+    private User friendOf(User principal, FriendRequest request) {
+        return request.getRequester().getId().equals(principal.getId())
                 ? request.getAddressee()
                 : request.getRequester();
+    }
+
+    private FriendResponse mapFriendResponse(User principal, FriendRequest request,
+                                             Map<Long, UserStatusResponse> statuses) {
+        User friend = friendOf(principal, request);
         return new FriendResponse(
                 friend.getId(),
                 friend.getUsername(),
                 friend.getProfile() == null ? null : friend.getProfile().getNickname(),
                 friend.getProfile() == null ? null : friend.getProfile().getAvatarUrl(),
-                userStatusService.getStatus(friend.getId()));
+                statuses.get(friend.getId()));
     }
 
     private FriendRequestResponse mapRequestResponse(FriendRequest request) {
+        return mapRequestResponse(request, userStatusService.getStatuses(
+                List.of(request.getRequester().getId(), request.getAddressee().getId())));
+    }
+
+    private FriendRequestResponse mapRequestResponse(FriendRequest request, Map<Long, UserStatusResponse> statuses) {
         return new FriendRequestResponse(
                 request.getId(),
                 new FriendResponse(
@@ -277,7 +300,7 @@ public class FriendshipService {
                                 : request.getRequester().getProfile().getNickname(),
                         request.getRequester().getProfile() == null ? null
                                 : request.getRequester().getProfile().getAvatarUrl(),
-                        userStatusService.getStatus(request.getRequester().getId())),
+                        statuses.get(request.getRequester().getId())),
                 new FriendResponse(
                         request.getAddressee().getId(),
                         request.getAddressee().getUsername(),
@@ -285,7 +308,7 @@ public class FriendshipService {
                                 : request.getAddressee().getProfile().getNickname(),
                         request.getAddressee().getProfile() == null ? null
                                 : request.getAddressee().getProfile().getAvatarUrl(),
-                        userStatusService.getStatus(request.getAddressee().getId())),
+                        statuses.get(request.getAddressee().getId())),
                 request.getStatus().name().toLowerCase(Locale.ROOT),
                 request.getCreatedAt());
     }
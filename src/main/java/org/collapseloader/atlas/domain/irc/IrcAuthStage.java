@@ -0,0 +1,113 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs the blocking part of an IRC login (JWT checks, blacklist lookup and user/profile queries)
+ * on a bounded pool instead of the Netty event loop, then hands the result back to the channel's event loop.
+ * <p>
+ * The queue is bounded; once it is full new logins are rejected immediately so a reconnect storm cannot pile up
+ * unbounded work or stall chat on the worker loops.
+ */
+@Component
+@Slf4j
+public class IrcAuthStage {
+    private final IrcAuthService authService;
+    private final IrcModerationRegistry moderationRegistry;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer latency;
+    private final Counter rejected;
+
+    public IrcAuthStage(IrcAuthService authService,
+                        IrcModerationRegistry moderationRegistry,
+                        IrcSettings settings,
+                        MeterRegistry meterRegistry) {
+        this.authService = authService;
+        this.moderationRegistry = moderationRegistry;
+
+        int threads = Math.max(1, settings.getAuthThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getAuthQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "irc-auth-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.latency = Timer.builder("atlas.irc.auth.latency")
+                .description("Time from receiving an IRC auth packet to having the auth decision, including queueing")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("atlas.irc.auth.rejected")
+                .description("IRC logins rejected because the auth queue was full")
+                .register(meterRegistry);
+        Gauge.builder("atlas.irc.auth.queue.depth", executor, e -> e.getQueue().size())
+                .description("IRC logins waiting for an auth worker")
+                .register(meterRegistry);
+        Gauge.builder("atlas.irc.auth.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("IRC logins currently being authenticated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an auth decision for the given token. The callback always runs on {@code callbackExecutor}.
+     *
+     * @return {@code false} if the auth queue is saturated and the login should be refused
+     */
+    public boolean submit(String token, Executor callbackExecutor, BiConsumer<Decision, Throwable> callback) {
+        long started = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                Decision decision = null;
+                Throwable failure = null;
+                try {
+                    decision = decide(token);
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+                Decision result = decision;
+                Throwable error = failure;
+                try {
+                    callbackExecutor.execute(() -> callback.accept(result, error));
+                } catch (RejectedExecutionException e) {
+                    log.debug("Dropping IRC auth result, channel event loop is shutting down");
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    private Decision decide(String token) {
+        IrcAuthService.AuthResult auth = authService.authenticate(token);
+        if (!auth.authenticated()) {
+            return new Decision(auth, false, false);
+        }
+        long userId = auth.userId();
+        return new Decision(auth, moderationRegistry.isUserMuted(userId), moderationRegistry.isUserBanned(userId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record Decision(IrcAuthService.AuthResult auth, boolean muted, boolean banned) {
+    }
+}
@@ -1,6 +1,5 @@
 package org.collapseloader.atlas.domain.irc;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -9,6 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -25,29 +26,31 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
 
     private static final AttributeKey<IrcSession> SESSION_KEY = AttributeKey.valueOf("irc.session");
     private static final AttributeKey<ScheduledFuture<?>> AUTH_TIMEOUT_KEY = AttributeKey.valueOf("irc.auth.timeout");
+    private static final AttributeKey<Deque<String>> AUTH_PENDING_KEY = AttributeKey.valueOf("irc.auth.pending");
+    private static final int MAX_PENDING_LINES = 32;
 
-    private final ObjectMapper objectMapper;
+    private final IrcPacketCodec codec;
     private final IrcSettings settings;
     private final IrcServerState state;
-    private final IrcAuthService authService;
+    private final IrcAuthStage authStage;
+    private final IrcModerationRegistry moderationRegistry;
     private final IrcCommandService commandService;
-    private final IrcModerationService moderationService;
     private final IrcMetrics metrics;
 
     public IrcChannelHandler(
-            ObjectMapper objectMapper,
+            IrcPacketCodec codec,
             IrcSettings settings,
             IrcServerState state,
-            IrcAuthService authService,
+            IrcAuthStage authStage,
+            IrcModerationRegistry moderationRegistry,
             IrcCommandService commandService,
-            IrcModerationService moderationService,
             IrcMetrics metrics) {
-        this.objectMapper = objectMapper;
+        this.codec = codec;
         this.settings = settings;
         this.state = state;
-        this.authService = authService;
+        this.authStage = authStage;
+        this.moderationRegistry = moderationRegistry;
         this.commandService = commandService;
-        this.moderationService = moderationService;
         this.metrics = metrics;
     }
 
@@ -70,7 +73,15 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
     protected void channelRead0(ChannelHandlerContext ctx, String msg) {
         IrcSession session = ctx.channel().attr(SESSION_KEY).get();
         if (session == null) {
-            handleAuth(ctx, msg);
+            Deque<String> pending = ctx.channel().attr(AUTH_PENDING_KEY).get();
+            if (pending == null) {
+                handleAuth(ctx, msg);
+            } else if (pending.size() < MAX_PENDING_LINES) {
+                // lines that arrived in the same read as the auth packet, replayed once the session exists
+                pending.add(msg);
+            } else {
+                ctx.close();
+            }
             return;
         }
 
@@ -220,7 +231,7 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
         }
 
         String ip = resolveIp(ctx.channel());
-        if (state.isIpBanned(ip)) {
+        if (moderationRegistry.isIpBanned(ip)) {
             writePacket(ctx.channel(), IrcPackets.OutgoingPacket.builder()
                     .type("error")
                     .content("Your IP is banned")
@@ -240,7 +251,37 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
             clientName = "CollapseLoader";
         }
 
-        IrcAuthService.AuthResult auth = authService.authenticate(token);
+        String finalClientType = clientType;
+        String finalClientName = clientName;
+        Channel channel = ctx.channel();
+        channel.attr(AUTH_PENDING_KEY).set(new ArrayDeque<>());
+        channel.config().setAutoRead(false);
+
+        boolean accepted = authStage.submit(token, channel.eventLoop(), (decision, error) ->
+                completeAuth(ctx, ip, token, finalClientType, finalClientName, decision, error));
+        if (!accepted) {
+            writePacket(channel, IrcPackets.OutgoingPacket.builder()
+                    .type("error")
+                    .content("Server is busy, try again later")
+                    .build());
+            ctx.close();
+        }
+    }
+
+    private void completeAuth(ChannelHandlerContext ctx, String ip, String token, String clientType,
+                              String clientName, IrcAuthStage.Decision decision, Throwable error) {
+        Channel channel = ctx.channel();
+        if (!channel.isActive()) {
+            return;
+        }
+        channel.config().setAutoRead(true);
+        if (error != null) {
+            log.debug("IRC authentication failed for {}", channel.remoteAddress(), error);
+            ctx.close();
+            return;
+        }
+
+        IrcAuthService.AuthResult auth = decision.auth();
 
         String userId;
         String username;
@@ -268,8 +309,8 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
             }
         }
 
-        boolean muted = state.isIpMuted(ip) || moderationService.isUserMuted(userId);
-        boolean banned = moderationService.isUserBanned(userId);
+        boolean muted = moderationRegistry.isIpMuted(ip) || decision.muted();
+        boolean banned = decision.banned();
 
         if (banned) {
             writePacket(ctx.channel(), IrcPackets.OutgoingPacket.builder()
@@ -294,6 +335,10 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
                 banned,
                 muted);
 
+        if (!session.isAdminOrOwner()) {
+            session.setRateLimit(new IrcRateLimit(settings.rateLimitFor(role)));
+        }
+
         ctx.channel().attr(SESSION_KEY).set(session);
         state.register(session);
         cancelAuthTimeout(ctx.channel());
@@ -304,7 +349,16 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
             session.sendSystem("You are muted.");
         }
 
-        replayHistoryIfNeeded(clientType, session);
+        if (!"client".equalsIgnoreCase(clientType)) {
+            state.writeHistory(ctx.channel());
+        }
+
+        Deque<String> pending = channel.attr(AUTH_PENDING_KEY).getAndSet(null);
+        if (pending != null) {
+            for (String line : pending) {
+                channelRead0(ctx, line);
+            }
+        }
 
         // log.info("[REGISTER] User '{}' (ID: {}, role: {}, client: {}, type: {})
         // connected from {}",
@@ -313,33 +367,12 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
         // session.getClientType(), session.getIp());
     }
 
-    private void replayHistoryIfNeeded(String clientType, IrcSession session) {
-        if ("client".equalsIgnoreCase(clientType)) {
-            return;
-        }
-        for (IrcPackets.OutgoingPacket item : state.historySnapshot()) {
-            session.sendPacket(IrcPackets.OutgoingPacket.builder()
-                    .type(item.getType())
-                    .id(item.getId())
-                    .time(item.getTime())
-                    .sender(item.getSender())
-                    .content(item.getContent())
-                    .history(true)
-                    .roomState(item.getRoomState())
-                    .build());
-        }
-    }
-
     private boolean startsWithAny(String text) {
         return IrcChannelHandler.ADMIN_COMMAND_PREFIXES.stream().anyMatch(text::startsWith);
     }
 
     private IrcPackets.IncomingPacket parsePacket(String raw) {
-        try {
-            return objectMapper.readValue(raw, IrcPackets.IncomingPacket.class);
-        } catch (Exception ignored) {
-            return null;
-        }
+        return codec.decode(raw);
     }
 
     private void cancelAuthTimeout(Channel channel) {
@@ -351,7 +384,7 @@ public class IrcChannelHandler extends SimpleChannelInboundHandler<String> {
 
     private void writePacket(Channel channel, IrcPackets.OutgoingPacket packet) {
         try {
-            channel.writeAndFlush(objectMapper.writeValueAsString(packet) + "\n");
+            channel.writeAndFlush(codec.encode(packet));
         } catch (Exception ex) {
             log.debug("Failed to write packet to {}", channel.remoteAddress(), ex);
         }
@@ -0,0 +1,507 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Joins IRC servers running on several Atlas instances into one chat over a Redis pub/sub channel.
+ * <p>
+ * Every node keeps serving only its own connections. Broadcasts are delivered locally and then relayed, so each node
+ * appends them to its history and writes them to its own sessions. Each node also keeps an in-memory directory of the
+ * sessions connected elsewhere, maintained from join/leave messages, so {@code @who}, {@code @online}, room-state
+ * counts and private-message name lookups see the whole cluster without a round trip.
+ * <p>
+ * Every message carries a per-origin sequence number, and each node applies another node's messages strictly in that
+ * order: early arrivals wait in a small buffer until the gap before them fills, late ones are dropped. Every node
+ * therefore sees one node's chat in the order it was sent, and a session's leave can never be applied before its
+ * join. Only per-origin order is guaranteed: messages from different nodes can interleave differently on each node.
+ * Sending happens on a dedicated publisher thread, in sequence order, so a slow or unreachable Redis never stalls the
+ * Netty event loops; if its queue fills up, messages are dropped and receivers recover as for any other gap.
+ * Pub/sub is at-most-once, so a gap that outlives a heartbeat interval is skipped and answered with a request for a
+ * full snapshot. Heartbeats also carry an order-independent digest of the sender's sessions; a snapshot is requested
+ * only if the receiver's view still disagrees after two heartbeats in a row. Nodes that stop sending heartbeats are
+ * dropped from the directory.
+ * <p>
+ * Bans and mutes are already replicated by {@link IrcModerationRegistry}. Disabled unless {@code irc.cluster.enabled}
+ * is set.
+ */
+@Component
+@Slf4j
+public class IrcClusterRelay implements MessageListener {
+
+    enum Type {
+        HELLO, SNAPSHOT, SYNC, JOIN, LEAVE, HEARTBEAT, BYE, BROADCAST, DIRECT
+    }
+
+    /**
+     * A session as seen by the other nodes.
+     */
+    record Member(String node, String sessionId, String userId, String name, String role, String clientType,
+                  String clientName) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Envelope(String origin, long seq, Type type, String target, Member member, List<Member> members,
+                    Long digest, IrcPackets.OutgoingPacket packet, String from) {
+    }
+
+    /**
+     * What this node knows about another one. Everything but {@link #members} and {@link #lastSeen} is guarded by the
+     * view's monitor.
+     */
+    private static final class NodeView {
+        final Map<String, Member> members = new ConcurrentHashMap<>();
+        final NavigableMap<Long, Envelope> pending = new TreeMap<>();
+        long nextSeq;
+        long digest;
+        int digestMismatches;
+        boolean stalled;
+        boolean closed;
+        volatile long lastSeen = System.currentTimeMillis();
+    }
+
+    private static final int MAX_PENDING = 1024;
+    private static final int PUBLISH_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * Stand-in for a session on another node; packets sent to it are relayed to the node that owns the connection.
+     */
+    private final class RemoteSession extends IrcSession {
+        private final Member member;
+
+        RemoteSession(Member member) {
+            super(null, packet -> {
+            }, null, member.userId(), "", member.clientType(), member.clientName(), member.role(),
+                    !"guest".equalsIgnoreCase(member.role()), member.name(), false, false);
+            this.member = member;
+        }
+
+        @Override
+        public void sendPacket(IrcPackets.OutgoingPacket packet) {
+            publish(Type.DIRECT, member.node(), member, null, null, packet, getLastPrivatePartner());
+        }
+    }
+
+    private final IrcServerState state;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final ChannelTopic topic;
+    private final long heartbeatMs;
+
+    private final Executor publisher;
+
+    private final String node = UUID.randomUUID().toString();
+    // assigning a sequence number and queueing the envelope happen together so the queue stays in sequence order
+    private final Object publishLock = new Object();
+    private long sequence;
+    private final Map<String, NodeView> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Member>> membersByName = new ConcurrentSkipListMap<>();
+
+    // this node's sessions as announced to the others; JOIN, LEAVE, SNAPSHOT and HEARTBEAT are published under the
+    // lock so their sequence numbers agree with the membership and digest they describe
+    private final Object membershipLock = new Object();
+    private final Map<String, Member> localMembers = new HashMap<>();
+    private long localDigest;
+
+    @Autowired
+    public IrcClusterRelay(IrcServerState state,
+                           StringRedisTemplate redisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           ObjectMapper objectMapper,
+                           IrcSettings settings,
+                           @Value("${irc.cluster.heartbeat-ms:5000}") long heartbeatMs) {
+        this(state, redisTemplate, listenerContainer, objectMapper, settings, heartbeatMs,
+                new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(PUBLISH_QUEUE_CAPACITY),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "irc-cluster-publish");
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    IrcClusterRelay(IrcServerState state,
+                    StringRedisTemplate redisTemplate,
+                    RedisMessageListenerContainer listenerContainer,
+                    ObjectMapper objectMapper,
+                    IrcSettings settings,
+                    long heartbeatMs,
+                    Executor publisher) {
+        this.publisher = publisher;
+        this.state = state;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.enabled = settings.isClusterEnabled();
+        this.topic = new ChannelTopic(settings.getClusterChannel());
+        this.heartbeatMs = Math.max(1000, heartbeatMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        state.setClusterRelay(this);
+        listenerContainer.addMessageListener(this, topic);
+        publish(Type.HELLO, null, null, null, null, null, null);
+        log.info("[STARTUP] IRC cluster relay joined {} as node {}", topic.getTopic(), node);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        publish(Type.BYE, null, null, null, null, null, null);
+        listenerContainer.removeMessageListener(this, topic);
+        if (publisher instanceof ExecutorService service) {
+            service.shutdown();
+            try {
+                service.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${irc.cluster.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (membershipLock) {
+            publish(Type.HEARTBEAT, null, null, null, localDigest, null, null);
+        }
+        long cutoff = System.currentTimeMillis() - 3 * heartbeatMs;
+        nodes.forEach((id, view) -> {
+            synchronized (view) {
+                if (view.lastSeen < cutoff) {
+                    if (!view.closed) {
+                        log.warn("IRC cluster node {} stopped sending heartbeats, dropping its {} sessions", id,
+                                view.members.size());
+                    }
+                    clearMembers(view);
+                    nodes.remove(id, view);
+                } else if (view.pending.isEmpty()) {
+                    view.stalled = false;
+                } else if (view.stalled) {
+                    skipGap(id, view);
+                } else {
+                    view.stalled = true;
+                }
+            }
+        });
+    }
+
+    void sessionJoined(IrcSession session) {
+        Member member = member(session);
+        synchronized (membershipLock) {
+            Member previous = localMembers.put(member.sessionId(), member);
+            if (previous == null) {
+                localDigest += digestOf(member.sessionId());
+            }
+            publish(Type.JOIN, null, member, null, null, null, null);
+        }
+    }
+
+    void sessionLeft(IrcSession session) {
+        Member member = member(session);
+        synchronized (membershipLock) {
+            if (localMembers.remove(member.sessionId()) != null) {
+                localDigest -= digestOf(member.sessionId());
+            }
+            publish(Type.LEAVE, null, member, null, null, null, null);
+        }
+    }
+
+    void broadcast(IrcPackets.OutgoingPacket packet) {
+        publish(Type.BROADCAST, null, null, null, null, packet, null);
+    }
+
+    /**
+     * @return stand-ins for every session connected to other nodes
+     */
+    List<IrcSession> remoteSessions() {
+        List<IrcSession> sessions = new ArrayList<>();
+        for (NodeView view : nodes.values()) {
+            view.members.values().forEach(member -> sessions.add(new RemoteSession(member)));
+        }
+        return sessions;
+    }
+
+    /**
+     * @return number of remote {@code [users, guests]}
+     */
+    int[] remoteCounts() {
+        int users = 0;
+        int guests = 0;
+        for (NodeView view : nodes.values()) {
+            for (Member member : view.members.values()) {
+                if ("guest".equalsIgnoreCase(member.role())) {
+                    guests++;
+                } else {
+                    users++;
+                }
+            }
+        }
+        return new int[]{users, guests};
+    }
+
+    /**
+     * Same matching rules as {@link IrcServerState#findAllByPartialName(String, int)}, over remote sessions.
+     */
+    List<IrcSession> findRemoteByPartialName(String needle, int limit) {
+        Set<Member> exact = membersByName.get(needle);
+        if (exact != null) {
+            for (Member member : exact) {
+                return List.of(new RemoteSession(member));
+            }
+        }
+        List<IrcSession> matches = new ArrayList<>();
+        for (var entry : membersByName.tailMap(needle).entrySet()) {
+            if (!entry.getKey().startsWith(needle)) {
+                break;
+            }
+            for (Member member : entry.getValue()) {
+                matches.add(new RemoteSession(member));
+                if (matches.size() >= limit) {
+                    return matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(message.getBody(), Envelope.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed IRC cluster message: {}", e.getMessage());
+            return;
+        }
+        if (envelope.origin() == null || node.equals(envelope.origin()) || envelope.type() == null) {
+            return;
+        }
+
+        NodeView view = nodes.computeIfAbsent(envelope.origin(), id -> new NodeView());
+        view.lastSeen = System.currentTimeMillis();
+        synchronized (view) {
+            if (view.closed) {
+                return;
+            }
+            if (view.nextSeq == 0) {
+                view.nextSeq = envelope.seq();
+            }
+            if (envelope.seq() < view.nextSeq) {
+                return;
+            }
+            view.pending.put(envelope.seq(), envelope);
+            drain(envelope.origin(), view);
+            if (view.pending.size() > MAX_PENDING) {
+                skipGap(envelope.origin(), view);
+            }
+        }
+    }
+
+    private void drain(String origin, NodeView view) {
+        Map.Entry<Long, Envelope> next;
+        while (!view.closed && (next = view.pending.firstEntry()) != null && next.getKey() == view.nextSeq) {
+            view.pending.pollFirstEntry();
+            view.nextSeq++;
+            apply(origin, view, next.getValue());
+        }
+        if (view.pending.isEmpty()) {
+            view.stalled = false;
+        }
+    }
+
+    /**
+     * Gives up on the messages missing before the oldest buffered one and asks the origin for a snapshot to make up for
+     * whatever membership changes they carried.
+     */
+    private void skipGap(String origin, NodeView view) {
+        if (view.pending.isEmpty()) {
+            return;
+        }
+        log.warn("Lost IRC cluster messages {}..{} from node {}, resyncing", view.nextSeq, view.pending.firstKey() - 1,
+                origin);
+        view.nextSeq = view.pending.firstKey();
+        drain(origin, view);
+        requestSnapshot(origin);
+    }
+
+    private void apply(String origin, NodeView view, Envelope envelope) {
+        if (envelope.target() != null && !node.equals(envelope.target())) {
+            return;
+        }
+        switch (envelope.type()) {
+            case HELLO, SYNC -> publishSnapshot(origin);
+            case SNAPSHOT -> replaceMembers(origin, view, envelope.members());
+            case JOIN -> addMember(view, envelope.member());
+            case LEAVE -> removeMember(view, envelope.member());
+            case HEARTBEAT -> checkDigest(origin, view, envelope.digest());
+            case BROADCAST -> {
+                if (envelope.packet() != null) {
+                    state.deliverRemoteBroadcast(envelope.packet());
+                }
+            }
+            case DIRECT -> deliverDirect(envelope);
+            case BYE -> {
+                view.closed = true;
+                view.pending.clear();
+                clearMembers(view);
+            }
+        }
+    }
+
+    private void checkDigest(String origin, NodeView view, Long digest) {
+        if (digest == null || digest == view.digest) {
+            view.digestMismatches = 0;
+        } else if (++view.digestMismatches >= 2) {
+            view.digestMismatches = 0;
+            requestSnapshot(origin);
+        }
+    }
+
+    private void requestSnapshot(String origin) {
+        publish(Type.SYNC, origin, null, null, null, null, null);
+    }
+
+    private void deliverDirect(Envelope envelope) {
+        Member target = envelope.member();
+        if (target == null || envelope.packet() == null) {
+            return;
+        }
+        for (IrcSession session : state.findAllByUserId(target.userId())) {
+            if (session.getChannel().id().asLongText().equals(target.sessionId())) {
+                if (envelope.from() != null) {
+                    session.setLastPrivatePartner(envelope.from());
+                }
+                session.sendPacket(envelope.packet());
+            }
+        }
+    }
+
+    private void publishSnapshot(String target) {
+        synchronized (membershipLock) {
+            publish(Type.SNAPSHOT, target, null, List.copyOf(localMembers.values()), null, null, null);
+        }
+    }
+
+    private void replaceMembers(String origin, NodeView view, List<Member> members) {
+        clearMembers(view);
+        if (members != null) {
+            for (Member member : members) {
+                if (origin.equals(member.node())) {
+                    addMember(view, member);
+                }
+            }
+        }
+        view.digestMismatches = 0;
+    }
+
+    private void addMember(NodeView view, Member member) {
+        if (member == null || member.sessionId() == null || member.name() == null) {
+            return;
+        }
+        Member previous = view.members.put(member.sessionId(), member);
+        if (previous != null) {
+            unindex(previous);
+        } else {
+            view.digest += digestOf(member.sessionId());
+        }
+        membersByName.compute(fold(member.name()), (k, current) -> {
+            Set<Member> members = current != null ? current : ConcurrentHashMap.newKeySet();
+            members.add(member);
+            return members;
+        });
+    }
+
+    private void removeMember(NodeView view, Member member) {
+        if (member == null || member.sessionId() == null) {
+            return;
+        }
+        Member removed = view.members.remove(member.sessionId());
+        if (removed != null) {
+            unindex(removed);
+            view.digest -= digestOf(removed.sessionId());
+        }
+    }
+
+    private void unindex(Member member) {
+        membersByName.computeIfPresent(fold(member.name()), (k, current) -> {
+            current.remove(member);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    private void clearMembers(NodeView view) {
+        view.members.values().forEach(this::unindex);
+        view.members.clear();
+        view.digest = 0;
+    }
+
+    private Member member(IrcSession session) {
+        return new Member(node, session.getChannel().id().asLongText(), session.getUserId(), session.getName(),
+                session.getRole(), session.getClientType(), session.getClientName());
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Well-mixed 64-bit hash of a session id; a membership digest is the sum over its sessions, so it can be kept up
+     * to date as sessions come and go.
+     */
+    static long digestOf(String sessionId) {
+        long h = 0;
+        for (int i = 0; i < sessionId.length(); i++) {
+            h = 31 * h + sessionId.charAt(i);
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private void publish(Type type, String target, Member member, List<Member> members, Long digest,
+                         IrcPackets.OutgoingPacket packet, String from) {
+        synchronized (publishLock) {
+            Envelope envelope = new Envelope(node, ++sequence, type, target, member, members, digest, packet, from);
+            try {
+                publisher.execute(() -> send(envelope));
+            } catch (RejectedExecutionException e) {
+                log.warn("IRC cluster publish queue is full, dropping {}", type);
+            }
+        }
+    }
+
+    private void send(Envelope envelope) {
+        try {
+            redisTemplate.convertAndSend(topic.getTopic(), objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.warn("Failed to relay IRC {} to the cluster: {}", envelope.type(), e.getMessage());
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -30,6 +31,8 @@ public class IrcCommandService {
             "developer", "Developer",
             "owner", "Owner"
     );
+    // ambiguous names only need enough candidates to tell the user to be more specific
+    private static final int NAME_MATCH_LIMIT = 10;
 
     private final IrcServerState state;
     private final IrcModerationService moderationService;
@@ -50,7 +53,7 @@ public class IrcCommandService {
                 return true;
             }
             case "@online" -> {
-                List<IrcSession> users = state.snapshotUsers();
+                List<IrcSession> users = state.snapshotClusterUsers();
                 int totalCount = users.size();
                 int guestCount = (int) users.stream().filter(u -> "guest".equalsIgnoreCase(u.getRole())).count();
                 if (guestCount > 0) {
@@ -63,7 +66,7 @@ public class IrcCommandService {
             case "@who", "@list" -> {
                 List<String> usersList = new ArrayList<>();
                 List<String> guestsList = new ArrayList<>();
-                for (IrcSession session : state.snapshotUsers()) {
+                for (IrcSession session : state.snapshotClusterUsers()) {
                     String display = userDisplayName(session);
                     if ("guest".equalsIgnoreCase(session.getRole())) {
                         guestsList.add(display);
@@ -135,14 +138,14 @@ public class IrcCommandService {
         }
 
         switch (action) {
-            case "ban" -> applyUserModeration(user, parts[1], true, true);
-            case "unban" -> applyUserModeration(user, parts[1], false, true);
-            case "mute" -> applyUserModeration(user, parts[1], true, false);
-            case "unmute" -> applyUserModeration(user, parts[1], false, false);
-            case "banip" -> applyIpModeration(user, parts[1], true, true);
-            case "unbanip" -> applyIpModeration(user, parts[1], false, true);
-            case "muteip" -> applyIpModeration(user, parts[1], true, false);
-            case "unmuteip" -> applyIpModeration(user, parts[1], false, false);
+            case "ban" -> applyUserModeration(user, parts[1], durationArg(parts), true, true);
+            case "unban" -> applyUserModeration(user, parts[1], null, false, true);
+            case "mute" -> applyUserModeration(user, parts[1], durationArg(parts), true, false);
+            case "unmute" -> applyUserModeration(user, parts[1], null, false, false);
+            case "banip" -> applyIpModeration(user, parts[1], durationArg(parts), true, true);
+            case "unbanip" -> applyIpModeration(user, parts[1], null, false, true);
+            case "muteip" -> applyIpModeration(user, parts[1], durationArg(parts), true, false);
+            case "unmuteip" -> applyIpModeration(user, parts[1], null, false, false);
 
             case "sysmsg" -> {
                 if (parts.length < 2) {
@@ -174,7 +177,7 @@ public class IrcCommandService {
         String targetName = parts[1];
         String privateMessage = message.substring(message.indexOf(targetName) + targetName.length()).trim();
 
-        List<IrcSession> matches = state.findAllByPartialName(targetName);
+        List<IrcSession> matches = state.findClusterMembersByPartialName(targetName, NAME_MATCH_LIMIT);
         if (matches.isEmpty()) {
             user.sendSystem("User '" + targetName + "' not found");
             return;
@@ -221,7 +224,7 @@ public class IrcCommandService {
         }
 
         String reply = message.substring(message.indexOf(' ') + 1).trim();
-        List<IrcSession> matches = state.findAllByPartialName(user.getLastPrivatePartner());
+        List<IrcSession> matches = state.findClusterMembersByPartialName(user.getLastPrivatePartner(), 1);
         if (matches.isEmpty()) {
             user.sendSystem("User '" + user.getLastPrivatePartner() + "' is no longer online");
             return;
@@ -270,7 +273,7 @@ public class IrcCommandService {
             target = requester.getUserId();
         }
 
-        IrcSession onlineByName = state.findAllByPartialName(target).stream().findFirst().orElse(null);
+        IrcSession onlineByName = state.findAllByPartialName(target, 1).stream().findFirst().orElse(null);
         String targetUserId = onlineByName != null ? onlineByName.getUserId() : target;
         if (targetUserId.startsWith("guest-")) {
             IrcSession guest = state.findByUserId(targetUserId);
@@ -340,7 +343,7 @@ public class IrcCommandService {
         }
 
         String target = input.trim();
-        List<IrcSession> matches = state.findAllByPartialName(target);
+        List<IrcSession> matches = state.findAllByPartialName(target, NAME_MATCH_LIMIT);
         if (matches.size() == 1) {
             IrcSession online = matches.getFirst();
             return new ResolvedTarget(online.getUserId(), online.getName(), online.getIp(), null);
@@ -363,7 +366,14 @@ public class IrcCommandService {
         return new ResolvedTarget(null, target, null, null);
     }
 
-    private void applyUserModeration(IrcSession actor, String rawTarget, boolean enabled, boolean ban) {
+    private void applyUserModeration(IrcSession actor, String rawTarget, String rawDuration, boolean enabled,
+                                     boolean ban) {
+        Duration duration = parseDuration(rawDuration);
+        if (rawDuration != null && duration == null) {
+            actor.sendSystem("ERROR: invalid duration '" + rawDuration + "' (use e.g. 30m, 12h, 7d)");
+            return;
+        }
+
         ResolvedTarget target = resolveUserTarget(rawTarget);
         if (target.error != null) {
             actor.sendSystem("ERROR: " + target.error);
@@ -376,14 +386,22 @@ public class IrcCommandService {
         }
 
         int affected = ban
-                ? moderationService.setUserBanned(target.userId, enabled)
-                : moderationService.setUserMuted(target.userId, enabled);
+                ? moderationService.setUserBanned(target.userId, enabled, duration)
+                : moderationService.setUserMuted(target.userId, enabled, duration);
 
         String verb = moderationVerb(ban, enabled);
-        actor.sendSystem(verb + " " + target.userId + " (affected " + affected + " connections)");
+        actor.sendSystem(verb + " " + target.userId + durationSuffix(rawDuration)
+                + " (affected " + affected + " connections)");
     }
 
-    private void applyIpModeration(IrcSession actor, String input, boolean enabled, boolean ban) {
+    private void applyIpModeration(IrcSession actor, String input, String rawDuration, boolean enabled,
+                                   boolean ban) {
+        Duration duration = parseDuration(rawDuration);
+        if (rawDuration != null && duration == null) {
+            actor.sendSystem("ERROR: invalid duration '" + rawDuration + "' (use e.g. 30m, 12h, 7d)");
+            return;
+        }
+
         String ip = parseIp(input);
         if (ip == null && enabled) {
             ip = resolveUserTarget(input).ip;
@@ -393,9 +411,12 @@ public class IrcCommandService {
             return;
         }
 
-        int affected = ban ? state.setIpBanned(ip, enabled) : state.setIpMuted(ip, enabled);
+        int affected = ban
+                ? moderationService.setIpBanned(ip, enabled, duration)
+                : moderationService.setIpMuted(ip, enabled, duration);
         String verb = moderationVerb(ban, enabled);
-        actor.sendSystem(verb + " IP " + ip + " (affected " + affected + " connections)");
+        actor.sendSystem(verb + " IP " + ip + durationSuffix(rawDuration)
+                + " (affected " + affected + " connections)");
     }
 
     private String moderationVerb(boolean ban, boolean enabled) {
@@ -426,13 +447,13 @@ public class IrcCommandService {
 
         List<String> adminCommands = List.of(
                 "profile [nickname] - View user profile",
-                "ban <user_id> - Ban a user",
+                "ban <user_id> [30m|12h|7d] - Ban a user, optionally for a limited time",
                 "unban <user_id> - Unban a user",
-                "banip <user_id|ip> - Ban an IP address",
+                "banip <user_id|ip> [duration] - Ban an IP address",
                 "unbanip <ip> - Unban an IP address",
-                "mute <user_id> - Mute a user",
+                "mute <user_id> [duration] - Mute a user",
                 "unmute <user_id> - Unmute a user",
-                "muteip <user_id|ip> - Mute an IP address",
+                "muteip <user_id|ip> [duration] - Mute an IP address",
                 "unmuteip <ip> - Unmute an IP address",
                 "sysmsg <message> - Send system message to all users"
         );
@@ -447,6 +468,36 @@ public class IrcCommandService {
         return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
     }
 
+    private String durationArg(String[] parts) {
+        return parts.length > 2 ? parts[2] : null;
+    }
+
+    private Duration parseDuration(String value) {
+        if (value == null || value.length() < 2) {
+            return null;
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(value.substring(0, value.length() - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (amount <= 0) {
+            return null;
+        }
+        return switch (Character.toLowerCase(value.charAt(value.length() - 1))) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> null;
+        };
+    }
+
+    private String durationSuffix(String rawDuration) {
+        return rawDuration == null ? "" : " for " + rawDuration;
+    }
+
     private String parseIp(String value) {
         if (value == null || value.isBlank()) {
             return null;
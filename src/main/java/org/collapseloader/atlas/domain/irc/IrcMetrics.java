@@ -1,5 +1,6 @@
 package org.collapseloader.atlas.domain.irc;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -9,15 +10,37 @@ import org.springframework.stereotype.Component;
 @Component
 public class IrcMetrics {
     private final MeterRegistry meterRegistry;
+    private volatile IrcTransport activeTransport;
 
     public IrcMetrics(MeterRegistry meterRegistry, IrcServerState state) {
         this.meterRegistry = meterRegistry;
 
-        Gauge.builder("atlas.irc.sessions.active", state, s -> s.snapshotUsers().size())
+        Gauge.builder("atlas.irc.sessions.active", state, IrcServerState::sessionCount)
                 .description("Current number of active IRC sessions")
                 .register(meterRegistry);
     }
 
+    /**
+     * Publishes the transport the server is running on as {@code atlas.irc.transport{transport=...} = 1}.
+     */
+    public void recordTransport(IrcTransport transport) {
+        for (IrcTransport candidate : IrcTransport.values()) {
+            Gauge.builder("atlas.irc.transport", () -> activeTransport == candidate ? 1 : 0)
+                    .description("IRC network transport in use")
+                    .tag("transport", candidate.id())
+                    .register(meterRegistry);
+        }
+        activeTransport = transport;
+    }
+
+    public void recordSlowConsumer(IrcOutboundHandler.Action action) {
+        Counter.builder("atlas.irc.slow_consumer.actions")
+                .description("Actions taken against IRC clients that stopped reading")
+                .tag("action", action.id())
+                .register(meterRegistry)
+                .increment();
+    }
+
     public void recordChatMessage(String role, int length) {
         Tags tags = Tags.of("role", (role == null || role.isBlank()) ? "unknown" : role);
         meterRegistry.counter("atlas.irc.messages.total", tags).increment();
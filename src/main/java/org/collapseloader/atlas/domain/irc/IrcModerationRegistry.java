@@ -0,0 +1,294 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.config.AfterCommit;
+import org.collapseloader.atlas.domain.irc.entity.IrcIpRestriction;
+import org.collapseloader.atlas.domain.irc.repository.IrcBanRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcIpRestrictionRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcMuteRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcRestrictionView;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory view of every IRC ban and mute, for users and IP addresses.
+ * <p>
+ * Loaded from the database at startup and kept current write-through by {@link IrcModerationService}, so login and
+ * chat checks never query the database. User restrictions live in primitive-keyed maps that are copied on write
+ * (moderation changes are rare, checks happen on every login). Timed restrictions are removed by a hashed wheel
+ * timer rather than comparing timestamps on every check. Changes are published on a Redis channel so every Atlas
+ * instance converges on the same state; remote changes and expiries are reported to registered listeners.
+ */
+@Component
+@Slf4j
+public class IrcModerationRegistry implements MessageListener {
+    private final IrcBanRepository banRepository;
+    private final IrcMuteRepository muteRepository;
+    private final IrcIpRestrictionRepository ipRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final ChannelTopic topic;
+
+    private final String origin = UUID.randomUUID().toString();
+    private final HashedWheelTimer timer = new HashedWheelTimer(
+            new DefaultThreadFactory("irc-moderation-timer", true), 1, TimeUnit.SECONDS, 512);
+    private final List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+
+    private final Map<String, Entry> bannedIps = new ConcurrentHashMap<>();
+    private final Map<String, Entry> mutedIps = new ConcurrentHashMap<>();
+    private volatile LongObjectMap<Entry> bannedUsers = new LongObjectHashMap<>();
+    private volatile LongObjectMap<Entry> mutedUsers = new LongObjectHashMap<>();
+
+    public IrcModerationRegistry(IrcBanRepository banRepository,
+                                 IrcMuteRepository muteRepository,
+                                 IrcIpRestrictionRepository ipRepository,
+                                 StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 ObjectMapper objectMapper,
+                                 IrcSettings settings) {
+        this.banRepository = banRepository;
+        this.muteRepository = muteRepository;
+        this.ipRepository = ipRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.topic = new ChannelTopic(settings.getModerationChannel());
+    }
+
+    private static Long parseUserId(String target) {
+        if (target == null || target.startsWith("guest-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(target);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        LongObjectMap<Entry> bans = new LongObjectHashMap<>();
+        LongObjectMap<Entry> mutes = new LongObjectHashMap<>();
+        synchronized (writeLock) {
+            for (IrcRestrictionView view : banRepository.findAllRestrictions()) {
+                bans.put(view.getUserId(), schedule(Kind.USER_BAN, String.valueOf(view.getUserId()), view.getExpiresAt()));
+            }
+            for (IrcRestrictionView view : muteRepository.findAllRestrictions()) {
+                mutes.put(view.getUserId(), schedule(Kind.USER_MUTE, String.valueOf(view.getUserId()), view.getExpiresAt()));
+            }
+            for (IrcIpRestriction restriction : ipRepository.findAll()) {
+                Kind kind = restriction.getKind() == IrcIpRestriction.Kind.BAN ? Kind.IP_BAN : Kind.IP_MUTE;
+                ipMap(kind).put(restriction.getIp(), schedule(kind, restriction.getIp(), restriction.getExpiresAt()));
+            }
+            bannedUsers = bans;
+            mutedUsers = mutes;
+        }
+        listenerContainer.addMessageListener(this, topic);
+        log.info("Loaded IRC moderation registry: {} user bans, {} user mutes, {} IP bans, {} IP mutes",
+                bans.size(), mutes.size(), bannedIps.size(), mutedIps.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listenerContainer.removeMessageListener(this, topic);
+        timer.stop();
+    }
+
+    public boolean isUserBanned(long userId) {
+        return bannedUsers.containsKey(userId);
+    }
+
+    public boolean isUserMuted(long userId) {
+        return mutedUsers.containsKey(userId);
+    }
+
+    public boolean isIpBanned(String ip) {
+        return ip != null && bannedIps.containsKey(ip);
+    }
+
+    public boolean isIpMuted(String ip) {
+        return ip != null && mutedIps.containsKey(ip);
+    }
+
+    /**
+     * Listeners are told about changes this instance did not make itself: changes received from other instances
+     * and restrictions that expired.
+     */
+    public void addListener(Consumer<Change> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies a change made on this instance and publishes it to the others. Both happen once the surrounding
+     * transaction (if any) commits, so a rolled-back write never reaches the registry.
+     *
+     * @param expiresAt when a timed restriction ends, or {@code null} for a permanent one
+     */
+    public void apply(Kind kind, String target, boolean active, Instant expiresAt) {
+        Change change = new Change(origin, kind, target, active, expiresAt == null ? null : expiresAt.toEpochMilli(),
+                false);
+        AfterCommit.run(() -> {
+            if (applyLocal(kind, target, active, expiresAt)) {
+                publish(change);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Change change;
+        try {
+            change = objectMapper.readValue(message.getBody(), Change.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed IRC moderation change: {}", e.getMessage());
+            return;
+        }
+        if (origin.equals(change.origin())) {
+            return;
+        }
+        Instant expiresAt = change.expiresAt() == null ? null : Instant.ofEpochMilli(change.expiresAt());
+        if (applyLocal(change.kind(), change.target(), change.active(), expiresAt)) {
+            notifyListeners(change);
+        }
+    }
+
+    private boolean applyLocal(Kind kind, String target, boolean active, Instant expiresAt) {
+        if (kind == null || target == null || target.isBlank()) {
+            return false;
+        }
+        synchronized (writeLock) {
+            Entry previous;
+            if (kind.isUser()) {
+                Long userId = parseUserId(target);
+                if (userId == null) {
+                    return false;
+                }
+                LongObjectMap<Entry> copy = new LongObjectHashMap<>(Math.max(8, userMap(kind).size() + 1));
+                copy.putAll(userMap(kind));
+                previous = active ? copy.put(userId, schedule(kind, target, expiresAt)) : copy.remove(userId);
+                setUserMap(kind, copy);
+            } else {
+                previous = active ? ipMap(kind).put(target, schedule(kind, target, expiresAt)) : ipMap(kind).remove(target);
+            }
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+        return true;
+    }
+
+    private Entry schedule(Kind kind, String target, Instant expiresAt) {
+        Entry entry = new Entry();
+        if (expiresAt != null) {
+            long delay = Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis());
+            entry.timeout = timer.newTimeout(t -> expire(kind, target, entry), delay, TimeUnit.MILLISECONDS);
+        }
+        return entry;
+    }
+
+    private void expire(Kind kind, String target, Entry entry) {
+        synchronized (writeLock) {
+            if (kind.isUser()) {
+                long userId = Long.parseLong(target);
+                if (userMap(kind).get(userId) != entry) {
+                    return;
+                }
+                LongObjectMap<Entry> copy = new LongObjectHashMap<>(Math.max(8, userMap(kind).size()));
+                copy.putAll(userMap(kind));
+                copy.remove(userId);
+                setUserMap(kind, copy);
+            } else if (!ipMap(kind).remove(target, entry)) {
+                return;
+            }
+        }
+        notifyListeners(new Change(origin, kind, target, false, null, true));
+    }
+
+    private void notifyListeners(Change change) {
+        for (Consumer<Change> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                log.warn("IRC moderation listener failed for {} {}", change.kind(), change.target(), e);
+            }
+        }
+    }
+
+    private void publish(Change change) {
+        try {
+            redisTemplate.convertAndSend(topic.getTopic(), objectMapper.writeValueAsString(change));
+        } catch (Exception e) {
+            log.warn("Failed to publish IRC moderation change {} {}: {}", change.kind(), change.target(),
+                    e.getMessage());
+        }
+    }
+
+    private LongObjectMap<Entry> userMap(Kind kind) {
+        return kind == Kind.USER_BAN ? bannedUsers : mutedUsers;
+    }
+
+    private void setUserMap(Kind kind, LongObjectMap<Entry> map) {
+        if (kind == Kind.USER_BAN) {
+            bannedUsers = map;
+        } else {
+            mutedUsers = map;
+        }
+    }
+
+    private Map<String, Entry> ipMap(Kind kind) {
+        return kind == Kind.IP_BAN ? bannedIps : mutedIps;
+    }
+
+    public enum Kind {
+        USER_BAN, USER_MUTE, IP_BAN, IP_MUTE;
+
+        public boolean isUser() {
+            return this == USER_BAN || this == USER_MUTE;
+        }
+
+        public boolean isBan() {
+            return this == USER_BAN || this == IP_BAN;
+        }
+    }
+
+    /**
+     * A moderation change as sent between instances. {@code expired} marks a timed restriction that ran out.
+     */
+    public record Change(String origin, Kind kind, String target, boolean active, Long expiresAt, boolean expired) {
+    }
+
+    private static final class Entry {
+        private volatile Timeout timeout;
+
+        void cancel() {
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
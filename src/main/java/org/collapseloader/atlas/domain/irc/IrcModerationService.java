@@ -1,99 +1,225 @@
 package org.collapseloader.atlas.domain.irc;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.config.AfterCommit;
+import org.collapseloader.atlas.domain.irc.IrcModerationRegistry.Kind;
 import org.collapseloader.atlas.domain.irc.entity.IrcBan;
+import org.collapseloader.atlas.domain.irc.entity.IrcIpRestriction;
 import org.collapseloader.atlas.domain.irc.entity.IrcMute;
 import org.collapseloader.atlas.domain.irc.repository.IrcBanRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcIpRestrictionRepository;
 import org.collapseloader.atlas.domain.irc.repository.IrcMuteRepository;
 import org.collapseloader.atlas.domain.users.entity.User;
 import org.collapseloader.atlas.domain.users.repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class IrcModerationService {
     private final IrcBanRepository banRepository;
     private final IrcMuteRepository muteRepository;
+    private final IrcIpRestrictionRepository ipRepository;
     private final UserRepository userRepository;
     private final IrcServerState state;
+    private final IrcModerationRegistry registry;
+    private final ExecutorService cleanup =
+            Executors.newSingleThreadExecutor(new DefaultThreadFactory("irc-moderation-cleanup", true));
 
-    @Transactional(readOnly = true)
-    public boolean isUserBanned(String userId) {
-        if (userId == null || userId.startsWith("guest-")) return false;
+    private static Long parseUserId(String userId) {
+        if (userId == null || userId.startsWith("guest-")) return null;
         try {
-            return banRepository.existsByUserId(Long.parseLong(userId));
+            return Long.parseLong(userId);
         } catch (NumberFormatException e) {
-            return false;
+            return null;
         }
     }
 
-    @Transactional(readOnly = true)
+    private static Instant expiry(Duration duration) {
+        return duration == null || duration.isZero() || duration.isNegative() ? null : Instant.now().plus(duration);
+    }
+
+    @PostConstruct
+    void registerRegistryListener() {
+        registry.addListener(this::onRegistryChange);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cleanup.shutdown();
+    }
+
+    public boolean isUserBanned(String userId) {
+        Long uid = parseUserId(userId);
+        return uid != null && registry.isUserBanned(uid);
+    }
+
     public boolean isUserMuted(String userId) {
-        if (userId == null || userId.startsWith("guest-")) return false;
-        try {
-            return muteRepository.existsByUserId(Long.parseLong(userId));
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        Long uid = parseUserId(userId);
+        return uid != null && registry.isUserMuted(uid);
     }
 
     @Transactional
     public int setUserBanned(String userId, boolean banned) {
+        return setUserBanned(userId, banned, null);
+    }
+
+    @Transactional
+    public int setUserBanned(String userId, boolean banned, Duration duration) {
         if (userId == null || userId.startsWith("guest-")) return 0;
         long uid = Long.parseLong(userId);
+        Instant expiresAt = banned ? expiry(duration) : null;
 
         if (banned) {
-            if (!banRepository.existsByUserId(uid)) {
+            IrcBan ban = banRepository.findByUserId(uid).orElse(null);
+            if (ban == null) {
                 User user = userRepository.findById(uid).orElse(null);
                 if (user == null) return 0;
-                banRepository.save(IrcBan.builder().user(user).reason("Banned via IRC").build());
+                ban = IrcBan.builder().user(user).reason("Banned via IRC").build();
             }
+            ban.setExpiresAt(expiresAt);
+            banRepository.save(ban);
         } else {
             banRepository.deleteByUserId(uid);
         }
 
-        int affected = 0;
-        for (IrcSession session : state.snapshotUsers()) {
-            if (userId.equals(session.getUserId())) {
-                session.setBanned(banned);
-                affected++;
-                if (banned) {
-                    session.sendSystem("You have been banned.");
-                    session.getChannel().close();
-                } else {
-                    session.sendSystem("You have been unbanned.");
-                }
-            }
-        }
-        return affected;
+        registry.apply(Kind.USER_BAN, userId, banned, expiresAt);
+        AfterCommit.run(() -> applyUserBan(userId, banned));
+        return state.findAllByUserId(userId).size();
     }
 
     @Transactional
     public int setUserMuted(String userId, boolean muted) {
+        return setUserMuted(userId, muted, null);
+    }
+
+    @Transactional
+    public int setUserMuted(String userId, boolean muted, Duration duration) {
         if (userId == null || userId.startsWith("guest-")) return 0;
         long uid = Long.parseLong(userId);
+        Instant expiresAt = muted ? expiry(duration) : null;
 
         if (muted) {
-            if (!muteRepository.existsByUserId(uid)) {
+            IrcMute mute = muteRepository.findByUserId(uid).orElse(null);
+            if (mute == null) {
                 User user = userRepository.findById(uid).orElse(null);
                 if (user == null) return 0;
-                muteRepository.save(IrcMute.builder().user(user).reason("Muted via IRC").build());
+                mute = IrcMute.builder().user(user).reason("Muted via IRC").build();
             }
+            mute.setExpiresAt(expiresAt);
+            muteRepository.save(mute);
         } else {
             muteRepository.deleteByUserId(uid);
         }
 
-        int affected = 0;
+        registry.apply(Kind.USER_MUTE, userId, muted, expiresAt);
+        AfterCommit.run(() -> applyUserMute(userId, muted));
+        return state.findAllByUserId(userId).size();
+    }
+
+    @Transactional
+    public int setIpBanned(String ip, boolean banned, Duration duration) {
+        if (ip == null || ip.isBlank()) return 0;
+        Instant expiresAt = banned ? expiry(duration) : null;
+        saveIpRestriction(ip, IrcIpRestriction.Kind.BAN, banned, expiresAt, "Banned via IRC");
+        registry.apply(Kind.IP_BAN, ip, banned, expiresAt);
+        AfterCommit.run(() -> state.applyIpBan(ip, banned));
+        return countByIp(ip);
+    }
+
+    @Transactional
+    public int setIpMuted(String ip, boolean muted, Duration duration) {
+        if (ip == null || ip.isBlank()) return 0;
+        Instant expiresAt = muted ? expiry(duration) : null;
+        saveIpRestriction(ip, IrcIpRestriction.Kind.MUTE, muted, expiresAt, "Muted via IRC");
+        registry.apply(Kind.IP_MUTE, ip, muted, expiresAt);
+        AfterCommit.run(() -> state.applyIpMute(ip, muted));
+        return countByIp(ip);
+    }
+
+    private void saveIpRestriction(String ip, IrcIpRestriction.Kind kind, boolean active, Instant expiresAt,
+                                   String reason) {
+        if (!active) {
+            ipRepository.deleteByIpAndKind(ip, kind);
+            return;
+        }
+        IrcIpRestriction restriction = ipRepository.findByIpAndKind(ip, kind)
+                .orElseGet(() -> IrcIpRestriction.builder().ip(ip).kind(kind).reason(reason).build());
+        restriction.setExpiresAt(expiresAt);
+        ipRepository.save(restriction);
+    }
+
+    private void onRegistryChange(IrcModerationRegistry.Change change) {
+        switch (change.kind()) {
+            case USER_BAN -> applyUserBan(change.target(), change.active());
+            case USER_MUTE -> applyUserMute(change.target(), change.active());
+            case IP_BAN -> state.applyIpBan(change.target(), change.active());
+            case IP_MUTE -> state.applyIpMute(change.target(), change.active());
+        }
+        if (change.expired()) {
+            // expiries fire on the registry's timer thread; keep the database off it
+            cleanup.execute(() -> deleteExpired(change.kind(), change.target()));
+        }
+    }
+
+    private int countByIp(String ip) {
+        int count = 0;
         for (IrcSession session : state.snapshotUsers()) {
-            if (userId.equals(session.getUserId())) {
-                session.setMuted(muted);
-                affected++;
-                session.sendSystem(muted ? "You have been muted." : "You have been unmuted.");
+            if (ip.equals(session.getIp())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void deleteExpired(Kind kind, String target) {
+        Instant now = Instant.now();
+        try {
+            switch (kind) {
+                case USER_BAN -> banRepository.deleteByUserIdAndExpiresAtLessThanEqual(Long.parseLong(target), now);
+                case USER_MUTE -> muteRepository.deleteByUserIdAndExpiresAtLessThanEqual(Long.parseLong(target), now);
+                case IP_BAN -> ipRepository.deleteByIpAndKindAndExpiresAtLessThanEqual(target,
+                        IrcIpRestriction.Kind.BAN, now);
+                case IP_MUTE -> ipRepository.deleteByIpAndKindAndExpiresAtLessThanEqual(target,
+                        IrcIpRestriction.Kind.MUTE, now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete expired IRC {} for {}", kind, target, e);
+        }
+    }
+
+    private int applyUserBan(String userId, boolean banned) {
+        int affected = 0;
+        for (IrcSession session : state.findAllByUserId(userId)) {
+            session.setBanned(banned);
+            affected++;
+            if (banned) {
+                session.sendSystem("You have been banned.");
+                session.getChannel().close();
+            } else {
+                session.sendSystem("You have been unbanned.");
             }
         }
         return affected;
     }
+
+    private int applyUserMute(String userId, boolean muted) {
+        int affected = 0;
+        for (IrcSession session : state.findAllByUserId(userId)) {
+            session.setMuted(muted);
+            affected++;
+            session.sendSystem(muted ? "You have been muted." : "You have been unmuted.");
+        }
+        return affected;
+    }
 }
@@ -1,14 +1,10 @@
 package org.collapseloader.atlas.domain.irc;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioIoHandler;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LineBasedFrameDecoder;
 import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.SmartLifecycle;
@@ -23,12 +19,12 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class IrcNettyServer implements SmartLifecycle {
 
-    private final ObjectMapper objectMapper;
+    private final IrcPacketCodec codec;
     private final IrcSettings settings;
     private final IrcServerState state;
-    private final IrcAuthService authService;
+    private final IrcAuthStage authStage;
+    private final IrcModerationRegistry moderationRegistry;
     private final IrcCommandService commandService;
-    private final IrcModerationService moderationService;
     private final IrcMetrics metrics;
 
     private EventLoopGroup bossGroup;
@@ -38,19 +34,19 @@ public class IrcNettyServer implements SmartLifecycle {
     private volatile boolean running;
 
     public IrcNettyServer(
-            ObjectMapper objectMapper,
+            IrcPacketCodec codec,
             IrcSettings settings,
             IrcServerState state,
-            IrcAuthService authService,
+            IrcAuthStage authStage,
+            IrcModerationRegistry moderationRegistry,
             IrcCommandService commandService,
-            IrcModerationService moderationService,
             IrcMetrics metrics) {
-        this.objectMapper = objectMapper;
+        this.codec = codec;
         this.settings = settings;
         this.state = state;
-        this.authService = authService;
+        this.authStage = authStage;
+        this.moderationRegistry = moderationRegistry;
         this.commandService = commandService;
-        this.moderationService = moderationService;
         this.metrics = metrics;
     }
 
@@ -60,27 +56,29 @@ public class IrcNettyServer implements SmartLifecycle {
             return;
         }
 
-        bossGroup = new MultiThreadIoEventLoopGroup(Math.max(1, settings.getBossThreads()), NioIoHandler.newFactory());
-        workerGroup = new MultiThreadIoEventLoopGroup(Math.max(0, settings.getWorkerThreads()),
-                NioIoHandler.newFactory());
+        IrcTransport transport = IrcTransport.select(settings.getTransport());
+        bossGroup = transport.newEventLoopGroup(Math.max(1, settings.getBossThreads()));
+        workerGroup = transport.newEventLoopGroup(Math.max(0, settings.getWorkerThreads()));
 
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
+                    .channel(transport.serverChannelClass())
                     .option(ChannelOption.SO_BACKLOG, 8192)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, settings.writeBufferWaterMark())
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
                             ch.pipeline().addLast(new ReadTimeoutHandler((int) settings.readTimeout().toSeconds()));
                             ch.pipeline().addLast(new LineBasedFrameDecoder(settings.getMaxFrameLength()));
                             ch.pipeline().addLast(new StringDecoder(StandardCharsets.UTF_8));
-                            ch.pipeline().addLast(new StringEncoder(StandardCharsets.UTF_8));
                             ch.pipeline().addLast(
-                                    new IrcChannelHandler(objectMapper, settings, state, authService, commandService,
-                                            moderationService, metrics));
+                                    new IrcOutboundHandler(settings.getOutboundQueueCapacity(), metrics));
+                            ch.pipeline().addLast(
+                                    new IrcChannelHandler(codec, settings, state, authStage, moderationRegistry,
+                                            commandService, metrics));
                         }
                     });
 
@@ -94,7 +92,9 @@ public class IrcNettyServer implements SmartLifecycle {
                     TimeUnit.SECONDS);
 
             running = true;
-            log.info("[STARTUP] IRC Netty server started on {}:{}", settings.getHost(), settings.getPort());
+            metrics.recordTransport(transport);
+            log.info("[STARTUP] IRC Netty server started on {}:{} using {} transport", settings.getHost(),
+                    settings.getPort(), transport.id());
         } catch (Exception ex) {
             log.error("[FATAL] Error starting IRC Netty server", ex);
             stop();
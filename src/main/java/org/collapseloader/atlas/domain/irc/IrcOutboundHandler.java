@@ -0,0 +1,139 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Keeps a slow reader from growing the server's outbound buffers. Netty's own buffer is capped by the channel's
+ * write-buffer water marks; once it is above the high mark the channel is unwritable and this handler takes over:
+ * <ul>
+ *     <li>history replays and room-state ticks are dropped, since the client can do without them,</li>
+ *     <li>everything else waits in a bounded per-channel queue that drains when the channel becomes writable,</li>
+ *     <li>a client whose queue overflows is disconnected.</li>
+ * </ul>
+ * All state is confined to the channel's event loop.
+ */
+public class IrcOutboundHandler extends ChannelDuplexHandler {
+
+    public enum Kind {
+        HISTORY,
+        ROOM_STATE
+    }
+
+    public enum Action {
+        DROP_HISTORY,
+        DROP_ROOM_STATE,
+        DISCONNECT;
+
+        public String id() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A frame that may be discarded instead of queued when the channel is not writable.
+     */
+    public static final class DroppableFrame extends DefaultByteBufHolder {
+        private final Kind kind;
+
+        public DroppableFrame(Kind kind, ByteBuf frame) {
+            super(frame);
+            this.kind = kind;
+        }
+    }
+
+    private record Pending(Object msg, ChannelPromise promise) {
+    }
+
+    private final int capacity;
+    private final IrcMetrics metrics;
+    private final Queue<Pending> queue = new ArrayDeque<>();
+    private boolean disconnected;
+
+    public IrcOutboundHandler(int capacity, IrcMetrics metrics) {
+        this.capacity = Math.max(1, capacity);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        boolean backlogged = !queue.isEmpty() || !ctx.channel().isWritable();
+
+        if (msg instanceof DroppableFrame droppable) {
+            if (backlogged) {
+                ReferenceCountUtil.release(droppable);
+                promise.trySuccess();
+                metrics.recordSlowConsumer(droppable.kind == Kind.HISTORY ? Action.DROP_HISTORY : Action.DROP_ROOM_STATE);
+                return;
+            }
+            msg = droppable.content();
+        }
+
+        if (!backlogged) {
+            ctx.write(msg, promise);
+            return;
+        }
+        if (disconnected) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+            return;
+        }
+        if (queue.size() >= capacity) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+            disconnect(ctx);
+            return;
+        }
+        queue.add(new Pending(msg, promise));
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable() && !queue.isEmpty()) {
+            Pending pending;
+            while (ctx.channel().isWritable() && (pending = queue.poll()) != null) {
+                ctx.write(pending.msg(), pending.promise());
+            }
+            ctx.flush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        discardQueue();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        discardQueue();
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private void disconnect(ChannelHandlerContext ctx) {
+        disconnected = true;
+        discardQueue();
+        metrics.recordSlowConsumer(Action.DISCONNECT);
+        ctx.close();
+    }
+
+    private void discardQueue() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            ReferenceCountUtil.release(pending.msg());
+            pending.promise().trySuccess();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Turns outgoing packets into newline-terminated JSON frames written straight into pooled {@link ByteBuf}s.
+ * <p>
+ * A frame is encoded once and can be shared between any number of channels through
+ * {@link ByteBuf#retainedDuplicate()}; callers own the returned buffer and must release it.
+ */
+@Component
+public class IrcPacketCodec {
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final ByteBufAllocator allocator;
+
+    public IrcPacketCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.allocator = ByteBufAllocator.DEFAULT;
+    }
+
+    public ByteBuf encode(IrcPackets.OutgoingPacket packet) throws IOException {
+        ByteBuf buffer = allocator.buffer(256);
+        try {
+            OutputStream out = new ByteBufOutputStream(buffer);
+            objectMapper.writeValue(out, packet);
+            buffer.writeByte(NEWLINE);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+    }
+
+    public byte[] encodeToBytes(IrcPackets.OutgoingPacket packet) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(packet);
+        byte[] frame = new byte[json.length + 1];
+        System.arraycopy(json, 0, frame, 0, json.length);
+        frame[json.length] = NEWLINE;
+        return frame;
+    }
+
+    public IrcPackets.IncomingPacket decode(String raw) {
+        try {
+            return objectMapper.readValue(raw, IrcPackets.IncomingPacket.class);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+}
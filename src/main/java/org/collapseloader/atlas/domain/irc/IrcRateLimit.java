@@ -1,121 +1,179 @@
 package org.collapseloader.atlas.domain.irc;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Locale;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session chat rate limiter with three sliding windows (per second, per minute and a three-second burst).
+ * <p>
+ * Accepted messages are kept as {@code nanoTime} stamps in a fixed ring sized to the largest window limit, so "at
+ * most N messages in window W" is a single lookup of the N-th most recent stamp. The hot path allocates nothing: the
+ * window deny results are built once per {@link Limits}, which {@link IrcSettings} shares per role, and the temp-mute
+ * denial is rebuilt at most once a second as its countdown changes. State is only touched from the session's event
+ * loop.
+ */
 final class IrcRateLimit {
-    private static final int GUEST_MESSAGES_PER_SECOND = 1;
-    private static final int GUEST_MESSAGES_PER_MINUTE = 30;
-    private static final int GUEST_BURST_SIZE = 2;
-
-    private static final int USER_MESSAGES_PER_SECOND = 2;
-    private static final int USER_MESSAGES_PER_MINUTE = 60;
-    private static final int USER_BURST_SIZE = 3;
-
-    private static final int VIOLATION_THRESHOLD = 5;
-    private static final Duration VIOLATION_RESET = Duration.ofMinutes(2);
-    private static final Duration TEMP_MUTE = Duration.ofMinutes(5);
-
-    private IrcRateLimit() {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long BURST_WINDOW = TimeUnit.SECONDS.toNanos(3);
+
+    private final Limits limits;
+    private final long[] sent;
+    private int head;
+    private int count;
+
+    private int violations;
+    private long lastViolation;
+    private boolean tempMuted;
+    private long tempMutedUntil;
+    private long mutedDeniedSeconds = -1;
+    private Result mutedDenied;
+
+    IrcRateLimit(Limits limits) {
+        this.limits = limits;
+        this.sent = new long[Math.max(1, Math.max(limits.messagesPerSecond,
+                Math.max(limits.messagesPerMinute, limits.burstSize)))];
     }
 
     static Result check(IrcSession session) {
-        if (session.isAdminOrOwner()) {
-            return Result.allow();
+        IrcRateLimit rateLimit = session.getRateLimit();
+        if (session.isAdminOrOwner() || rateLimit == null) {
+            return Result.ALLOW;
         }
+        return rateLimit.check(System.nanoTime());
+    }
 
-        Instant now = Instant.now();
-        if (session.getTempMutedUntil() != null && now.isBefore(session.getTempMutedUntil())) {
-            long remaining = Duration.between(now, session.getTempMutedUntil()).toSeconds();
-            return Result.deny("You are temporarily muted for " + remaining + " more seconds due to spam.");
+    static String status(IrcSession session) {
+        IrcRateLimit rateLimit = session.getRateLimit();
+        if (session.isAdminOrOwner() || rateLimit == null) {
+            return "Rate limiting: Disabled (privileged user)";
         }
+        return rateLimit.status(System.nanoTime());
+    }
 
-        if (session.getTempMutedUntil() != null && now.isAfter(session.getTempMutedUntil())) {
-            session.setTempMutedUntil(null);
-            session.resetViolations();
+    Result check(long now) {
+        if (tempMuted) {
+            if (now - tempMutedUntil < 0) {
+                long remaining = TimeUnit.NANOSECONDS.toSeconds(tempMutedUntil - now);
+                if (remaining != mutedDeniedSeconds) {
+                    mutedDeniedSeconds = remaining;
+                    mutedDenied = Result.deny("You are temporarily muted for " + remaining
+                            + " more seconds due to spam.");
+                }
+                return mutedDenied;
+            }
+            tempMuted = false;
+            violations = 0;
         }
 
-        if (session.getLastViolationTime() != null
-                && Duration.between(session.getLastViolationTime(), now).compareTo(VIOLATION_RESET) > 0) {
-            session.resetViolations();
+        if (violations > 0 && now - lastViolation > limits.violationResetNanos) {
+            violations = 0;
         }
 
-        Config config = configFor(session.getRole());
-
-        Instant minuteCutoff = now.minusSeconds(60);
-        session.getMessageTimestamps().removeIf(instant -> instant.isBefore(minuteCutoff));
-
-        long inSecond = session.getMessageTimestamps().stream().filter(ts -> ts.isAfter(now.minusSeconds(1))).count();
-        long inMinute = session.getMessageTimestamps().size();
-        long inBurst = session.getMessageTimestamps().stream().filter(ts -> ts.isAfter(now.minusSeconds(3))).count();
-
-        if (inSecond >= config.messagesPerSecond) {
-            return violation(session, "Rate limit: Maximum " + config.messagesPerSecond + " messages per second. Slow down!");
+        if (exceeds(limits.messagesPerSecond, SECOND, now)) {
+            return violation(limits.perSecondDenied, now);
         }
-        if (inMinute >= config.messagesPerMinute) {
-            return violation(session, "Rate limit: Maximum " + config.messagesPerMinute + " messages per minute. Take a break!");
+        if (exceeds(limits.messagesPerMinute, MINUTE, now)) {
+            return violation(limits.perMinuteDenied, now);
         }
-        if (inBurst >= config.burstSize) {
-            return violation(session, "Rate limit: Maximum " + config.burstSize + " messages in quick succession. Slow down!");
+        if (exceeds(limits.burstSize, BURST_WINDOW, now)) {
+            return violation(limits.burstDenied, now);
         }
 
-        session.getMessageTimestamps().addLast(now);
-        return Result.allow();
-    }
-
-    static String status(IrcSession session) {
-        if (session.isAdminOrOwner()) {
-            return "Rate limiting: Disabled (privileged user)";
+        sent[head] = now;
+        head = head + 1 == sent.length ? 0 : head + 1;
+        if (count < sent.length) {
+            count++;
         }
+        return Result.ALLOW;
+    }
 
-        Config config = configFor(session.getRole());
-        Instant now = Instant.now();
-        long inSecond = session.getMessageTimestamps().stream().filter(ts -> ts.isAfter(now.minusSeconds(1))).count();
-        long inMinute = session.getMessageTimestamps().stream().filter(ts -> ts.isAfter(now.minusSeconds(60))).count();
-
+    String status(long now) {
         StringBuilder status = new StringBuilder();
         status.append("Rate limit status:\n")
-                .append("  Last second: ").append(inSecond).append("/").append(config.messagesPerSecond).append(" messages\n")
-                .append("  Last minute: ").append(inMinute).append("/").append(config.messagesPerMinute).append(" messages\n")
-                .append("  Violations: ").append(session.getViolationCount()).append("/").append(VIOLATION_THRESHOLD);
+                .append("  Last second: ").append(countWithin(SECOND, now)).append("/").append(limits.messagesPerSecond).append(" messages\n")
+                .append("  Last minute: ").append(countWithin(MINUTE, now)).append("/").append(limits.messagesPerMinute).append(" messages\n")
+                .append("  Violations: ").append(violations).append("/").append(limits.violationThreshold);
 
-        if (session.getTempMutedUntil() != null && now.isBefore(session.getTempMutedUntil())) {
-            long remaining = Duration.between(now, session.getTempMutedUntil()).toSeconds();
+        if (tempMuted && now - tempMutedUntil < 0) {
+            long remaining = TimeUnit.NANOSECONDS.toSeconds(tempMutedUntil - now);
             status.append("\n  Temporarily muted for: ").append(remaining).append(" seconds");
         }
 
         return status.toString();
     }
 
-    private static Result violation(IrcSession session, String message) {
-        int violations = session.incrementViolations();
-        session.setLastViolationTime(Instant.now());
-        if (violations >= VIOLATION_THRESHOLD) {
-            session.setTempMutedUntil(Instant.now().plus(TEMP_MUTE));
-            session.resetViolations();
+    /**
+     * True when at least {@code limit} accepted messages fall inside the window, i.e. the {@code limit}-th most
+     * recent stamp is younger than {@code window}.
+     */
+    private boolean exceeds(int limit, long window, long now) {
+        if (limit <= 0) {
+            return true;
+        }
+        if (count < limit) {
+            return false;
+        }
+        int index = head - limit;
+        if (index < 0) {
+            index += sent.length;
+        }
+        return now - sent[index] < window;
+    }
+
+    private int countWithin(long window, long now) {
+        int within = 0;
+        int index = head;
+        for (int i = 0; i < count; i++) {
+            index = index == 0 ? sent.length - 1 : index - 1;
+            if (now - sent[index] >= window) {
+                break;
+            }
+            within++;
         }
-        return Result.deny(message);
+        return within;
     }
 
-    private static Config configFor(String role) {
-        String normalized = role == null ? "" : role.trim().toLowerCase(Locale.ROOT);
-        if ("guest".equals(normalized)) {
-            return new Config(GUEST_MESSAGES_PER_SECOND, GUEST_MESSAGES_PER_MINUTE, GUEST_BURST_SIZE);
+    private Result violation(Result denied, long now) {
+        violations++;
+        lastViolation = now;
+        if (violations >= limits.violationThreshold) {
+            tempMuted = true;
+            tempMutedUntil = now + limits.tempMuteNanos;
+            violations = 0;
         }
-        return new Config(USER_MESSAGES_PER_SECOND, USER_MESSAGES_PER_MINUTE, USER_BURST_SIZE);
+        return denied;
     }
 
     record Result(boolean allowed, String message) {
-        static Result allow() {
-            return new Result(true, "");
-        }
+        static final Result ALLOW = new Result(true, "");
 
         static Result deny(String message) {
             return new Result(false, message);
         }
     }
 
-    private record Config(int messagesPerSecond, int messagesPerMinute, int burstSize) {
+    static final class Limits {
+        private final int messagesPerSecond;
+        private final int messagesPerMinute;
+        private final int burstSize;
+        private final int violationThreshold;
+        private final long violationResetNanos;
+        private final long tempMuteNanos;
+        private final Result perSecondDenied;
+        private final Result perMinuteDenied;
+        private final Result burstDenied;
+
+        Limits(int messagesPerSecond, int messagesPerMinute, int burstSize,
+               int violationThreshold, long violationResetSeconds, long tempMuteSeconds) {
+            this.messagesPerSecond = messagesPerSecond;
+            this.messagesPerMinute = messagesPerMinute;
+            this.burstSize = burstSize;
+            this.violationThreshold = Math.max(1, violationThreshold);
+            this.violationResetNanos = TimeUnit.SECONDS.toNanos(violationResetSeconds);
+            this.tempMuteNanos = TimeUnit.SECONDS.toNanos(tempMuteSeconds);
+            this.perSecondDenied = Result.deny("Rate limit: Maximum " + messagesPerSecond + " messages per second. Slow down!");
+            this.perMinuteDenied = Result.deny("Rate limit: Maximum " + messagesPerMinute + " messages per minute. Take a break!");
+            this.burstDenied = Result.deny("Rate limit: Maximum " + burstSize + " messages in quick succession. Slow down!");
+        }
     }
 }
@@ -1,6 +1,9 @@
 package org.collapseloader.atlas.domain.irc;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -8,10 +11,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Component
@@ -19,17 +24,23 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class IrcServerState {
     private final IrcSettings settings;
+    private final IrcPacketCodec codec;
     private final Map<Channel, IrcSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, IrcSession> usernames = new ConcurrentHashMap<>();
-    private final Set<String> bannedIps = ConcurrentHashMap.newKeySet();
-    private final Set<String> mutedIps = ConcurrentHashMap.newKeySet();
-    private final Deque<IrcPackets.OutgoingPacket> history = new ConcurrentLinkedDeque<>();
+    private final ConcurrentSkipListMap<String, Set<IrcSession>> sessionsByName = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<IrcSession>> sessionsByUserId = new ConcurrentHashMap<>();
+    private final Object historyLock = new Object();
+    private HistoryEntry[] history;
+    private int historyStart;
+    private int historySize;
+    private ByteBuf replaySnapshot;
     private final AtomicLong guestCounter = new AtomicLong(1);
     private final AtomicLong packetCounter = new AtomicLong(1);
     @Setter
     @Autowired
     @Lazy
     private IrcMetrics metrics;
+    @Setter
+    private volatile IrcClusterRelay clusterRelay;
     private int lastOnlineUsers = -1;
     private int lastOnlineGuests = -1;
 
@@ -43,81 +54,233 @@ public class IrcServerState {
 
     public void register(IrcSession session) {
         sessions.put(session.getChannel(), session);
-        usernames.put(session.getName().toLowerCase(Locale.ROOT), session);
+        index(sessionsByName, fold(session.getName()), session);
+        index(sessionsByUserId, session.getUserId(), session);
+        IrcClusterRelay relay = clusterRelay;
+        if (relay != null) {
+            relay.sessionJoined(session);
+        }
     }
 
     public void unregister(Channel channel) {
         IrcSession removed = sessions.remove(channel);
         if (removed != null) {
-            usernames.remove(removed.getName().toLowerCase(Locale.ROOT), removed);
+            unindex(sessionsByName, fold(removed.getName()), removed);
+            unindex(sessionsByUserId, removed.getUserId(), removed);
+            IrcClusterRelay relay = clusterRelay;
+            if (relay != null) {
+                relay.sessionLeft(removed);
+            }
+        }
+    }
+
+    private static <K> void index(Map<K, Set<IrcSession>> index, K key, IrcSession session) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, current) -> {
+            Set<IrcSession> sessions = current != null ? current : ConcurrentHashMap.newKeySet();
+            sessions.add(session);
+            return sessions;
+        });
+    }
+
+    private static <K> void unindex(Map<K, Set<IrcSession>> index, K key, IrcSession session) {
+        if (key == null) {
+            return;
         }
+        index.computeIfPresent(key, (k, current) -> {
+            current.remove(session);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    private static String fold(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
     }
 
     public List<IrcSession> snapshotUsers() {
         return new ArrayList<>(sessions.values());
     }
 
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Local sessions plus, in cluster mode, stand-ins for the sessions connected to other nodes. Only for listing and
+     * messaging; the stand-ins have no channel.
+     */
+    public List<IrcSession> snapshotClusterUsers() {
+        List<IrcSession> users = snapshotUsers();
+        IrcClusterRelay relay = clusterRelay;
+        if (relay != null) {
+            users.addAll(relay.remoteSessions());
+        }
+        return users;
+    }
+
     public IrcSession findByUserId(String userId) {
+        List<IrcSession> matches = findAllByUserId(userId);
+        return matches.isEmpty() ? null : matches.getFirst();
+    }
+
+    /**
+     * @return every session of the user, e.g. the loader and the game client of the same account
+     */
+    public List<IrcSession> findAllByUserId(String userId) {
         if (userId == null || userId.isBlank()) {
-            return null;
-        }
-        for (IrcSession user : sessions.values()) {
-            if (userId.equals(user.getUserId())) {
-                return user;
-            }
+            return List.of();
         }
-        return null;
+        Set<IrcSession> matches = sessionsByUserId.get(userId);
+        return matches == null ? List.of() : List.copyOf(matches);
     }
 
     public List<IrcSession> findAllByPartialName(String partialName) {
-        String needle = partialName == null ? "" : partialName.trim().toLowerCase(Locale.ROOT);
-        if (needle.isBlank()) {
+        return findAllByPartialName(partialName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Resolves a name typed by a user: an exact case-insensitive match wins, otherwise up to {@code limit} sessions
+     * whose name starts with the input, in case-insensitive name order.
+     */
+    public List<IrcSession> findAllByPartialName(String partialName, int limit) {
+        String needle = partialName == null ? "" : fold(partialName.trim());
+        if (needle.isBlank() || limit <= 0) {
             return List.of();
         }
 
-        IrcSession exact = usernames.get(needle);
+        Set<IrcSession> exact = sessionsByName.get(needle);
         if (exact != null) {
-            return List.of(exact);
+            for (IrcSession session : exact) {
+                return List.of(session);
+            }
         }
 
         List<IrcSession> matches = new ArrayList<>();
-        for (IrcSession user : sessions.values()) {
-            String current = user.getName().toLowerCase(Locale.ROOT);
-            if (current.startsWith(needle)) {
-                matches.add(user);
+        for (var entry : sessionsByName.tailMap(needle).entrySet()) {
+            if (!entry.getKey().startsWith(needle)) {
+                break;
+            }
+            for (IrcSession session : entry.getValue()) {
+                matches.add(session);
+                if (matches.size() >= limit) {
+                    return matches;
+                }
             }
         }
-
-        matches.sort(Comparator.comparing(IrcSession::getName, String.CASE_INSENSITIVE_ORDER));
         return matches;
     }
 
+    /**
+     * Like {@link #findAllByPartialName(String, int)}, but in cluster mode also matches sessions on other nodes.
+     * Local sessions are preferred; the returned stand-ins for remote sessions relay whatever is sent to them.
+     */
+    public List<IrcSession> findClusterMembersByPartialName(String partialName, int limit) {
+        List<IrcSession> local = findAllByPartialName(partialName, limit);
+        IrcClusterRelay relay = clusterRelay;
+        String needle = partialName == null ? "" : fold(partialName.trim());
+        if (relay == null || needle.isBlank() || limit <= 0) {
+            return local;
+        }
+        if (local.size() == 1 && fold(local.getFirst().getName()).equals(needle)) {
+            return local;
+        }
+
+        List<IrcSession> remote = relay.findRemoteByPartialName(needle, limit);
+        if (remote.size() == 1 && fold(remote.getFirst().getName()).equals(needle)) {
+            return remote;
+        }
+        List<IrcSession> merged = new ArrayList<>(local);
+        merged.addAll(remote);
+        merged.sort(Comparator.comparing(IrcSession::getName, String.CASE_INSENSITIVE_ORDER));
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
     public void appendHistory(IrcPackets.OutgoingPacket packet) {
-        history.addLast(packet);
-        while (history.size() > Math.max(1, settings.getHistoryLimit())) {
-            history.pollFirst();
+        HistoryEntry entry = new HistoryEntry(packet, encodeReplayFrame(packet));
+        synchronized (historyLock) {
+            if (history == null) {
+                history = new HistoryEntry[Math.max(1, settings.getHistoryLimit())];
+            }
+            history[(historyStart + historySize) % history.length] = entry;
+            if (historySize < history.length) {
+                historySize++;
+            } else {
+                historyStart = (historyStart + 1) % history.length;
+            }
+            if (replaySnapshot != null) {
+                replaySnapshot.release();
+                replaySnapshot = null;
+            }
         }
     }
 
     public List<IrcPackets.OutgoingPacket> historySnapshot() {
-        return new ArrayList<>(history);
+        synchronized (historyLock) {
+            List<IrcPackets.OutgoingPacket> packets = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                packets.add(history[(historyStart + i) % history.length].packet());
+            }
+            return packets;
+        }
+    }
+
+    /**
+     * Replays the history to one channel as a single write. The concatenated frames are built once per change to
+     * the history and shared by every replay until the next message arrives.
+     */
+    public void writeHistory(Channel channel) {
+        ByteBuf replay;
+        synchronized (historyLock) {
+            if (replaySnapshot == null) {
+                replaySnapshot = buildReplaySnapshot();
+            }
+            if (!replaySnapshot.isReadable()) {
+                return;
+            }
+            replay = replaySnapshot.retainedDuplicate();
+        }
+        channel.writeAndFlush(new IrcOutboundHandler.DroppableFrame(IrcOutboundHandler.Kind.HISTORY, replay),
+                channel.voidPromise());
     }
 
-    public boolean isIpBanned(String ip) {
-        return bannedIps.contains(ip);
+    private ByteBuf buildReplaySnapshot() {
+        int bytes = 0;
+        for (int i = 0; i < historySize; i++) {
+            byte[] frame = history[(historyStart + i) % history.length].replayFrame();
+            bytes += frame == null ? 0 : frame.length;
+        }
+        ByteBuf snapshot = Unpooled.directBuffer(bytes, bytes);
+        for (int i = 0; i < historySize; i++) {
+            byte[] frame = history[(historyStart + i) % history.length].replayFrame();
+            if (frame != null) {
+                snapshot.writeBytes(frame);
+            }
+        }
+        return snapshot;
     }
 
-    public boolean isIpMuted(String ip) {
-        return mutedIps.contains(ip);
+    private byte[] encodeReplayFrame(IrcPackets.OutgoingPacket packet) {
+        try {
+            return codec.encodeToBytes(IrcPackets.OutgoingPacket.builder()
+                    .type(packet.getType())
+                    .id(packet.getId())
+                    .time(packet.getTime())
+                    .sender(packet.getSender())
+                    .content(packet.getContent())
+                    .history(true)
+                    .roomState(packet.getRoomState())
+                    .build());
+        } catch (IOException e) {
+            log.debug("Failed to encode history packet", e);
+            return null;
+        }
     }
 
-    public int setIpBanned(String ip, boolean banned) {
+    public int applyIpBan(String ip, boolean banned) {
         if (ip == null || ip.isBlank())
             return 0;
-        if (banned)
-            bannedIps.add(ip);
-        else
-            bannedIps.remove(ip);
 
         int affected = 0;
         for (IrcSession session : snapshotUsers()) {
@@ -133,13 +296,9 @@ public class IrcServerState {
         return affected;
     }
 
-    public int setIpMuted(String ip, boolean muted) {
+    public int applyIpMute(String ip, boolean muted) {
         if (ip == null || ip.isBlank())
             return 0;
-        if (muted)
-            mutedIps.add(ip);
-        else
-            mutedIps.remove(ip);
 
         int affected = 0;
         for (IrcSession session : snapshotUsers()) {
@@ -158,8 +317,74 @@ public class IrcServerState {
             String role = packet.getSender() == null ? "system" : packet.getSender().getRole();
             metrics.recordChatMessage(role, packet.getContent() == null ? 0 : packet.getContent().length());
         }
-        for (IrcSession session : snapshotUsers()) {
-            session.sendPacket(packet);
+        writeToAll(sessions.values(), packet, null);
+        IrcClusterRelay relay = clusterRelay;
+        if (relay != null) {
+            relay.broadcast(packet);
+        }
+    }
+
+    /**
+     * Delivers a broadcast relayed from another node to the local sessions without relaying it again.
+     */
+    void deliverRemoteBroadcast(IrcPackets.OutgoingPacket packet) {
+        appendHistory(packet);
+        writeToAll(sessions.values(), packet, null);
+    }
+
+    /**
+     * Serialises the packet once and fans the shared frame out to every target. Writes are grouped per event loop
+     * so each loop gets a single task that writes to all of its channels and then flushes them together.
+     *
+     * @param droppable if set, the frame is marked as one that backlogged channels may skip
+     */
+    private void writeToAll(Collection<IrcSession> targets, IrcPackets.OutgoingPacket packet,
+                            IrcOutboundHandler.Kind droppable) {
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<>();
+        for (IrcSession session : targets) {
+            Channel channel = session.getChannel();
+            if (channel.isActive()) {
+                channelsByLoop.computeIfAbsent(channel.eventLoop(), loop -> new ArrayList<>()).add(channel);
+            }
+        }
+        if (channelsByLoop.isEmpty()) {
+            return;
+        }
+
+        ByteBuf frame;
+        try {
+            frame = codec.encode(packet);
+        } catch (IOException e) {
+            log.debug("Failed to encode broadcast packet", e);
+            return;
+        }
+
+        try {
+            channelsByLoop.forEach((loop, channels) -> {
+                ByteBuf loopFrame = frame.retainedDuplicate();
+                try {
+                    loop.execute(() -> {
+                        try {
+                            for (Channel channel : channels) {
+                                ByteBuf channelFrame = loopFrame.retainedDuplicate();
+                                channel.write(droppable == null
+                                                ? channelFrame
+                                                : new IrcOutboundHandler.DroppableFrame(droppable, channelFrame),
+                                        channel.voidPromise());
+                            }
+                            for (Channel channel : channels) {
+                                channel.flush();
+                            }
+                        } finally {
+                            loopFrame.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    loopFrame.release();
+                }
+            });
+        } finally {
+            frame.release();
         }
     }
 
@@ -191,6 +416,13 @@ public class IrcServerState {
             }
         }
 
+        IrcClusterRelay relay = clusterRelay;
+        if (relay != null) {
+            int[] remote = relay.remoteCounts();
+            usersCount += remote[0];
+            guestsCount += remote[1];
+        }
+
         if (usersCount == lastOnlineUsers && guestsCount == lastOnlineGuests) {
             return;
         }
@@ -206,8 +438,9 @@ public class IrcServerState {
                         .build())
                 .build();
 
-        for (IrcSession target : loaderTargets) {
-            target.sendPacket(packet);
-        }
+        writeToAll(loaderTargets, packet, IrcOutboundHandler.Kind.ROOM_STATE);
+    }
+
+    private record HistoryEntry(IrcPackets.OutgoingPacket packet, byte[] replayFrame) {
     }
 }
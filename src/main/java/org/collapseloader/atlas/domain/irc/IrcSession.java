@@ -5,10 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Locale;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 @Getter
@@ -22,10 +19,10 @@ public class IrcSession {
     private final String clientName;
     private final String role;
     private final boolean authenticated;
-    private final Deque<Instant> messageTimestamps = new ArrayDeque<>();
-    private final AtomicInteger rateLimitViolations = new AtomicInteger(0);
-    @Setter
-    private String name;
+    /**
+     * Fixed for the session's lifetime: {@link IrcServerState} indexes sessions by it.
+     */
+    private final String name;
     @Setter
     private String lastPrivatePartner = "";
     @Setter
@@ -33,9 +30,7 @@ public class IrcSession {
     @Setter
     private boolean muted;
     @Setter
-    private Instant lastViolationTime;
-    @Setter
-    private Instant tempMutedUntil;
+    private IrcRateLimit rateLimit;
 
     public IrcSession(
             Channel channel,
@@ -81,16 +76,4 @@ public class IrcSession {
         String lowered = role == null ? "" : role.trim().toLowerCase(Locale.ROOT);
         return lowered.equals("admin") || lowered.equals("owner") || lowered.equals("developer");
     }
-
-    public int incrementViolations() {
-        return rateLimitViolations.incrementAndGet();
-    }
-
-    public void resetViolations() {
-        rateLimitViolations.set(0);
-    }
-
-    public int getViolationCount() {
-        return rateLimitViolations.get();
-    }
 }
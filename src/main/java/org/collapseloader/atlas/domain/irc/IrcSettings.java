@@ -1,10 +1,13 @@
 package org.collapseloader.atlas.domain.irc;
 
+import io.netty.channel.WriteBufferWaterMark;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.Locale;
 
 @Component
 @Getter
@@ -19,6 +22,9 @@ public class IrcSettings {
     @Value("${irc.port:1338}")
     private int port;
 
+    @Value("${irc.transport:auto}")
+    private String transport;
+
     @Value("${irc.boss-threads:1}")
     private int bossThreads;
 
@@ -37,12 +43,70 @@ public class IrcSettings {
     @Value("${irc.auth-timeout-seconds:30}")
     private int authTimeoutSeconds;
 
+    @Value("${irc.auth-threads:8}")
+    private int authThreads;
+
+    @Value("${irc.auth-queue-capacity:1024}")
+    private int authQueueCapacity;
+
+    @Value("${irc.moderation-channel:atlas:irc:moderation}")
+    private String moderationChannel;
+
+    @Value("${irc.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    @Value("${irc.cluster.channel:atlas:irc:cluster}")
+    private String clusterChannel;
+
+    @Value("${irc.rate-limit.guest.per-second:1}")
+    private int guestMessagesPerSecond;
+
+    @Value("${irc.rate-limit.guest.per-minute:30}")
+    private int guestMessagesPerMinute;
+
+    @Value("${irc.rate-limit.guest.burst:2}")
+    private int guestBurstSize;
+
+    @Value("${irc.rate-limit.user.per-second:2}")
+    private int userMessagesPerSecond;
+
+    @Value("${irc.rate-limit.user.per-minute:60}")
+    private int userMessagesPerMinute;
+
+    @Value("${irc.rate-limit.user.burst:3}")
+    private int userBurstSize;
+
+    @Value("${irc.rate-limit.violation-threshold:5}")
+    private int rateLimitViolationThreshold;
+
+    @Value("${irc.rate-limit.violation-reset-seconds:120}")
+    private int rateLimitViolationResetSeconds;
+
+    @Value("${irc.rate-limit.temp-mute-seconds:300}")
+    private int rateLimitTempMuteSeconds;
+
+    @Value("${irc.write-buffer.low-water-mark:32768}")
+    private int writeBufferLowWaterMark;
+
+    @Value("${irc.write-buffer.high-water-mark:65536}")
+    private int writeBufferHighWaterMark;
+
+    @Value("${irc.outbound-queue-capacity:256}")
+    private int outboundQueueCapacity;
+
     @Value("${irc.read-timeout-seconds:120}")
     private int readTimeoutSeconds;
 
     @Value("${irc.data-dir:.}")
     private String dataDir;
 
+    // built on first use, after the @Value fields are injected; every session of a role shares one instance
+    @Getter(AccessLevel.NONE)
+    private volatile IrcRateLimit.Limits guestLimits;
+
+    @Getter(AccessLevel.NONE)
+    private volatile IrcRateLimit.Limits userLimits;
+
     public Duration authTimeout() {
         return Duration.ofSeconds(Math.max(1, authTimeoutSeconds));
     }
@@ -51,6 +115,32 @@ public class IrcSettings {
         return Duration.ofSeconds(Math.max(1, readTimeoutSeconds));
     }
 
+    public WriteBufferWaterMark writeBufferWaterMark() {
+        int high = Math.max(1024, writeBufferHighWaterMark);
+        int low = Math.clamp(writeBufferLowWaterMark, 0, high);
+        return new WriteBufferWaterMark(low, high);
+    }
+
+    IrcRateLimit.Limits rateLimitFor(String role) {
+        boolean guest = role != null && "guest".equals(role.trim().toLowerCase(Locale.ROOT));
+        IrcRateLimit.Limits limits = guest ? guestLimits : userLimits;
+        if (limits == null) {
+            limits = new IrcRateLimit.Limits(
+                    guest ? guestMessagesPerSecond : userMessagesPerSecond,
+                    guest ? guestMessagesPerMinute : userMessagesPerMinute,
+                    guest ? guestBurstSize : userBurstSize,
+                    rateLimitViolationThreshold,
+                    rateLimitViolationResetSeconds,
+                    rateLimitTempMuteSeconds);
+            if (guest) {
+                guestLimits = limits;
+            } else {
+                userLimits = limits;
+            }
+        }
+        return limits;
+    }
+
     public Duration roomStateTick() {
         return Duration.ofSeconds(Math.max(5, roomStateTickSeconds));
     }
@@ -0,0 +1,113 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+import io.netty.channel.uring.IoUringSocketChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+
+/**
+ * Netty transport used by the IRC server. The native transports need their JNI library for the running platform;
+ * when it cannot be loaded {@link #select(String)} falls back to the next one in the order io_uring, epoll, NIO.
+ */
+@Slf4j
+public enum IrcTransport {
+    NIO,
+    EPOLL,
+    IO_URING;
+
+    /**
+     * @param requested {@code nio}, {@code epoll}, {@code io_uring}, or {@code auto} for the best native transport
+     *                  that is expected to work everywhere (epoll, else NIO)
+     */
+    public static IrcTransport select(String requested) {
+        String name = requested == null ? "auto" : requested.trim().toLowerCase(Locale.ROOT).replace('-', '_');
+        IrcTransport wanted = switch (name) {
+            case "nio" -> NIO;
+            case "epoll" -> EPOLL;
+            case "io_uring", "iouring" -> IO_URING;
+            case "", "auto" -> null;
+            default -> {
+                log.warn("Unknown IRC transport '{}', using auto", requested);
+                yield null;
+            }
+        };
+
+        if (wanted == null) {
+            return EPOLL.isAvailable() ? EPOLL : NIO;
+        }
+        IrcTransport transport = wanted;
+        while (!transport.isAvailable()) {
+            IrcTransport fallback = transport == IO_URING ? EPOLL : NIO;
+            log.warn("IRC transport {} is not available ({}), falling back to {}", transport,
+                    transport.unavailabilityCause(), fallback);
+            transport = fallback;
+        }
+        return transport;
+    }
+
+    public boolean isAvailable() {
+        return switch (this) {
+            case NIO -> true;
+            case EPOLL -> Epoll.isAvailable();
+            case IO_URING -> IoUring.isAvailable();
+        };
+    }
+
+    private String unavailabilityCause() {
+        Throwable cause = switch (this) {
+            case NIO -> null;
+            case EPOLL -> Epoll.unavailabilityCause();
+            case IO_URING -> IoUring.unavailabilityCause();
+        };
+        return cause == null ? "unknown" : cause.getMessage();
+    }
+
+    public IoHandlerFactory ioHandlerFactory() {
+        return switch (this) {
+            case NIO -> NioIoHandler.newFactory();
+            case EPOLL -> EpollIoHandler.newFactory();
+            case IO_URING -> IoUringIoHandler.newFactory();
+        };
+    }
+
+    public MultiThreadIoEventLoopGroup newEventLoopGroup(int threads) {
+        return new MultiThreadIoEventLoopGroup(threads, ioHandlerFactory());
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return switch (this) {
+            case NIO -> NioServerSocketChannel.class;
+            case EPOLL -> EpollServerSocketChannel.class;
+            case IO_URING -> IoUringServerSocketChannel.class;
+        };
+    }
+
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return switch (this) {
+            case NIO -> NioSocketChannel.class;
+            case EPOLL -> EpollSocketChannel.class;
+            case IO_URING -> IoUringSocketChannel.class;
+        };
+    }
+
+    /**
+     * @return lower-case name as used in configuration and metric tags
+     */
+    public String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,47 @@
+package org.collapseloader.atlas.domain.irc.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * IrcIpRestriction entity representing a ban or mute applied to an IP address on IRC.
+ * <p>
+ * Stores the address, whether it is a ban or a mute, a reason, the timestamp when it
+ * was applied, and an optional expiry time.
+ */
+@Entity
+@Table(name = "irc_ip_restrictions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"ip", "kind"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IrcIpRestriction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String ip;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private String reason;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant expiresAt;
+
+    public enum Kind {
+        BAN, MUTE
+    }
+}
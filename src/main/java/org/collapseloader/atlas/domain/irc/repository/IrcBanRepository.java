@@ -2,11 +2,25 @@ package org.collapseloader.atlas.domain.irc.repository;
 
 import org.collapseloader.atlas.domain.irc.entity.IrcBan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IrcBanRepository extends JpaRepository<IrcBan, Long> {
     boolean existsByUserId(Long userId);
 
     void deleteByUserId(Long userId);
+
+    Optional<IrcBan> findByUserId(Long userId);
+
+    @Query("select r.user.id as userId, r.expiresAt as expiresAt from IrcBan r")
+    List<IrcRestrictionView> findAllRestrictions();
+
+    @Transactional
+    void deleteByUserIdAndExpiresAtLessThanEqual(Long userId, Instant cutoff);
 }
@@ -0,0 +1,19 @@
+package org.collapseloader.atlas.domain.irc.repository;
+
+import org.collapseloader.atlas.domain.irc.entity.IrcIpRestriction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IrcIpRestrictionRepository extends JpaRepository<IrcIpRestriction, Long> {
+    Optional<IrcIpRestriction> findByIpAndKind(String ip, IrcIpRestriction.Kind kind);
+
+    void deleteByIpAndKind(String ip, IrcIpRestriction.Kind kind);
+
+    @Transactional
+    void deleteByIpAndKindAndExpiresAtLessThanEqual(String ip, IrcIpRestriction.Kind kind, Instant cutoff);
+}
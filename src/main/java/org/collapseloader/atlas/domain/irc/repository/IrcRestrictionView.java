@@ -0,0 +1,12 @@
+package org.collapseloader.atlas.domain.irc.repository;
+
+import java.time.Instant;
+
+/**
+ * Minimal projection of a user ban or mute, used to load the moderation registry without touching users.
+ */
+public interface IrcRestrictionView {
+    Long getUserId();
+
+    Instant getExpiresAt();
+}
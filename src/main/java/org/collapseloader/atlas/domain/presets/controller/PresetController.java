@@ -19,6 +19,8 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/v1/presets")
 public class PresetController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final PresetService presetService;
 
     public PresetController(PresetService presetService) {
@@ -31,10 +33,15 @@ public class PresetController {
             @RequestParam(value = "q", required = false) String query,
             @RequestParam(value = "owner", required = false) Long ownerId,
             @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "limit", required = false, defaultValue = "50") int limit) {
         var user = optionalUser(authentication);
-        var data = presetService.listPresets(user, query, ownerId, sort, limit);
-        return ResponseEntity.ok(ApiResponse.success(data));
+        var page = presetService.discoverPresets(user, query, ownerId, sort, cursor, limit);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(ApiResponse.success(page.items()));
     }
 
     @GetMapping("/{id}")
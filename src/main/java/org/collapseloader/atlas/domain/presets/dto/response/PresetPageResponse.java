@@ -0,0 +1,9 @@
+package org.collapseloader.atlas.domain.presets.dto.response;
+
+import java.util.List;
+
+public record PresetPageResponse(
+        List<PresetResponse> items,
+        String nextCursor
+) {
+}
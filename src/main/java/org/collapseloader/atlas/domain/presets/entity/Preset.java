@@ -22,7 +22,11 @@ import java.util.List;
 @Table(name = "presets", indexes = {
         @Index(name = "presets_owner_idx", columnList = "owner_id"),
         @Index(name = "presets_public_idx", columnList = "is_public"),
-        @Index(name = "presets_created_idx", columnList = "created_at")
+        @Index(name = "presets_created_idx", columnList = "created_at"),
+        @Index(name = "presets_created_id_idx", columnList = "created_at DESC, id DESC"),
+        @Index(name = "presets_likes_id_idx", columnList = "likes_count DESC, id DESC"),
+        @Index(name = "presets_downloads_id_idx", columnList = "downloads_count DESC, id DESC"),
+        @Index(name = "presets_comments_id_idx", columnList = "comments_count DESC, id DESC")
 })
 @Getter
 @Setter
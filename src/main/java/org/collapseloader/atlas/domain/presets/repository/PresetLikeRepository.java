@@ -4,6 +4,7 @@ import org.collapseloader.atlas.domain.presets.entity.PresetLike;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 
@@ -18,6 +19,6 @@ public interface PresetLikeRepository extends JpaRepository<PresetLike, Long> {
 
     long countByPresetId(Long presetId);
 
-    @Query("select pl.preset.id from PresetLike pl where pl.user.id = :userId")
-    Set<Long> findPresetIdsLikedByUser(Long userId);
+    @Query("select pl.preset.id from PresetLike pl where pl.user.id = :userId and pl.preset.id in :presetIds")
+    Set<Long> findPresetIdsLikedByUser(Long userId, Collection<Long> presetIds);
 }
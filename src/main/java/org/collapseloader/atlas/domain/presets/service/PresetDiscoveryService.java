@@ -0,0 +1,173 @@
+package org.collapseloader.atlas.domain.presets.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.collapseloader.atlas.exception.ValidationException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds the ids of one page of presets using keyset pagination: every sort is a total order on
+ * {@code (sort column, id)} and the cursor carries the last row's pair, so each page is an index range scan no matter
+ * how deep the client has browsed. Name search uses {@code ilike}, backed by a trigram index on {@code presets.name}.
+ */
+@Slf4j
+@Service
+public class PresetDiscoveryService {
+
+    public enum SortKey {
+        NEWEST("created_at", false),
+        OLDEST("created_at", true),
+        LIKES("likes_count", false),
+        DOWNLOADS("downloads_count", false),
+        COMMENTS("comments_count", false);
+
+        private final String column;
+        private final boolean ascending;
+
+        SortKey(String column, boolean ascending) {
+            this.column = column;
+            this.ascending = ascending;
+        }
+
+        public static SortKey resolve(String sort) {
+            if (!StringUtils.hasText(sort)) {
+                return NEWEST;
+            }
+            return switch (sort.toLowerCase(Locale.ROOT)) {
+                case "popular", "likes" -> LIKES;
+                case "downloads" -> DOWNLOADS;
+                case "comments" -> COMMENTS;
+                case "oldest" -> OLDEST;
+                default -> NEWEST;
+            };
+        }
+
+        private boolean timestamp() {
+            return column.equals("created_at");
+        }
+    }
+
+    /**
+     * @param ids        preset ids in display order
+     * @param nextCursor cursor for the following page, or {@code null} if this is the last one
+     */
+    public record IdPage(List<Long> ids, String nextCursor) {
+    }
+
+    private record Position(long value, long id) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PresetDiscoveryService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSearchIndex() {
+        try {
+            jdbcTemplate.getJdbcTemplate().execute("create extension if not exists pg_trgm");
+            jdbcTemplate.getJdbcTemplate().execute(
+                    "create index if not exists presets_name_trgm_idx on presets using gin (name gin_trgm_ops)");
+        } catch (RuntimeException e) {
+            log.warn("Could not create trigram index for preset search, name search will scan: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param viewerId  the signed-in user, whose private presets are included; {@code null} for anonymous requests
+     * @param ownerId   restricts the page to one owner's presets; private ones only if the owner is the viewer
+     * @param query     case-insensitive name substring, ignored when {@code ownerId} is set
+     * @param cursor    value of {@link IdPage#nextCursor()} from the previous page, or {@code null} for the first
+     */
+    public IdPage findPage(Long viewerId, Long ownerId, String query, SortKey sort, String cursor, int limit) {
+        var params = new MapSqlParameterSource().addValue("limit", limit + 1);
+        var sql = new StringBuilder("select p.id, p.").append(sort.column).append(" from presets p where ");
+
+        if (ownerId != null) {
+            sql.append("p.owner_id = :ownerId");
+            params.addValue("ownerId", ownerId);
+            if (!ownerId.equals(viewerId)) {
+                sql.append(" and p.is_public = true");
+            }
+        } else {
+            if (viewerId != null) {
+                sql.append("(p.is_public = true or p.owner_id = :viewerId)");
+                params.addValue("viewerId", viewerId);
+            } else {
+                sql.append("p.is_public = true");
+            }
+            if (StringUtils.hasText(query)) {
+                sql.append(" and p.name ilike :pattern");
+                params.addValue("pattern", "%" + escapeLike(query.trim()) + "%");
+            }
+        }
+
+        if (StringUtils.hasText(cursor)) {
+            Position after = decode(cursor, sort);
+            sql.append(" and (p.").append(sort.column).append(", p.id) ")
+                    .append(sort.ascending ? ">" : "<").append(" (:afterValue, :afterId)");
+            params.addValue("afterValue", sort.timestamp() ? Timestamp.from(fromMicros(after.value())) : after.value());
+            params.addValue("afterId", after.id());
+        }
+
+        String direction = sort.ascending ? " asc" : " desc";
+        sql.append(" order by p.").append(sort.column).append(direction).append(", p.id").append(direction)
+                .append(" limit :limit");
+
+        List<Position> rows = jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new Position(
+                sort.timestamp() ? toMicros(rs.getTimestamp(2).toInstant()) : rs.getLong(2),
+                rs.getLong(1)));
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = encode(rows.getLast(), sort);
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        rows.forEach(row -> ids.add(row.id()));
+        return new IdPage(ids, nextCursor);
+    }
+
+    private static String encode(Position position, SortKey sort) {
+        String raw = sort.name() + ":" + position.value() + ":" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor, SortKey sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new Position(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
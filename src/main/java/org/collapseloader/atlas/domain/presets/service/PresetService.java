@@ -6,6 +6,7 @@ import org.collapseloader.atlas.domain.presets.dto.request.PresetCommentRequest;
 import org.collapseloader.atlas.domain.presets.dto.request.PresetUpsertRequest;
 import org.collapseloader.atlas.domain.presets.dto.response.PresetAuthorResponse;
 import org.collapseloader.atlas.domain.presets.dto.response.PresetCommentResponse;
+import org.collapseloader.atlas.domain.presets.dto.response.PresetPageResponse;
 import org.collapseloader.atlas.domain.presets.dto.response.PresetResponse;
 import org.collapseloader.atlas.domain.presets.dto.response.PresetThemeResponse;
 import org.collapseloader.atlas.domain.presets.entity.*;
@@ -15,18 +16,19 @@ import org.collapseloader.atlas.domain.presets.repository.PresetLikeRepository;
 import org.collapseloader.atlas.domain.presets.repository.PresetRepository;
 import org.collapseloader.atlas.domain.users.entity.Role;
 import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
 import org.collapseloader.atlas.exception.EntityNotFoundException;
 import org.collapseloader.atlas.exception.ForbiddenException;
 import org.collapseloader.atlas.exception.UnauthorizedException;
 import org.collapseloader.atlas.exception.ValidationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 @Service
@@ -40,42 +42,38 @@ public class PresetService {
     private final PresetLikeRepository likeRepository;
     private final PresetCommentRepository commentRepository;
     private final PresetDownloadRepository downloadRepository;
+    private final PresetDiscoveryService discoveryService;
     private final AchievementService achievementService;
+    private final UserRepository userRepository;
 
     @Transactional(readOnly = true)
     public List<PresetResponse> listPresets(User principal, String query, Long ownerId, String sort,
                                             int limit) {
+        return discoverPresets(principal, query, ownerId, sort, null, limit).items();
+    }
+
+    @Transactional(readOnly = true)
+    public PresetPageResponse discoverPresets(User principal, String query, Long ownerId, String sort,
+                                              String cursor, int limit) {
         int size = Math.min(Math.max(limit, 1), 100);
-        var sortOrder = resolveSort(sort);
-        var pageable = PageRequest.of(0, size, sortOrder);
-
-        Page<Preset> page;
-        if (ownerId != null) {
-            if (principal != null && ownerId.equals(principal.getId())) {
-                page = presetRepository.findByOwnerId(ownerId, pageable);
-            } else {
-                page = presetRepository.findByOwnerIdAndIsPublicTrue(ownerId, pageable);
-            }
-        } else {
-            if (StringUtils.hasText(query)) {
-                if (principal != null) {
-                    page = presetRepository.findVisibleToUserByName(principal.getId(), query.trim(), pageable);
-                } else {
-                    page = presetRepository.findByIsPublicTrueAndNameContainingIgnoreCase(query.trim(), pageable);
-                }
-            } else {
-                if (principal != null) {
-                    page = presetRepository.findAllVisibleToUser(principal.getId(), pageable);
-                } else {
-                    page = presetRepository.findByIsPublicTrue(pageable);
-                }
-            }
+        Long viewerId = principal != null ? principal.getId() : null;
+        var page = discoveryService.findPage(viewerId, ownerId, query,
+                PresetDiscoveryService.SortKey.resolve(sort), cursor, size);
+        if (page.ids().isEmpty()) {
+            return new PresetPageResponse(List.of(), null);
         }
 
-        Set<Long> liked = principal != null ? likeRepository.findPresetIdsLikedByUser(principal.getId()) : Set.of();
-        return page.stream()
+        Map<Long, Preset> presets = new HashMap<>();
+        presetRepository.findAllWithOwnerByIdIn(page.ids()).forEach(preset -> presets.put(preset.getId(), preset));
+        Set<Long> liked = viewerId != null
+                ? likeRepository.findPresetIdsLikedByUser(viewerId, page.ids())
+                : Set.of();
+        var items = page.ids().stream()
+                .map(presets::get)
+                .filter(Objects::nonNull)
                 .map(preset -> toResponse(preset, liked.contains(preset.getId())))
                 .toList();
+        return new PresetPageResponse(items, page.nextCursor());
     }
 
     @Transactional(readOnly = true)
@@ -94,7 +92,7 @@ public class PresetService {
             throw new UnauthorizedException("Authentication required");
         }
         var preset = new Preset();
-        preset.setOwner(principal);
+        preset.setOwner(userRepository.getReferenceById(principal.getId()));
         preset.setName(requireName(request.name()));
         preset.setDescription(normalizeDescription(request.description()));
         preset.setPublic(request.isPublic() == null || request.isPublic());
@@ -153,7 +151,7 @@ public class PresetService {
         if (!likeRepository.existsByPresetIdAndUserId(id, principal.getId())) {
             var like = new PresetLike();
             like.setPreset(preset);
-            like.setUser(principal);
+            like.setUser(userRepository.getReferenceById(principal.getId()));
             likeRepository.save(like);
             preset.setLikesCount(preset.getLikesCount() + 1);
         }
@@ -189,7 +187,7 @@ public class PresetService {
             if (!downloadRepository.existsByPresetIdAndUserId(id, principal.getId())) {
                 var download = PresetDownload.builder()
                         .preset(preset)
-                        .user(principal)
+                        .user(userRepository.getReferenceById(principal.getId()))
                         .build();
                 downloadRepository.save(download);
                 preset.setDownloadsCount(preset.getDownloadsCount() + 1);
@@ -230,7 +228,7 @@ public class PresetService {
 
         var comment = new PresetComment();
         comment.setPreset(preset);
-        comment.setUser(principal);
+        comment.setUser(userRepository.getReferenceById(principal.getId()));
         comment.setContent(normalized);
 
         var saved = commentRepository.save(comment);
@@ -450,17 +448,4 @@ public class PresetService {
                 profile != null ? profile.getNickname() : null,
                 profile != null ? profile.getAvatarUrl() : null);
     }
-
-    private Sort resolveSort(String sort) {
-        if (!StringUtils.hasText(sort)) {
-            return Sort.by(Sort.Direction.DESC, "createdAt");
-        }
-        return switch (sort.toLowerCase()) {
-            case "popular", "likes" -> Sort.by(Sort.Direction.DESC, "likesCount");
-            case "downloads" -> Sort.by(Sort.Direction.DESC, "downloadsCount");
-            case "comments" -> Sort.by(Sort.Direction.DESC, "commentsCount");
-            case "oldest" -> Sort.by(Sort.Direction.ASC, "createdAt");
-            default -> Sort.by(Sort.Direction.DESC, "createdAt");
-        };
-    }
 }
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.collapseloader.atlas.domain.irc.entity.IrcBan;
 import org.collapseloader.atlas.domain.irc.entity.IrcMute;
+import org.collapseloader.atlas.domain.users.security.PrincipalCacheListener;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.jspecify.annotations.NullMarked;
@@ -19,6 +20,7 @@ import java.util.List;
         @Index(name = "users_created_idx", columnList = "created_at"),
         @Index(name = "users_updated_idx", columnList = "updated_at")
 })
+@EntityListeners(PrincipalCacheListener.class)
 @Getter
 @Setter
 @ToString
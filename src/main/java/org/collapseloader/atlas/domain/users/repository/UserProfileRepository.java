@@ -4,12 +4,16 @@ import org.collapseloader.atlas.domain.users.entity.UserProfile;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     @EntityGraph(attributePaths = {"socialLinks"})
     Optional<UserProfile> findByUserId(Long userId);
 
+    List<UserProfile> findAllByUserIdIn(Collection<Long> userIds);
+
     boolean existsByNickname(String nickname);
 
     boolean existsByNicknameAndIdNot(String nickname, Long id);
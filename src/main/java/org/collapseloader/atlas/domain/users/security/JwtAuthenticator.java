@@ -0,0 +1,104 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.collapseloader.atlas.domain.users.entity.Role;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
+import org.collapseloader.atlas.domain.users.service.JwtService;
+import org.collapseloader.atlas.domain.users.service.TokenBlacklistService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns a bearer token into an authenticated principal with one signature check and, on the hot path, no database
+ * access: verified claims are cached by {@link JwtService}, and the resolved user is kept as a short-lived immutable
+ * {@link Snapshot} keyed by username. The blacklist is still consulted on every request so logout stays immediate.
+ * <p>
+ * Each request gets its own {@link User} built from the snapshot, carrying only id, username, role and enabled flag.
+ * It is never managed by a persistence context, so code that changes a user or needs its other columns loads the entity
+ * by id. Snapshots are evicted by {@link PrincipalCacheListener} when a user is updated or deleted on this instance;
+ * other instances pick the change up when their entry expires.
+ */
+@Component
+public class JwtAuthenticator {
+
+    record Snapshot(Long id, String username, Role role, boolean enabled,
+                    List<? extends GrantedAuthority> authorities) {
+
+        static Snapshot of(User user) {
+            return new Snapshot(user.getId(), user.getUsername(), user.getRole(), user.isEnabled(),
+                    List.copyOf(user.getAuthorities()));
+        }
+
+        User toPrincipal() {
+            return User.builder().id(id).username(username).role(role).enabled(enabled).build();
+        }
+    }
+
+    private final JwtService jwtService;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final UserRepository userRepository;
+    private final Cache<String, Snapshot> principals;
+
+    public JwtAuthenticator(JwtService jwtService,
+                            TokenBlacklistService tokenBlacklistService,
+                            @Lazy UserRepository userRepository,
+                            @Value("${security.jwt.principal-cache.max-size:10000}") long principalCacheMaxSize,
+                            @Value("${security.jwt.principal-cache.ttl-seconds:30}") long principalCacheTtlSeconds) {
+        this.jwtService = jwtService;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.userRepository = userRepository;
+        this.principals = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, principalCacheMaxSize))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, principalCacheTtlSeconds)))
+                .build();
+    }
+
+    /**
+     * @return the authentication for the token, or {@code null} if it is invalid, blacklisted or its user does not
+     * resolve to exactly one account
+     */
+    public UsernamePasswordAuthenticationToken authenticate(String token) {
+        JwtService.VerifiedToken verified = jwtService.verify(token);
+        if (verified == null || tokenBlacklistService.isBlacklisted(token)) {
+            return null;
+        }
+        Snapshot snapshot = resolve(verified.username());
+        if (snapshot == null || !verified.username().equals(snapshot.username())) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(snapshot.toPrincipal(), null, snapshot.authorities());
+    }
+
+    /**
+     * Drops the cached snapshot of the user, whatever name it was cached under.
+     */
+    public void evict(Long userId) {
+        if (userId != null) {
+            principals.asMap().values().removeIf(snapshot -> userId.equals(snapshot.id()));
+        }
+    }
+
+    private Snapshot resolve(String username) {
+        String key = username.trim().toLowerCase(Locale.ROOT);
+        Snapshot cached = principals.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        var users = userRepository.findAllByUsernameIgnoreCase(username.trim());
+        if (users.size() != 1) {
+            return null;
+        }
+        Snapshot snapshot = Snapshot.of(users.getFirst());
+        principals.put(key, snapshot);
+        return snapshot;
+    }
+}
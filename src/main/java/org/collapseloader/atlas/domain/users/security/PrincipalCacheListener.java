@@ -0,0 +1,28 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.collapseloader.atlas.config.AfterCommit;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User} that evicts the user's cached principal once a change to it is committed, so role and
+ * enabled changes apply to the next request instead of after the cache TTL.
+ */
+@Component
+public class PrincipalCacheListener {
+    private final ObjectProvider<JwtAuthenticator> authenticator;
+
+    public PrincipalCacheListener(ObjectProvider<JwtAuthenticator> authenticator) {
+        this.authenticator = authenticator;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        Long userId = user.getId();
+        AfterCommit.run(() -> authenticator.ifAvailable(service -> service.evict(userId)));
+    }
+}
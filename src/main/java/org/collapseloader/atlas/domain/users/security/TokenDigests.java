@@ -0,0 +1,24 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stable SHA-256 digests of bearer tokens, used wherever a token has to be remembered or stored without keeping
+ * the raw JWT around.
+ */
+public final class TokenDigests {
+    private TokenDigests() {
+    }
+
+    public static String sha256Hex(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.collapseloader.atlas.domain.users.service;
 import jakarta.transaction.Transactional;
 import org.apache.coyote.BadRequestException;
 import org.collapseloader.atlas.domain.achievements.service.AchievementService;
+import org.collapseloader.atlas.domain.achievements.service.AchievementStats;
 import org.collapseloader.atlas.domain.users.dto.request.AuthRequest;
 import org.collapseloader.atlas.domain.users.dto.request.AuthSetPasswordRequest;
 import org.collapseloader.atlas.domain.users.dto.response.AuthResponse;
@@ -36,6 +37,7 @@ public class AuthService {
     private final TokenBlacklistService tokenBlacklistService;
     private final EmailService emailService;
     private final VerificationTokenRepository verificationTokenRepository;
+    private final AchievementStats achievementStats;
 
     public AuthService(
             UserRepository userRepository,
@@ -47,7 +49,8 @@ public class AuthService {
             AchievementService achievementService,
             TokenBlacklistService tokenBlacklistService,
             EmailService emailService,
-            VerificationTokenRepository verificationTokenRepository) {
+            VerificationTokenRepository verificationTokenRepository,
+            AchievementStats achievementStats) {
         this.userRepository = userRepository;
         this.userProfileRepository = userProfileRepository;
         this.passwordEncoder = passwordEncoder;
@@ -58,6 +61,7 @@ public class AuthService {
         this.tokenBlacklistService = tokenBlacklistService;
         this.emailService = emailService;
         this.verificationTokenRepository = verificationTokenRepository;
+        this.achievementStats = achievementStats;
     }
 
     @Transactional
@@ -84,6 +88,7 @@ public class AuthService {
         user.setEnabled(false);
 
         var savedUser = userRepository.save(user);
+        achievementStats.recordUserCreated();
         var profile = UserProfile.builder()
                 .user(savedUser)
                 .role(ProfileRole.USER)
@@ -182,7 +187,10 @@ public class AuthService {
         return new AuthResponse(access);
     }
 
-    public AuthResponse setPassword(User user, AuthSetPasswordRequest password) {
+    @Transactional
+    public AuthResponse setPassword(User principal, AuthSetPasswordRequest password) {
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
         if (!passwordEncoder.matches(password.currentPassword(), user.getPassword())) {
             throw new UnauthorizedException("Invalid current password");
         }
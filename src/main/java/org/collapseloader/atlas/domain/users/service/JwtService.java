@@ -1,9 +1,13 @@
 package org.collapseloader.atlas.domain.users.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.collapseloader.atlas.domain.users.security.TokenDigests;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 import java.util.function.Function;
 
@@ -21,15 +26,51 @@ public class JwtService implements InitializingBean {
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
-    public String extractUsername(String token) {
+    @Value("${security.jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    @Value("${security.jwt.verified-cache.ttl-seconds:300}")
+    private long verifiedCacheTtlSeconds;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * Verifies the signature once and remembers the result, keyed by a digest of the token, until the token expires
+     * or the cache TTL passes. Returns {@code null} for tokens that are malformed, forged or expired.
+     */
+    public VerifiedToken verify(String token) {
         if (token == null || token.isBlank()) {
             return null;
         }
+        String key = TokenDigests.sha256Hex(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (!cached.isExpired(System.currentTimeMillis())) {
+                return cached;
+            }
+            verifiedTokens.invalidate(key);
+            return null;
+        }
+
+        Claims claims;
         try {
-            return extractClaim(token, Claims::getSubject);
+            claims = extractAllClaims(token);
         } catch (JwtException | IllegalArgumentException ignored) {
             return null;
         }
+        if (claims.getSubject() == null) {
+            return null;
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    public String extractUsername(String token) {
+        VerifiedToken verified = verify(token);
+        return verified == null ? null : verified.username();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -47,23 +88,19 @@ public class JwtService implements InitializingBean {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        try {
-            final String username = extractUsername(token);
-            return (username != null && username.equals(userDetails.getUsername()));
-        } catch (JwtException | IllegalArgumentException ignored) {
-            return false;
-        }
+        final String username = extractUsername(token);
+        return (username != null && username.equals(userDetails.getUsername()));
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     private SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    private SecretKey buildSigningKey() {
         byte[] keyBytes = SECRET_KEY.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             throw new IllegalStateException(
@@ -83,5 +120,18 @@ public class JwtService implements InitializingBean {
         if (SECRET_KEY.equals(defaultPlaceholder) || SECRET_KEY.getBytes(StandardCharsets.UTF_8).length < 32) {
             throw new IllegalStateException("Invalid jwt.secret: must be at least 32 bytes and not the default placeholder. Set JWT_SECRET environment variable to a strong secret.");
         }
+
+        signingKey = buildSigningKey();
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(1, verifiedCacheMaxSize))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, verifiedCacheTtlSeconds)))
+                .build();
+    }
+
+    public record VerifiedToken(String username, Date expiresAt) {
+        boolean isExpired(long nowMillis) {
+            return expiresAt != null && expiresAt.getTime() <= nowMillis;
+        }
     }
 }
@@ -1,27 +1,178 @@
 package org.collapseloader.atlas.domain.users.service;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.collapseloader.atlas.domain.users.security.TokenDigests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Token blacklist stored in Redis under SHA-256 digests of the token, with a local bloom filter in front.
+ * <p>
+ * The filter is rebuilt from Redis periodically and receives new entries from every instance over pub/sub, so a
+ * lookup only goes to Redis when the filter says the digest might be blacklisted. Until the first rebuild succeeds
+ * every lookup goes to Redis.
+ */
 @Service
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
 
+    private static final Logger log = LoggerFactory.getLogger(TokenBlacklistService.class);
     private static final String PREFIX = "blacklist:token:";
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
     private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ChannelTopic topic;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    // guards swapping the filters against remember(), so a digest always lands in the filter that survives the swap
+    private final Object filterLock = new Object();
+    private volatile BloomFilter<CharSequence> filter;
+    private BloomFilter<CharSequence> building;
+    private long lastEntryCount;
 
-    public TokenBlacklistService(StringRedisTemplate redisTemplate) {
+    public TokenBlacklistService(StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 @Value("${security.token-blacklist.channel:atlas:token-blacklist}") String channel,
+                                 @Value("${security.token-blacklist.expected-entries:100000}") long expectedEntries,
+                                 @Value("${security.token-blacklist.false-positive-rate:0.001}") double falsePositiveRate) {
         this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.topic = new ChannelTopic(channel);
+        this.expectedEntries = Math.max(1000, expectedEntries);
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener(this, topic);
+        rebuildQuietly();
+    }
+
+    @PreDestroy
+    public void stop() {
+        listenerContainer.removeMessageListener(this, topic);
     }
 
     public void blacklistToken(String token, long expirationMillis) {
         if (expirationMillis > 0) {
-            redisTemplate.opsForValue().set(PREFIX + token, "true", Duration.ofMillis(expirationMillis));
+            String digest = TokenDigests.sha256Hex(token);
+            redisTemplate.opsForValue().set(PREFIX + digest, "true", Duration.ofMillis(expirationMillis));
+            remember(digest);
+            try {
+                redisTemplate.convertAndSend(topic.getTopic(), digest);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish blacklisted token digest: {}", e.getMessage());
+            }
         }
     }
 
     public boolean isBlacklisted(String token) {
-        return Boolean.TRUE.equals(redisTemplate.hasKey(PREFIX + token));
+        String digest = TokenDigests.sha256Hex(token);
+        BloomFilter<CharSequence> current = filter;
+        if (current != null && !current.mightContain(digest)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(redisTemplate.hasKey(PREFIX + digest));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String digest = new String(message.getBody(), StandardCharsets.US_ASCII);
+        if (DIGEST.matcher(digest).matches()) {
+            remember(digest);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-blacklist.rebuild-ms:600000}",
+            initialDelayString = "${security.token-blacklist.rebuild-ms:600000}")
+    public void scheduledRebuild() {
+        rebuildQuietly();
+    }
+
+    /**
+     * Rebuilds the filter from the keys currently in Redis, dropping digests whose keys have expired. Entries added
+     * while the scan is running go into both the old and the new filter. Keys written by older versions under the
+     * raw token are moved to their digest on the way.
+     */
+    public synchronized void rebuild() {
+        BloomFilter<CharSequence> next = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.US_ASCII),
+                Math.max(expectedEntries, lastEntryCount * 2), falsePositiveRate);
+        synchronized (filterLock) {
+            building = next;
+        }
+        long count = 0;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(PREFIX + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                String suffix = keys.next().substring(PREFIX.length());
+                String digest = DIGEST.matcher(suffix).matches() ? suffix : migrateLegacyKey(suffix);
+                if (digest != null) {
+                    next.put(digest);
+                    count++;
+                }
+            }
+            synchronized (filterLock) {
+                filter = next;
+                building = null;
+            }
+            lastEntryCount = count;
+        } finally {
+            synchronized (filterLock) {
+                building = null;
+            }
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild token blacklist filter, lookups fall back to Redis: {}", e.getMessage());
+        }
+    }
+
+    private void remember(String digest) {
+        synchronized (filterLock) {
+            if (filter != null) {
+                filter.put(digest);
+            }
+            if (building != null) {
+                building.put(digest);
+            }
+        }
+    }
+
+    private String migrateLegacyKey(String rawToken) {
+        String legacyKey = PREFIX + rawToken;
+        Long ttl = redisTemplate.getExpire(legacyKey, TimeUnit.MILLISECONDS);
+        if (ttl == null || ttl == -2) {
+            return null;
+        }
+        String digest = TokenDigests.sha256Hex(rawToken);
+        if (ttl > 0) {
+            redisTemplate.opsForValue().set(PREFIX + digest, "true", Duration.ofMillis(ttl));
+        } else {
+            redisTemplate.opsForValue().set(PREFIX + digest, "true");
+        }
+        redisTemplate.delete(legacyKey);
+        return digest;
     }
 }
@@ -2,6 +2,7 @@ package org.collapseloader.atlas.domain.users.service;
 
 import lombok.RequiredArgsConstructor;
 import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
+import org.collapseloader.atlas.domain.achievements.service.AchievementStats;
 import org.collapseloader.atlas.domain.clients.repository.ClientCommentRepository;
 import org.collapseloader.atlas.domain.clients.repository.ClientRatingRepository;
 import org.collapseloader.atlas.domain.friends.repository.FriendRequestRepository;
@@ -32,6 +33,7 @@ public class UserService {
     private final UserExternalAccountRepository userExternalAccountRepository;
     private final UserPreferenceRepository userPreferenceRepository;
     private final VerificationTokenRepository verificationTokenRepository;
+    private final AchievementStats achievementStats;
 
     @Transactional
     public void deleteUser(User user) {
@@ -46,6 +48,7 @@ public class UserService {
         clientCommentRepository.deleteAllByUserId(userId);
         clientRatingRepository.deleteAllByUserId(userId);
 
+        achievementStats.recordUserDeleted(userAchievementRepository.findAchievementIdsByUserId(userId));
         userAchievementRepository.deleteAllByUserId(userId);
         userReportRepository.deleteAllByUserId(userId);
         userFavoriteRepository.deleteAllByUserId(userId);
@@ -14,10 +14,13 @@ public class UserStatusCleanupService {
         this.userStatusService = userStatusService;
     }
 
-    @Scheduled(fixedRate = 60000)
+    @Scheduled(fixedDelayString = "${atlas.presence.sweep-ms:5000}")
     public void cleanupStaleStatuses() {
         try {
-            userStatusService.processStaleStatus();
+            int expired = userStatusService.expireStaleStatuses();
+            if (expired > 0) {
+                log.debug("Marked {} stale user statuses offline", expired);
+            }
         } catch (Exception e) {
             log.error("Failed to cleanup stale user statuses", e);
         }
@@ -1,19 +1,28 @@
 package org.collapseloader.atlas.domain.users.service;
 
 import org.apache.coyote.BadRequestException;
-import org.collapseloader.atlas.domain.achievements.service.AchievementService;
+import org.collapseloader.atlas.domain.achievements.rules.AchievementEvent;
+import org.collapseloader.atlas.domain.achievements.service.AchievementEngine;
+import org.collapseloader.atlas.domain.friends.service.FriendPresenceNotifier;
 import org.collapseloader.atlas.domain.users.dto.response.UserStatusResponse;
 import org.collapseloader.atlas.domain.users.entity.UserStatus;
-import org.collapseloader.atlas.domain.users.repository.UserProfileRepository;
-import org.springframework.data.redis.core.HashOperations;
+import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 @Service
 public class UserStatusService {
@@ -25,40 +34,137 @@ public class UserStatusService {
     private static final String KEY_ONLINE_SET = "user:online_set";
     private static final String KEY_HEARTBEATS = "user:status:heartbeats";
 
+    /**
+     * Claims up to ARGV[2] users whose last heartbeat is at or before ARGV[1] and flips them offline in the same
+     * script, so concurrent sweeps on other instances never claim the same user twice. Returns flat
+     * {@code [id, heartbeat, previousStatus, startedAt, ...]} tuples.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> EXPIRE_SCRIPT = new DefaultRedisScript<>("""
+            local claimed = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'WITHSCORES', 'LIMIT', 0, tonumber(ARGV[2]))
+            local result = {}
+            for i = 1, #claimed, 2 do
+                local id = claimed[i]
+                local key = ARGV[3] .. id
+                local status = redis.call('HGET', key, 'status') or ''
+                local startedAt = redis.call('HGET', key, 'startedAt') or ''
+                redis.call('ZREM', KEYS[1], id)
+                redis.call('SREM', KEYS[2], id)
+                redis.call('HDEL', key, 'clientName', 'startedAt')
+                redis.call('HSET', key, 'status', 'OFFLINE', 'updatedAt', ARGV[4])
+                table.insert(result, id)
+                table.insert(result, claimed[i + 1])
+                table.insert(result, status)
+                table.insert(result, startedAt)
+            end
+            return result
+            """, List.class);
+
+    /**
+     * Reads the previous status and session start and applies the new status in one step, so a sweep that claims
+     * the user concurrently either runs wholly before (and this sees OFFLINE) or wholly after. ARGV is
+     * {@code [id, status, clientName or '', now]}; returns {@code [previousStatus, previousStartedAt, newSession]}.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SET_SCRIPT = new DefaultRedisScript<>("""
+            local key = KEYS[1]
+            local previous = redis.call('HGET', key, 'status') or ''
+            local previousClient = redis.call('HGET', key, 'clientName') or ''
+            local startedAt = redis.call('HGET', key, 'startedAt') or ''
+            local newSession = '0'
+            if ARGV[2] == 'ONLINE' then
+                redis.call('SADD', KEYS[3], ARGV[1])
+                redis.call('ZADD', KEYS[2], ARGV[4], ARGV[1])
+                if ARGV[3] ~= '' then
+                    redis.call('HSET', key, 'clientName', ARGV[3])
+                end
+                if previous ~= 'ONLINE' or (ARGV[3] ~= '' and ARGV[3] ~= previousClient) then
+                    redis.call('HSET', key, 'startedAt', ARGV[4])
+                    newSession = '1'
+                end
+            else
+                redis.call('SREM', KEYS[3], ARGV[1])
+                redis.call('ZREM', KEYS[2], ARGV[1])
+                redis.call('HDEL', key, 'clientName', 'startedAt')
+            end
+            redis.call('HSET', key, 'status', ARGV[2], 'updatedAt', ARGV[4])
+            return {previous, startedAt, newSession}
+            """, List.class);
+
     private final StringRedisTemplate redisTemplate;
-    private final UserProfileRepository userProfileRepository;
-    private final AchievementService achievementService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AchievementEngine achievementEngine;
+    private final FriendPresenceNotifier friendPresenceNotifier;
+    private final long heartbeatTimeoutMs;
+    private final int sweepBatchSize;
 
     public UserStatusService(
             StringRedisTemplate redisTemplate,
-            UserProfileRepository userProfileRepository,
-            AchievementService achievementService) {
+            NamedParameterJdbcTemplate jdbcTemplate,
+            AchievementEngine achievementEngine,
+            FriendPresenceNotifier friendPresenceNotifier,
+            @Value("${atlas.presence.heartbeat-timeout-ms:90000}") long heartbeatTimeoutMs,
+            @Value("${atlas.presence.sweep-batch-size:500}") int sweepBatchSize) {
         this.redisTemplate = redisTemplate;
-        this.userProfileRepository = userProfileRepository;
-        this.achievementService = achievementService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.achievementEngine = achievementEngine;
+        this.friendPresenceNotifier = friendPresenceNotifier;
+        this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
     }
 
     public UserStatusResponse getStatus(Long userId) {
-        if (isStale(userId)) {
-            return new UserStatusResponse(UserStatus.OFFLINE, null, null, null);
+        return getStatuses(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Looks up presence for many users in a single pipelined round-trip (heartbeat score plus status hash per
+     * user). Duplicate ids are fetched once; every requested id is present in the result.
+     */
+    public Map<Long, UserStatusResponse> getStatuses(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
         }
-        HashOperations<String, String, String> ops = redisTemplate.opsForHash();
-        Map<String, String> data = ops.entries(key(userId));
-        if (data == null || data.isEmpty()) {
+
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long id : ids) {
+                    ops.opsForZSet().score(KEY_HEARTBEATS, id.toString());
+                    ops.opsForHash().entries(key(id));
+                }
+                return null;
+            }
+        });
+
+        Map<Long, UserStatusResponse> statuses = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            Object score = results.get(i * 2);
+            Object data = results.get(i * 2 + 1);
+            statuses.put(ids.get(i), toResponse(score instanceof Double d ? d : null,
+                    data instanceof Map<?, ?> map ? map : Map.of()));
+        }
+        return statuses;
+    }
+
+    private UserStatusResponse toResponse(Double heartbeat, Map<?, ?> data) {
+        if (isStale(heartbeat) || data.isEmpty()) {
             return new UserStatusResponse(UserStatus.OFFLINE, null, null, null);
         }
         return new UserStatusResponse(
-                parseStatus(data.get(FIELD_STATUS)),
-                parseClientName(data.get(FIELD_CLIENT_NAME)),
-                parseUpdatedAt(data.get(FIELD_UPDATED_AT)),
-                parseUpdatedAt(data.get(FIELD_STARTED_AT)));
+                parseStatus((String) data.get(FIELD_STATUS)),
+                parseClientName((String) data.get(FIELD_CLIENT_NAME)),
+                parseUpdatedAt((String) data.get(FIELD_UPDATED_AT)),
+                parseUpdatedAt((String) data.get(FIELD_STARTED_AT)));
     }
 
-    private boolean isStale(Long userId) {
-        Double score = redisTemplate.opsForZSet().score(KEY_HEARTBEATS, userId.toString());
+    private boolean isStale(Double score) {
         if (score == null)
             return false;
-        return (System.currentTimeMillis() - score.longValue()) > 90000; // 90 seconds
+        return (System.currentTimeMillis() - score.longValue()) > heartbeatTimeoutMs;
     }
 
     public long getOnlineUserCount() {
@@ -73,95 +179,116 @@ public class UserStatusService {
         if (status == null) {
             throw new BadRequestException("Status is required");
         }
-        HashOperations<String, String, String> ops = redisTemplate.opsForHash();
-        String key = key(userId);
-
-        Map<String, String> currentData = ops.entries(key);
-        String currentClientName = currentData.get(FIELD_CLIENT_NAME);
-        UserStatus currentStatus = parseStatus(currentData.get(FIELD_STATUS));
-
-        Map<String, String> updates = new HashMap<>();
-        updates.put(FIELD_STATUS, status.name());
-        updates.put(FIELD_UPDATED_AT, String.valueOf(Instant.now().toEpochMilli()));
+        long now = System.currentTimeMillis();
+        List<?> previous = redisTemplate.execute(SET_SCRIPT, List.of(key(userId), KEY_HEARTBEATS, KEY_ONLINE_SET),
+                userId.toString(), status.name(), clientName == null || clientName.isBlank() ? "" : clientName,
+                Long.toString(now));
+        if (previous == null || previous.size() < 3) {
+            previous = List.of("", "", "0");
+        }
+        UserStatus currentStatus = parseStatus(String.valueOf(previous.get(0)));
 
         if (status == UserStatus.ONLINE) {
-            redisTemplate.opsForSet().add(KEY_ONLINE_SET, userId.toString());
-            redisTemplate.opsForZSet().add(KEY_HEARTBEATS, userId.toString(), System.currentTimeMillis());
-
-            if (clientName != null && !clientName.isBlank()) {
-                updates.put(FIELD_CLIENT_NAME, clientName);
+            if ("1".equals(String.valueOf(previous.get(2)))) {
+                achievementEngine.publish(new AchievementEvent.SessionStarted(userId,
+                        LocalDateTime.now(ZoneId.systemDefault())));
             }
+        } else if (currentStatus == UserStatus.ONLINE) {
+            long elapsedSeconds = sessionSeconds(String.valueOf(previous.get(1)), now);
+            if (elapsedSeconds > 0) {
+                addPlaytime(Map.of(userId, elapsedSeconds));
+            }
+        }
 
-            boolean isNewSession = currentStatus != UserStatus.ONLINE
-                    || (clientName != null && !clientName.equals(currentClientName));
-
-            if (isNewSession) {
-                updates.put(FIELD_STARTED_AT, String.valueOf(Instant.now().toEpochMilli()));
+        UserStatusResponse response = getStatus(userId);
+        if (currentStatus != status) {
+            friendPresenceNotifier.notifyFriends(Map.of(userId, response));
+        }
+        return response;
+    }
 
-                LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
-                int hour = now.getHour();
-                var dayOfWeek = now.getDayOfWeek();
+    /**
+     * Flips every user whose heartbeat is older than the timeout offline, one script call per batch. Playtime for
+     * the expired sessions is credited up to the last heartbeat in a single JDBC batch and friends are notified.
+     *
+     * @return the number of users taken offline
+     */
+    public int expireStaleStatuses() {
+        int expired = 0;
+        while (true) {
+            long now = System.currentTimeMillis();
+            List<?> claimed = redisTemplate.execute(EXPIRE_SCRIPT, List.of(KEY_HEARTBEATS, KEY_ONLINE_SET),
+                    Long.toString(now - heartbeatTimeoutMs), Integer.toString(sweepBatchSize), KEY_PREFIX,
+                    Long.toString(now));
+            if (claimed == null || claimed.isEmpty()) {
+                return expired;
+            }
 
-                if (hour >= 2 && hour < 5) {
-                    achievementService.unlockAchievement(userId, "NIGHT_OWL");
+            Map<Long, Long> playtime = new HashMap<>();
+            Map<Long, UserStatusResponse> changes = new HashMap<>();
+            var offline = new UserStatusResponse(UserStatus.OFFLINE, null, Instant.ofEpochMilli(now), null);
+            for (int i = 0; i + 3 < claimed.size(); i += 4) {
+                long userId;
+                long heartbeat;
+                try {
+                    userId = Long.parseLong(String.valueOf(claimed.get(i)));
+                    heartbeat = (long) Double.parseDouble(String.valueOf(claimed.get(i + 1)));
+                } catch (NumberFormatException e) {
+                    continue;
                 }
-                if (hour >= 5 && hour < 8) {
-                    achievementService.unlockAchievement(userId, "EARLY_BIRD");
+                if (parseStatus(String.valueOf(claimed.get(i + 2))) != UserStatus.ONLINE) {
+                    continue;
                 }
-                if (dayOfWeek == java.time.DayOfWeek.SATURDAY || dayOfWeek == java.time.DayOfWeek.SUNDAY) {
-                    achievementService.unlockAchievement(userId, "WEEKEND_WARRIOR");
+                changes.put(userId, offline);
+                long seconds = sessionSeconds(String.valueOf(claimed.get(i + 3)), heartbeat);
+                if (seconds > 0) {
+                    playtime.put(userId, seconds);
                 }
             }
-        } else {
-            if (currentStatus == UserStatus.ONLINE) {
-                String startedAtStr = currentData.get(FIELD_STARTED_AT);
-                if (startedAtStr != null) {
-                    try {
-                        long startedAt = Long.parseLong(startedAtStr);
-                        long elapsedSeconds = (Instant.now().toEpochMilli() - startedAt) / 1000;
-                        if (elapsedSeconds > 0) {
-                            var profile = userProfileRepository.findByUserId(userId).orElse(null);
-                            if (profile != null) {
-                                long total = profile.getTotalPlaytimeSeconds() + elapsedSeconds;
-                                profile.setTotalPlaytimeSeconds(total);
-                                userProfileRepository.save(profile);
-
-                                if (total >= 3600) {
-                                    achievementService.unlockAchievement(userId, "PLAYED_1Hour");
-                                }
-                                if (total >= 36000) {
-                                    achievementService.unlockAchievement(userId, "PLAYED_10Hours");
-                                }
-                            }
-                        }
-                    } catch (NumberFormatException ignored) {
-                    }
-                }
+
+            addPlaytime(playtime);
+            friendPresenceNotifier.notifyFriends(changes);
+            int claimedUsers = claimed.size() / 4;
+            expired += claimedUsers;
+            if (claimedUsers < sweepBatchSize) {
+                return expired;
             }
-            redisTemplate.opsForSet().remove(KEY_ONLINE_SET, userId.toString());
-            redisTemplate.opsForZSet().remove(KEY_HEARTBEATS, userId.toString());
-            ops.delete(key, FIELD_CLIENT_NAME);
-            ops.delete(key, FIELD_STARTED_AT);
         }
+    }
 
-        ops.putAll(key, updates);
-
-        return getStatus(userId);
+    private long sessionSeconds(String startedAt, long endedAtMillis) {
+        if (startedAt == null || startedAt.isBlank()) {
+            return 0;
+        }
+        try {
+            return (endedAtMillis - Long.parseLong(startedAt)) / 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
-    public void processStaleStatus() throws BadRequestException {
-        long threshold = System.currentTimeMillis() - 90000;
-        var staleUsers = redisTemplate.opsForZSet().rangeByScore(KEY_HEARTBEATS, 0, threshold);
-        if (staleUsers == null || staleUsers.isEmpty())
+    /**
+     * Adds session time to the profiles in one JDBC batch, then evaluates the playtime achievements against the new
+     * totals.
+     */
+    private void addPlaytime(Map<Long, Long> secondsByUser) {
+        if (secondsByUser.isEmpty()) {
             return;
-
-        for (String userIdStr : staleUsers) {
-            try {
-                Long userId = Long.parseLong(userIdStr);
-                setStatus(userId, UserStatus.OFFLINE, null);
-            } catch (NumberFormatException ignored) {
-            }
         }
+        SqlParameterSource[] batch = secondsByUser.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("userId", entry.getKey())
+                        .addValue("seconds", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("""
+                update user_profiles
+                set total_playtime_seconds = total_playtime_seconds + :seconds
+                where user_id = :userId
+                """, batch);
+
+        jdbcTemplate.query("select user_id, total_playtime_seconds from user_profiles where user_id in (:userIds)",
+                Map.of("userIds", secondsByUser.keySet()), (RowCallbackHandler) rs -> achievementEngine.publish(
+                        new AchievementEvent.PlaytimeChanged(rs.getLong(1), rs.getLong(2))));
     }
 
     private String key(Long userId) {
@@ -10,7 +10,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "file_metadata", indexes = {
         @Index(name = "file_path_idx", columnList = "file_path"),
-        @Index(name = "file_deleted_idx", columnList = "is_deleted")
+        @Index(name = "file_deleted_idx", columnList = "is_deleted"),
+        @Index(name = "file_blob_hash_idx", columnList = "blob_hash")
 })
 @Getter
 @Setter
@@ -34,6 +35,9 @@ public class FileMetadata {
     @Column(name = "last_modified")
     private long lastModified;
 
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
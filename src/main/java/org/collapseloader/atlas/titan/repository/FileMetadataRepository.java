@@ -2,8 +2,11 @@ package org.collapseloader.atlas.titan.repository;
 
 import org.collapseloader.atlas.titan.model.FileMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +17,22 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
     List<FileMetadata> findByDeletedTrue();
 
     List<FileMetadata> findByDeletedFalse();
+
+    List<FileMetadata> findByFilePathStartingWithAndDeletedFalse(String prefix);
+
+    long countByBlobHash(String blobHash);
+
+    List<FileMetadata> findByFilePathInAndDeletedFalse(Collection<String> filePaths);
+
+    List<FileMetadata> findByFilePathIn(Collection<String> filePaths);
+
+    /**
+     * @param pattern {@code path} with {@code \}, {@code %} and {@code _} escaped by a backslash
+     */
+    @Query("select distinct m.blobHash from FileMetadata m where m.blobHash is not null "
+            + "and (m.filePath = :path or m.filePath like concat(:pattern, '/%') escape '\\')")
+    List<String> findBlobHashesUnder(@Param("path") String path, @Param("pattern") String pattern);
+
+    @Query("select distinct m.md5 from FileMetadata m where m.md5 is not null")
+    List<String> findDistinctMd5();
 }
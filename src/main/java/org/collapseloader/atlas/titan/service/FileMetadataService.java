@@ -5,6 +5,7 @@ import org.collapseloader.atlas.titan.model.FileMetadata;
 import org.collapseloader.atlas.titan.repository.FileMetadataRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,13 +15,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class FileMetadataService {
     private static final Logger log = LoggerFactory.getLogger(FileMetadataService.class);
+    private static final String UPSERT_SQL = """
+            insert into file_metadata (file_path, md5, size, last_modified, blob_hash, is_deleted, deleted_at,
+                                       created_at, updated_at)
+            values (?, ?, ?, ?, ?, false, null, now(), now())
+            on conflict (file_path) do update set md5 = excluded.md5, size = excluded.size,
+                last_modified = excluded.last_modified, blob_hash = excluded.blob_hash, is_deleted = false,
+                deleted_at = null, updated_at = excluded.updated_at
+            """;
+
     private final FileMetadataRepository metadataRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
     public String getOrCalculateMD5(Path path, Path rootLocation) throws IOException {
@@ -61,6 +72,9 @@ public class FileMetadataService {
             String md5 = sb.toString();
 
             FileMetadata metadata = existing.orElse(new FileMetadata());
+            if (!md5.equals(metadata.getMd5())) {
+                metadata.setBlobHash(null);
+            }
             metadata.setFilePath(relativePath);
             metadata.setMd5(md5);
             metadata.setSize(currentSize);
@@ -80,12 +94,25 @@ public class FileMetadataService {
         return metadataRepository.findByFilePath(filePath);
     }
 
+    @Transactional(readOnly = true)
+    public Map<String, FileMetadata> findByFilePaths(Collection<String> filePaths) {
+        Map<String, FileMetadata> result = new HashMap<>();
+        if (filePaths.isEmpty())
+            return result;
+        for (FileMetadata metadata : metadataRepository.findByFilePathInAndDeletedFalse(filePaths)) {
+            result.put(metadata.getFilePath(), metadata);
+        }
+        return result;
+    }
+
     @Transactional
-    public void saveCalculatedMd5(Path path, Path rootLocation, String md5, long size, long lastModified) {
+    public void saveCalculatedMd5(Path path, Path rootLocation, String md5, long size, long lastModified,
+                                  String blobHash) {
         String relativePath = rootLocation.relativize(path).toString().replace("\\", "/");
         FileMetadata metadata = metadataRepository.findByFilePath(relativePath).orElse(new FileMetadata());
         metadata.setFilePath(relativePath);
         metadata.setMd5(md5);
+        metadata.setBlobHash(blobHash);
         metadata.setSize(size);
         metadata.setLastModified(lastModified);
         metadata.setDeleted(false);
@@ -102,6 +129,37 @@ public class FileMetadataService {
         });
     }
 
+    @Transactional
+    public int deleteMetadataPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty())
+            return 0;
+        String withSlash = prefix.endsWith("/") ? prefix : prefix + "/";
+        java.time.Instant now = java.time.Instant.now();
+        var affected = metadataRepository.findByFilePathStartingWithAndDeletedFalse(withSlash);
+        affected.forEach(metadata -> {
+            metadata.setDeleted(true);
+            metadata.setDeletedAt(now);
+        });
+        metadataRepository.saveAll(affected);
+        return affected.size();
+    }
+
+    @Transactional(readOnly = true)
+    public long countByBlobHash(String blobHash) {
+        return metadataRepository.countByBlobHash(blobHash);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findBlobHashesUnder(String path) {
+        String pattern = path.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return metadataRepository.findBlobHashesUnder(path, pattern);
+    }
+
+    @Transactional(readOnly = true)
+    public Set<String> findKnownMd5s() {
+        return new HashSet<>(metadataRepository.findDistinctMd5());
+    }
+
     @Transactional
     public void purgeMetadata(String filePath) {
         metadataRepository.findByFilePath(filePath).ifPresent(metadataRepository::delete);
@@ -126,12 +184,58 @@ public class FileMetadataService {
     }
 
     @Transactional(readOnly = true)
-    public java.util.List<FileMetadata> findAll() {
+    public Map<String, FileMetadata> loadIndex() {
+        Map<String, FileMetadata> index = new HashMap<>();
+        for (FileMetadata metadata : metadataRepository.findAll()) {
+            index.put(metadata.getFilePath(), metadata);
+        }
+        return index;
+    }
+
+    /**
+     * Rows for the given paths, whether deleted or not.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, FileMetadata> findAllByFilePaths(Collection<String> filePaths) {
+        Map<String, FileMetadata> result = new HashMap<>();
+        if (filePaths.isEmpty())
+            return result;
+        for (FileMetadata metadata : metadataRepository.findByFilePathIn(filePaths)) {
+            result.put(metadata.getFilePath(), metadata);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the rows as live files with one JDBC batch, inserting new paths and updating existing ones by path.
+     * Hibernate cannot batch inserts of {@link FileMetadata} because its id is an identity column.
+     */
+    @Transactional
+    public void upsertAll(Collection<FileMetadata> batch) {
+        if (batch.isEmpty())
+            return;
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (FileMetadata metadata : batch) {
+            args.add(new Object[]{metadata.getFilePath(), metadata.getMd5(), metadata.getSize(),
+                    metadata.getLastModified(), metadata.getBlobHash()});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+    }
+
+    @Transactional
+    public void purgeAll(Collection<FileMetadata> batch) {
+        if (batch.isEmpty())
+            return;
+        metadataRepository.deleteAllInBatch(batch);
+    }
+
+    @Transactional(readOnly = true)
+    public List<FileMetadata> findAll() {
         return metadataRepository.findByDeletedFalse();
     }
 
     @Transactional(readOnly = true)
-    public java.util.List<FileMetadata> findTrash() {
+    public List<FileMetadata> findTrash() {
         return metadataRepository.findByDeletedTrue();
     }
 
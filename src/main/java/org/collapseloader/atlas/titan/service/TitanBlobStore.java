@@ -0,0 +1,215 @@
+package org.collapseloader.atlas.titan.service;
+
+import lombok.Getter;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Optional content-addressed layout for Titan.
+ * <p>
+ * When enabled, every stored file is moved into {@code <blob-dir>/<first two hex chars>/<sha256>} and its logical
+ * path becomes a hard link to that blob, so byte-identical uploads share one copy on disk. Because logical paths
+ * stay real directory entries, move-based operations (trash, restore, rename) keep working unchanged. Blobs are
+ * reference counted through {@code file_metadata.blob_hash} and removed once nothing points at them. If the
+ * filesystem does not support hard links the blob is copied instead, which keeps correctness but not the savings.
+ * <p>
+ * Linking a file to a blob and releasing that blob take the same per-hash lock, so a release can never delete a blob
+ * between the existence check and the link. Links are created under a temporary name and renamed over the target, so
+ * a failed link leaves the upload where it was.
+ * <p>
+ * The trade-off of hard links is that every duplicate path shares one inode: a file rewritten in place outside the API
+ * changes all of its duplicates and the blob along with it. {@link #detach} limits the damage once the watcher notices
+ * such an edit: the edited path gets its own copy, and a blob that no longer matches its hash is dropped so it is never
+ * handed to a new upload. The other duplicates keep the edited bytes until they are re-uploaded; the integrity scanner
+ * picks up their changed mtime and re-hashes them. Tools that replace files by rename (rsync, most editors) create a
+ * new inode and do not have this problem.
+ */
+@Component
+public class TitanBlobStore {
+    private static final Logger log = LoggerFactory.getLogger(TitanBlobStore.class);
+
+    private final StorageProperties properties;
+    private final FileMetadataService metadataService;
+    private final Object[] locks = new Object[64];
+
+    @Getter
+    private Path blobLocation;
+
+    public TitanBlobStore(StorageProperties properties, FileMetadataService metadataService) {
+        this.properties = properties;
+        this.metadataService = metadataService;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public void init(Path rootLocation) throws IOException {
+        this.blobLocation = rootLocation.resolve(properties.getBlobDir()).normalize();
+        if (isEnabled()) {
+            Files.createDirectories(blobLocation);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isDedupEnabled();
+    }
+
+    public String materialise(Path file, String sha256) throws IOException {
+        if (!isEnabled() || sha256 == null) {
+            return null;
+        }
+
+        Path blob = blobPath(sha256);
+        Files.createDirectories(blob.getParent());
+
+        synchronized (lockFor(sha256)) {
+            if (Files.exists(blob)) {
+                linkAtomically(file, blob);
+                log.info("[TITAN] Deduplicated {} against existing blob {}", file.getFileName(), sha256);
+            } else {
+                linkAtomically(blob, file);
+            }
+        }
+        return sha256;
+    }
+
+    /**
+     * Called when a file linked to {@code sha256} changed outside the API. If the file still shares the blob's inode
+     * it was edited in place: it gets its own copy, and the blob is dropped when its content no longer matches its
+     * hash. A file that was replaced by a rename already has its own inode and is left alone.
+     */
+    public void detach(Path file, String sha256) throws IOException {
+        if (!isEnabled() || sha256 == null || blobLocation == null) {
+            return;
+        }
+        Path blob = blobPath(sha256);
+        synchronized (lockFor(sha256)) {
+            if (!Files.exists(blob) || !Files.isSameFile(file, blob)) {
+                return;
+            }
+            Path copy = tempSibling(file);
+            try {
+                Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(copy, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(copy);
+            }
+            if (!sha256.equals(sha256Of(blob))) {
+                Files.delete(blob);
+                log.warn("[TITAN] {} was edited in place and changed every file linked to blob {}; dropped the blob",
+                        file, sha256);
+            } else {
+                log.info("[TITAN] Detached {} from blob {}", file.getFileName(), sha256);
+            }
+        }
+    }
+
+    public void release(String sha256) {
+        if (sha256 == null || blobLocation == null) {
+            return;
+        }
+        synchronized (lockFor(sha256)) {
+            if (metadataService.countByBlobHash(sha256) > 0) {
+                return;
+            }
+            Path blob = blobPath(sha256);
+            try {
+                if (linkCount(blob) <= 1 && Files.deleteIfExists(blob)) {
+                    log.info("[TITAN] Released unreferenced blob {}", sha256);
+                }
+            } catch (IOException e) {
+                log.error("[TITAN] Failed to release blob {}", sha256, e);
+            }
+        }
+    }
+
+    public void collectGarbage() {
+        if (blobLocation == null || !Files.isDirectory(blobLocation)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(blobLocation, 2)) {
+            stream.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .forEach(this::release);
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to walk blob store for garbage collection", e);
+        }
+    }
+
+    private Path blobPath(String sha256) {
+        return blobLocation.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), locks.length)];
+    }
+
+    /**
+     * Makes {@code target} a hard link to (or copy of) {@code existing}, replacing whatever {@code target} was only
+     * once the new entry is complete.
+     */
+    private void linkAtomically(Path target, Path existing) throws IOException {
+        Path temp = tempSibling(target);
+        try {
+            link(temp, existing);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void link(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (UnsupportedOperationException e) {
+            log.debug("[TITAN] Hard links unsupported for {}, falling back to copy", link, e);
+            Files.copy(existing, link);
+        } catch (FileSystemException e) {
+            // missing source, existing target and access errors have their own subclasses and are real failures; a
+            // plain FileSystemException is link(2) refusing the link itself (EXDEV, EPERM, EMLINK)
+            if (e.getClass() != FileSystemException.class) {
+                throw e;
+            }
+            log.debug("[TITAN] Cannot hard link {} ({}), falling back to copy", link, e.getReason());
+            Files.copy(existing, link);
+        }
+    }
+
+    private static Path tempSibling(Path path) {
+        return path.resolveSibling("." + path.getFileName() + ".titan-" + UUID.randomUUID());
+    }
+
+    private static String sha256Of(Path path) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (var in = Files.newInputStream(path)) {
+                byte[] buffer = new byte[65536];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    private int linkCount(Path blob) {
+        try {
+            return (Integer) Files.getAttribute(blob, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return 1;
+        }
+    }
+}
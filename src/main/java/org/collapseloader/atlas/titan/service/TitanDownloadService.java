@@ -0,0 +1,306 @@
+package org.collapseloader.atlas.titan.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Serves stored files with HTTP range, conditional and precompressed handling.
+ * <p>
+ * Strong ETags come straight from the MD5 in {@code file_metadata} when it still matches the file's size and
+ * mtime, so nothing is rehashed on the download path; otherwise a weak size/mtime tag is used. Single and multiple
+ * byte ranges are supported together with {@code If-Range}, gzip sidecars from {@link TitanPrecompressor} are
+ * served to clients that accept them, and file bodies go out through {@link FileChannel#transferTo} or the
+ * container's sendfile support when it is available.
+ */
+@Service
+public class TitanDownloadService {
+    static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final int MAX_RANGES = 16;
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private final TitanFileStorageService storageService;
+    private final FileMetadataService metadataService;
+    private final TitanPrecompressor precompressor;
+
+    public TitanDownloadService(TitanFileStorageService storageService, FileMetadataService metadataService,
+                                TitanPrecompressor precompressor) {
+        this.storageService = storageService;
+        this.metadataService = metadataService;
+        this.precompressor = precompressor;
+    }
+
+    public boolean serve(String relativePath, String downloadName, MediaType mediaType, CacheControl cacheControl,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path root = storageService.getRootLocation();
+        Path file = storageService.load(relativePath);
+        if (!file.startsWith(root) || file.equals(root) || storageService.isInternalPath(file)
+                || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return false;
+        }
+
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String normalizedPath = root.relativize(file).toString().replace("\\", "/");
+        String md5 = metadataService.findByFilePath(normalizedPath)
+                .filter(metadata -> !metadata.isDeleted() && metadata.getSize() == length
+                        && metadata.getLastModified() == lastModified)
+                .map(FileMetadata::getMd5)
+                .orElse(null);
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        Path gzip = precompressor.findGzip(md5).orElse(null);
+        boolean useGzip = gzip != null && rangeHeader == null && acceptsGzip(request);
+
+        String etag = md5 != null
+                ? "\"" + md5 + (useGzip ? "-gzip" : "") + "\""
+                : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        String contentType = (mediaType != null ? mediaType
+                : MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)).toString();
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                + (downloadName != null ? downloadName : file.getFileName().toString()) + "\"");
+        if (cacheControl != null && cacheControl.getHeaderValue() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        if (gzip != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return true;
+        }
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (useGzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            long gzipLength = Files.size(gzip);
+            response.setContentLengthLong(gzipLength);
+            if (!headOnly) {
+                transfer(gzip, 0, gzipLength, request, response);
+            }
+            return true;
+        }
+
+        List<long[]> ranges = rangeHeader != null && ifRangeMatches(request, etag, lastModified)
+                ? parseRanges(rangeHeader, length)
+                : null;
+
+        if (ranges == null) {
+            response.setContentLengthLong(length);
+            if (!headOnly) {
+                transfer(file, 0, length, request, response);
+            }
+        } else if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setContentLengthLong(0);
+        } else if (ranges.size() == 1) {
+            long[] range = ranges.getFirst();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            response.setContentLengthLong(range[1] - range[0] + 1);
+            if (!headOnly) {
+                transfer(file, range[0], range[1] - range[0] + 1, request, response);
+            }
+        } else {
+            writeMultipart(file, ranges, length, contentType, headOnly, response);
+        }
+        return true;
+    }
+
+    static List<long[]> parseRanges(String header, long length) {
+        if (!header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        List<long[]> ranges = new ArrayList<>(specs.length);
+        long total = 0;
+        for (String rawSpec : specs) {
+            String spec = rawSpec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    end = dash == spec.length() - 1 ? length - 1
+                            : Math.min(length - 1, Long.parseLong(spec.substring(dash + 1)));
+                    if (end < start) {
+                        if (dash != spec.length() - 1 && Long.parseLong(spec.substring(dash + 1)) < start) {
+                            return null;
+                        }
+                        continue;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start >= length) {
+                continue;
+            }
+            total += end - start + 1;
+            ranges.add(new long[]{start, end});
+        }
+
+        // Overlapping ranges that add up to more than the file are not worth honouring.
+        return total > length ? null : ranges;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"")) {
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String token : header.split(",")) {
+            String[] parts = token.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String contentRange(long[] range, long length) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + length;
+    }
+
+    private void writeMultipart(Path file, List<long[]> ranges, long length, String contentType, boolean headOnly,
+                                HttpServletResponse response) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            total += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        if (headOnly) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                transferTo(channel, range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    private void transfer(Path file, long start, long count, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toFile().getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transferTo(channel, start, count, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private static void transferTo(FileChannel channel, long start, long count, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        long end = start + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File ended early at offset " + position);
+            }
+            position += sent;
+        }
+    }
+}
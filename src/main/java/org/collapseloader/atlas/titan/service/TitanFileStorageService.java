@@ -36,19 +36,26 @@ public class TitanFileStorageService {
 
     private final StorageProperties properties;
     private final FileMetadataService metadataService;
+    private final TitanBlobStore blobStore;
+    private final TitanPrecompressor precompressor;
 
     @Getter
     private Path rootLocation;
+    @Getter
     private Path tempLocation;
+    @Getter
     private Path trashLocation;
 
-    private static void copyWithDigest(InputStream inputStream, OutputStream outputStream, MessageDigest digest)
-            throws IOException {
+    private static void copyWithDigest(InputStream inputStream, OutputStream outputStream, MessageDigest digest,
+                                       MessageDigest blobDigest) throws IOException {
         byte[] buffer = new byte[64 * 1024];
         int bytesRead;
         while ((bytesRead = inputStream.read(buffer)) != -1) {
             outputStream.write(buffer, 0, bytesRead);
             digest.update(buffer, 0, bytesRead);
+            if (blobDigest != null) {
+                blobDigest.update(buffer, 0, bytesRead);
+            }
         }
     }
 
@@ -70,53 +77,49 @@ public class TitanFileStorageService {
             Files.createDirectories(rootLocation);
             Files.createDirectories(tempLocation);
             Files.createDirectories(trashLocation);
+            blobStore.init(rootLocation);
+            precompressor.init(rootLocation);
             log.info("[TITAN] Initialized. Root: {}, Trash: {}", rootLocation, trashLocation);
-            verifyIntegrity();
         } catch (IOException e) {
             throw new TitanException("Could not initialize storage: " + e);
         }
     }
 
-    @Scheduled(cron = "0 0 * * * *")
-    public void scheduledIntegrityCheck() {
-        verifyIntegrity();
+    public boolean isInternalPath(Path path) {
+        return path.startsWith(trashLocation) || path.startsWith(tempLocation)
+                || (blobStore.getBlobLocation() != null && path.startsWith(blobStore.getBlobLocation()))
+                || (precompressor.getLocation() != null && path.startsWith(precompressor.getLocation()));
     }
 
-    public void verifyIntegrity() {
-        log.info("[TITAN] Starting file integrity verification...");
+    MessageDigest newBlobDigest() throws NoSuchAlgorithmException {
+        return blobStore.isEnabled() ? MessageDigest.getInstance("SHA-256") : null;
+    }
 
-        try (Stream<Path> stream = Files.walk(rootLocation)) {
-            stream.filter(path -> !path.startsWith(trashLocation) && !path.startsWith(tempLocation))
-                    .filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            metadataService.getOrCalculateMD5(path, rootLocation);
-                        } catch (IOException e) {
-                            log.error("[TITAN] Failed to verify file integrity for: {}", path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            log.error("[TITAN] Failed to walk files for integrity check", e);
+    Path resolveDestination(String subDir, String filename) throws IOException {
+        Path destinationDir = subDir != null && !subDir.isEmpty() ? rootLocation.resolve(subDir).normalize()
+                : rootLocation;
+        Path destinationFile = destinationDir.resolve(Paths.get(filename)).normalize().toAbsolutePath();
+        if (!destinationFile.startsWith(rootLocation.toAbsolutePath()) || isInternalPath(destinationFile)) {
+            throw new TitanException("Cannot store file outside root.");
         }
+        Files.createDirectories(destinationFile.getParent());
+        return destinationFile;
+    }
 
-        metadataService.findAll().forEach(metadata -> {
-            Path file = rootLocation.resolve(metadata.getFilePath()).normalize();
-            if (!Files.exists(file)) {
-                log.warn("[TITAN] Active file missing from disk, purging from DB: {}", metadata.getFilePath());
-                metadataService.purgeMetadata(metadata.getFilePath());
-            }
-        });
-
-        metadataService.findTrash().forEach(metadata -> {
-            Path trashFile = trashLocation.resolve(metadata.getFilePath()).normalize();
-            if (!Files.exists(trashFile)) {
-                log.warn("[TITAN] Deleted file missing from trash disk, purging from DB: {}",
-                        metadata.getFilePath());
-                metadataService.purgeMetadata(metadata.getFilePath());
-            }
-        });
-
-        log.info("[TITAN] Integrity check completed.");
+    StoredFile finishStore(Path destinationFile, String filename, MessageDigest md5Digest, MessageDigest blobDigest)
+            throws IOException {
+        String blobHash = blobStore.materialise(destinationFile,
+                blobDigest != null ? toHex(blobDigest.digest()) : null);
+        long size = Files.size(destinationFile);
+        long lastModified = Files.getLastModifiedTime(destinationFile).toMillis();
+        String md5 = toHex(md5Digest.digest());
+        metadataService.saveCalculatedMd5(destinationFile, rootLocation, md5, size, lastModified, blobHash);
+        precompressor.precompress(destinationFile, md5);
+
+        String relativePath = this.rootLocation.relativize(destinationFile).toString().replace("\\", "/");
+        log.info("[TITAN] File stored successfully: {}", relativePath);
+
+        return new StoredFile(filename, relativePath, md5, size / (1024 * 1024));
     }
 
     public StoredFile store(MultipartFile file, String subDir) {
@@ -154,20 +157,17 @@ public class TitanFileStorageService {
             }
 
             MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            MessageDigest blobDigest = newBlobDigest();
 
-            try (var inputStream = new DigestInputStream(file.getInputStream(), messageDigest)) {
+            InputStream source = new DigestInputStream(file.getInputStream(), messageDigest);
+            if (blobDigest != null) {
+                source = new DigestInputStream(source, blobDigest);
+            }
+            try (var inputStream = source) {
                 Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
             }
 
-            long size = Files.size(destinationFile);
-            long lastModified = Files.getLastModifiedTime(destinationFile).toMillis();
-            String md5 = toHex(messageDigest.digest());
-            metadataService.saveCalculatedMd5(destinationFile, rootLocation, md5, size, lastModified);
-
-            String relativePath = this.rootLocation.relativize(destinationFile).toString().replace("\\", "/");
-            log.info("[TITAN] File stored successfully: {}", relativePath);
-
-            return new StoredFile(customFilename, relativePath, md5, size / (1024 * 1024));
+            return finishStore(destinationFile, customFilename, messageDigest, blobDigest);
         } catch (NoSuchAlgorithmException e) {
             log.error("[TITAN] MD5 algorithm not available while storing file: {}", file.getOriginalFilename(), e);
             throw new TitanException("Failed to initialize MD5 algorithm.");
@@ -204,7 +204,7 @@ public class TitanFileStorageService {
             try (Stream<Path> walk = Files.walk(finalStartDir, 1)) {
                 return walk
                         .filter(path -> !path.equals(finalStartDir))
-                        .filter(path -> !path.startsWith(trashLocation) && !path.startsWith(tempLocation))
+                        .filter(path -> !isInternalPath(path))
                         .map(this.rootLocation::relativize)
                         .toList()
                         .stream();
@@ -291,6 +291,7 @@ public class TitanFileStorageService {
                 ? relativePath.substring(trashDirPrefix.length())
                 : relativePath;
 
+        List<String> blobHashes = blobStore.isEnabled() ? metadataService.findBlobHashesUnder(purgePath) : List.of();
         if (Files.isDirectory(file)) {
             deleteRecursively(file);
             metadataService.purgeMetadataPrefix(purgePath);
@@ -298,6 +299,7 @@ public class TitanFileStorageService {
             Files.deleteIfExists(file);
             metadataService.purgeMetadata(purgePath);
         }
+        blobHashes.forEach(blobStore::release);
         log.info("[TITAN] Permanently deleted: {}", file);
     }
 
@@ -355,14 +357,7 @@ public class TitanFileStorageService {
         log.info("[TITAN] Merging chunks for file: {} in subDir: {}", filename, subDir);
         try {
             Path uploadTempDir = tempLocation.resolve(uploadId);
-            Path destinationDir = subDir != null && !subDir.isEmpty() ? rootLocation.resolve(subDir).normalize()
-                    : rootLocation;
-            Files.createDirectories(destinationDir);
-
-            Path destinationFile = destinationDir.resolve(Paths.get(filename)).normalize().toAbsolutePath();
-            if (!destinationFile.startsWith(rootLocation.toAbsolutePath())) {
-                throw new TitanException("Cannot store file outside root.");
-            }
+            Path destinationFile = resolveDestination(subDir, filename);
 
             List<Integer> missingChunks = new ArrayList<>();
             for (int i = 0; i < totalChunks; i++) {
@@ -377,24 +372,21 @@ public class TitanFileStorageService {
             }
 
             MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            MessageDigest blobDigest = newBlobDigest();
+            // Unlink first: the destination may be a hard link into the blob store.
+            Files.deleteIfExists(destinationFile);
             try (var outputStream = Files.newOutputStream(destinationFile, java.nio.file.StandardOpenOption.CREATE,
                     java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
                 for (int i = 0; i < totalChunks; i++) {
                     Path chunkFile = uploadTempDir.resolve(String.valueOf(i));
                     try (InputStream chunkStream = Files.newInputStream(chunkFile)) {
-                        copyWithDigest(chunkStream, outputStream, messageDigest);
+                        copyWithDigest(chunkStream, outputStream, messageDigest, blobDigest);
                     }
                 }
             }
 
             deleteRecursively(uploadTempDir);
-            long size = Files.size(destinationFile);
-            long lastModified = Files.getLastModifiedTime(destinationFile).toMillis();
-            String md5 = toHex(messageDigest.digest());
-            metadataService.saveCalculatedMd5(destinationFile, rootLocation, md5, size, lastModified);
-
-            String relativePath = this.rootLocation.relativize(destinationFile).toString().replace("\\", "/");
-            return new StoredFile(filename, relativePath, md5, size / (1024 * 1024));
+            return finishStore(destinationFile, filename, messageDigest, blobDigest);
         } catch (NoSuchAlgorithmException e) {
             log.error("[TITAN] MD5 algorithm not available while merging chunks for: {}", filename, e);
             throw new TitanException("Failed to initialize MD5 algorithm.");
@@ -429,6 +421,8 @@ public class TitanFileStorageService {
         } catch (IOException e) {
             log.error("[TITAN] Failed to walk trash for purge", e);
         }
+        blobStore.collectGarbage();
+        precompressor.collectGarbage();
     }
 
     @Scheduled(cron = "0 0 * * * *")
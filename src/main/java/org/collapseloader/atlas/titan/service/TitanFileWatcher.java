@@ -0,0 +1,252 @@
+package org.collapseloader.atlas.titan.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps {@code file_metadata} in sync with changes made to the upload tree outside the API.
+ * <p>
+ * Events are coalesced per path and only processed once the path has been quiet for the debounce window, so a
+ * jar being copied in by rsync is hashed once after the copy finishes. Unchanged files are skipped by size and
+ * mtime, removed files are soft-deleted, and an overflow falls back to a full {@link TitanIntegrityScanner} run.
+ * Deduplicated files are detached from their blob before re-hashing; see {@link TitanBlobStore#detach}.
+ */
+@Component
+public class TitanFileWatcher {
+    private static final Logger log = LoggerFactory.getLogger(TitanFileWatcher.class);
+    private static final long POLL_INTERVAL_MS = 250;
+
+    private final TitanFileStorageService storageService;
+    private final FileMetadataService metadataService;
+    private final TitanIntegrityScanner integrityScanner;
+    private final TitanBlobStore blobStore;
+    private final StorageProperties properties;
+
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Map<Path, Long> pending = new LinkedHashMap<>();
+
+    private final Counter updatedFiles;
+    private final Counter deletedFiles;
+    private final Counter overflows;
+
+    private WatchService watchService;
+    private Thread watcherThread;
+    private volatile boolean running;
+
+    public TitanFileWatcher(TitanFileStorageService storageService,
+                            FileMetadataService metadataService,
+                            TitanIntegrityScanner integrityScanner,
+                            TitanBlobStore blobStore,
+                            StorageProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.metadataService = metadataService;
+        this.integrityScanner = integrityScanner;
+        this.blobStore = blobStore;
+        this.properties = properties;
+
+        this.updatedFiles = Counter.builder("atlas.titan.watch.events")
+                .tag("action", "updated")
+                .register(meterRegistry);
+        this.deletedFiles = Counter.builder("atlas.titan.watch.events")
+                .tag("action", "deleted")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("atlas.titan.watch.events")
+                .tag("action", "overflow")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isWatchEnabled() || running || storageService.getRootLocation() == null) {
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(storageService.getRootLocation());
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to start file watcher, relying on scheduled integrity scans", e);
+            closeWatchService();
+            return;
+        }
+
+        running = true;
+        watcherThread = new Thread(this::watchLoop, "titan-watch");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("[TITAN] Watching {} directories for external changes", watchedDirs.size());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+        closeWatchService();
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleKey(key);
+                }
+                flushPending();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                log.error("[TITAN] File watcher iteration failed", e);
+            }
+        }
+    }
+
+    void handleKey(WatchKey key) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflows.increment();
+                log.warn("[TITAN] File watcher overflowed, scheduling full integrity scan");
+                integrityScanner.scanAsync();
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context()).normalize();
+            if (storageService.isInternalPath(child)) {
+                continue;
+            }
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerTree(child);
+                } catch (IOException e) {
+                    log.error("[TITAN] Failed to watch new directory: {}", child, e);
+                }
+                continue;
+            }
+            pending.put(child, System.nanoTime());
+        }
+
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+    }
+
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getWatchDebounceMs()));
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < quietNanos) {
+                continue;
+            }
+            iterator.remove();
+            sync(entry.getKey());
+        }
+    }
+
+    private void sync(Path path) {
+        Path root = storageService.getRootLocation();
+        String relativePath = root.relativize(path).toString().replace("\\", "/");
+        try {
+            if (Files.isRegularFile(path)) {
+                String blobHash = blobStore.isEnabled()
+                        ? metadataService.findByFilePath(relativePath).map(FileMetadata::getBlobHash).orElse(null)
+                        : null;
+                if (blobHash != null) {
+                    // a hard-linked file edited in place: stop the edit from reaching the other duplicates
+                    blobStore.detach(path, blobHash);
+                }
+                metadataService.getOrCalculateMD5(path, root);
+                if (blobHash != null) {
+                    blobStore.release(blobHash);
+                }
+                updatedFiles.increment();
+                return;
+            }
+            if (Files.exists(path)) {
+                return;
+            }
+
+            var existing = metadataService.findByFilePath(relativePath);
+            if (existing.isPresent()) {
+                if (!existing.get().isDeleted()) {
+                    metadataService.deleteMetadata(relativePath);
+                    deletedFiles.increment();
+                    log.info("[TITAN] File removed outside the API, soft-deleted metadata: {}", relativePath);
+                }
+                return;
+            }
+
+            int affected = metadataService.deleteMetadataPrefix(relativePath);
+            if (affected > 0) {
+                deletedFiles.increment(affected);
+                log.info("[TITAN] Directory removed outside the API, soft-deleted {} entries under: {}", affected,
+                        relativePath);
+            }
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to sync metadata for: {}", relativePath, e);
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (storageService.isInternalPath(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (!start.equals(storageService.getRootLocation())) {
+            try (Stream<Path> files = Files.walk(start)) {
+                files.filter(Files::isRegularFile)
+                        .filter(path -> !storageService.isInternalPath(path))
+                        .forEach(path -> pending.put(path, System.nanoTime()));
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("[TITAN] Failed to close file watcher", e);
+        }
+        watchService = null;
+        watchedDirs.clear();
+    }
+}
@@ -0,0 +1,363 @@
+package org.collapseloader.atlas.titan.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Background integrity scan over the Titan upload tree.
+ * <p>
+ * Metadata is loaded once into a path index, only files whose size or mtime changed are rehashed on a bounded
+ * worker pool, and results are written back per batch with one JDBC upsert. After every batch the run's start time and
+ * the last processed path are saved as a checkpoint in the temp directory so an interrupted scan picks up where it
+ * stopped; files at or before the checkpoint path are still re-checked when their mtime is not older than that start.
+ * Rows missing from disk are re-read and re-checked right before they are purged, since the index is as old as the
+ * scan.
+ */
+@Component
+public class TitanIntegrityScanner {
+    static final String CHECKPOINT_FILE = ".integrity-checkpoint";
+    private static final Logger log = LoggerFactory.getLogger(TitanIntegrityScanner.class);
+
+    private final TitanFileStorageService storageService;
+    private final FileMetadataService metadataService;
+    private final int batchSize;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong filesTotal = new AtomicLong();
+    private final AtomicLong filesScanned = new AtomicLong();
+    private final AtomicLong filesHashed = new AtomicLong();
+    private final AtomicLong bytesHashed = new AtomicLong();
+    private final AtomicLong lastCompletedEpochSeconds = new AtomicLong();
+
+    public enum Outcome {
+        COMPLETED,
+        ALREADY_RUNNING,
+        FAILED
+    }
+
+    private record Checkpoint(long startedAtMillis, String lastPath) {
+    }
+
+    public TitanIntegrityScanner(TitanFileStorageService storageService,
+                                 FileMetadataService metadataService,
+                                 StorageProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.metadataService = metadataService;
+        this.batchSize = Math.max(1, properties.getIntegrityScanBatchSize());
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("titan-scan"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getIntegrityScanThreads()),
+                namedThreads("titan-hash"));
+
+        Gauge.builder("atlas.titan.scan.running", running, value -> value.get() ? 1 : 0)
+                .description("Whether a Titan integrity scan is currently running")
+                .register(meterRegistry);
+        Gauge.builder("atlas.titan.scan.files.total", filesTotal, AtomicLong::doubleValue)
+                .description("Files discovered by the current or last Titan integrity scan")
+                .register(meterRegistry);
+        Gauge.builder("atlas.titan.scan.files.scanned", filesScanned, AtomicLong::doubleValue)
+                .description("Files processed by the current or last Titan integrity scan")
+                .register(meterRegistry);
+        Gauge.builder("atlas.titan.scan.files.hashed", filesHashed, AtomicLong::doubleValue)
+                .description("Files rehashed by the current or last Titan integrity scan")
+                .register(meterRegistry);
+        Gauge.builder("atlas.titan.scan.bytes.hashed", bytesHashed, AtomicLong::doubleValue)
+                .description("Bytes rehashed by the current or last Titan integrity scan")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("atlas.titan.scan.last.completed.epoch", lastCompletedEpochSeconds, AtomicLong::doubleValue)
+                .description("Unix epoch seconds of the most recent completed Titan integrity scan")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scanAfterStartup() {
+        scanAsync();
+    }
+
+    @Scheduled(cron = "${atlas.storage.integrity-scan-cron:0 0 4 * * *}")
+    public void scheduledScan() {
+        scanAsync();
+    }
+
+    public void scanAsync() {
+        if (running.get()) {
+            log.info("[TITAN] Integrity scan already running, skipping trigger");
+            return;
+        }
+        coordinator.execute(this::scan);
+    }
+
+    public Outcome scan() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("[TITAN] Integrity scan already running, skipping trigger");
+            return Outcome.ALREADY_RUNNING;
+        }
+        try {
+            return runScan() ? Outcome.COMPLETED : Outcome.FAILED;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean runScan() {
+        Path root = storageService.getRootLocation();
+        Path trash = storageService.getTrashLocation();
+        if (root == null) {
+            log.warn("[TITAN] Storage not initialized, integrity scan skipped");
+            return false;
+        }
+
+        long startedAt = System.nanoTime();
+        long startedAtMillis = System.currentTimeMillis();
+        Map<String, FileMetadata> index = metadataService.loadIndex();
+
+        List<String> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(path -> !storageService.isInternalPath(path))
+                    .filter(Files::isRegularFile)
+                    .map(path -> toRelative(root, path))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to walk files for integrity check", e);
+            return false;
+        }
+
+        Path checkpointFile = storageService.getTempLocation().resolve(CHECKPOINT_FILE);
+        Checkpoint checkpoint = readCheckpoint(checkpointFile);
+        if (checkpoint != null) {
+            log.info("[TITAN] Resuming integrity scan after checkpoint: {}", checkpoint.lastPath());
+            startedAtMillis = checkpoint.startedAtMillis();
+        } else {
+            log.info("[TITAN] Starting file integrity verification ({} files, {} indexed)", files.size(),
+                    index.size());
+        }
+
+        filesTotal.set(files.size());
+        filesScanned.set(0);
+        filesHashed.set(0);
+        bytesHashed.set(0);
+
+        for (int from = 0; from < files.size(); from += batchSize) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.warn("[TITAN] Integrity scan interrupted, progress kept at checkpoint");
+                return false;
+            }
+            List<String> batch = files.subList(from, Math.min(files.size(), from + batchSize));
+            if (!processBatch(root, batch, checkpoint, index)) {
+                return false;
+            }
+            writeCheckpoint(checkpointFile, new Checkpoint(startedAtMillis, batch.getLast()));
+        }
+
+        Set<String> present = new HashSet<>(files);
+        List<String> candidates = new ArrayList<>();
+        for (FileMetadata metadata : index.values()) {
+            boolean missing = metadata.isDeleted()
+                    ? !Files.exists(trash.resolve(metadata.getFilePath()).normalize())
+                    : !present.contains(metadata.getFilePath());
+            if (missing) {
+                candidates.add(metadata.getFilePath());
+            }
+        }
+        List<FileMetadata> orphaned = confirmOrphans(root, trash, candidates);
+        metadataService.purgeAll(orphaned);
+
+        clearCheckpoint(checkpointFile);
+        lastCompletedEpochSeconds.set(Instant.now().getEpochSecond());
+        log.info("[TITAN] Integrity check completed in {} ms: {} files, {} rehashed, {} purged",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), files.size(), filesHashed.get(),
+                orphaned.size());
+        return true;
+    }
+
+    /**
+     * Re-checks purge candidates against their current rows and the disk, so a file trashed, restored or re-uploaded
+     * while the scan ran is not purged on the strength of the scan's stale index.
+     */
+    private List<FileMetadata> confirmOrphans(Path root, Path trash, List<String> candidates) {
+        List<FileMetadata> orphaned = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return orphaned;
+        }
+        for (FileMetadata current : metadataService.findAllByFilePaths(candidates).values()) {
+            Path location = (current.isDeleted() ? trash : root).resolve(current.getFilePath()).normalize();
+            if (!Files.exists(location)) {
+                log.warn("[TITAN] {} file missing from disk, purging from DB: {}",
+                        current.isDeleted() ? "Deleted" : "Active", current.getFilePath());
+                orphaned.add(current);
+            }
+        }
+        return orphaned;
+    }
+
+    private boolean processBatch(Path root, List<String> batch, Checkpoint checkpoint,
+                                 Map<String, FileMetadata> index) {
+        List<Future<FileMetadata>> pending = new ArrayList<>();
+        for (String relativePath : batch) {
+            Path path = root.resolve(relativePath);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                log.error("[TITAN] Failed to stat file during integrity check: {}", path, e);
+                filesScanned.incrementAndGet();
+                continue;
+            }
+
+            long size = attrs.size();
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            if (checkpoint != null && relativePath.compareTo(checkpoint.lastPath()) <= 0
+                    && lastModified < checkpoint.startedAtMillis()) {
+                filesScanned.incrementAndGet();
+                continue;
+            }
+            FileMetadata existing = index.get(relativePath);
+            if (existing != null && !existing.isDeleted() && existing.getSize() == size
+                    && existing.getLastModified() == lastModified) {
+                filesScanned.incrementAndGet();
+                continue;
+            }
+
+            pending.add(workers.submit(() -> rehash(path, relativePath, existing, size, lastModified)));
+        }
+
+        List<FileMetadata> updates = new ArrayList<>(pending.size());
+        for (Future<FileMetadata> future : pending) {
+            try {
+                FileMetadata metadata = future.get();
+                if (metadata != null) {
+                    updates.add(metadata);
+                    index.put(metadata.getFilePath(), metadata);
+                }
+            } catch (InterruptedException e) {
+                pending.forEach(task -> task.cancel(true));
+                Thread.currentThread().interrupt();
+                log.warn("[TITAN] Integrity scan interrupted, progress kept at checkpoint");
+                return false;
+            } catch (ExecutionException e) {
+                log.error("[TITAN] Failed to verify file integrity", e.getCause());
+            } finally {
+                filesScanned.incrementAndGet();
+            }
+        }
+
+        metadataService.upsertAll(updates);
+        return true;
+    }
+
+    private FileMetadata rehash(Path path, String relativePath, FileMetadata existing, long size, long lastModified)
+            throws IOException, NoSuchAlgorithmException {
+        log.info(existing == null
+                ? "[TITAN] New file detected, calculating hash: {}"
+                : "[TITAN] File changed or was deleted, recalculating hash: {}", relativePath);
+
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] buffer = new byte[64 * 1024];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                bytesHashed.addAndGet(bytesRead);
+            }
+        }
+        filesHashed.incrementAndGet();
+
+        String md5 = HexFormat.of().formatHex(digest.digest());
+        FileMetadata metadata = existing != null ? existing : new FileMetadata();
+        if (!md5.equals(metadata.getMd5())) {
+            metadata.setBlobHash(null);
+        }
+        metadata.setFilePath(relativePath);
+        metadata.setMd5(md5);
+        metadata.setSize(size);
+        metadata.setLastModified(lastModified);
+        metadata.setDeleted(false);
+        metadata.setDeletedAt(null);
+        return metadata;
+    }
+
+    private String toRelative(Path root, Path path) {
+        return root.relativize(path).toString().replace("\\", "/");
+    }
+
+    private Checkpoint readCheckpoint(Path checkpointFile) {
+        try {
+            if (!Files.exists(checkpointFile)) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(checkpointFile, StandardCharsets.UTF_8);
+            if (lines.size() < 2 || lines.get(1).isBlank()) {
+                log.warn("[TITAN] Ignoring malformed integrity checkpoint, starting from scratch");
+                return null;
+            }
+            return new Checkpoint(Long.parseLong(lines.get(0).trim()), lines.get(1).trim());
+        } catch (IOException | NumberFormatException e) {
+            log.warn("[TITAN] Failed to read integrity checkpoint, starting from scratch", e);
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(Path checkpointFile, Checkpoint checkpoint) {
+        try {
+            Path tmp = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(tmp, checkpoint.startedAtMillis() + "\n" + checkpoint.lastPath(), StandardCharsets.UTF_8);
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("[TITAN] Failed to write integrity checkpoint", e);
+        }
+    }
+
+    private void clearCheckpoint(Path checkpointFile) {
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            log.warn("[TITAN] Failed to clear integrity checkpoint", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+}
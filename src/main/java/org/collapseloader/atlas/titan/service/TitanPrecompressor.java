@@ -0,0 +1,129 @@
+package org.collapseloader.atlas.titan.service;
+
+import lombok.Getter;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Produces gzip sidecars for compressible files at store time so downloads can be served with
+ * {@code Content-Encoding: gzip} without compressing on every request.
+ * <p>
+ * Sidecars are keyed by the MD5 of the original content ({@code <precompress-dir>/<xx>/<md5>.gz}), which makes them
+ * immune to renames and shared between identical files. A sidecar is only kept when it is meaningfully smaller
+ * than the source, and sidecars whose MD5 is no longer known to {@code file_metadata} are collected daily.
+ */
+@Component
+public class TitanPrecompressor {
+    private static final Logger log = LoggerFactory.getLogger(TitanPrecompressor.class);
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final StorageProperties properties;
+    private final FileMetadataService metadataService;
+
+    @Getter
+    private Path location;
+
+    public TitanPrecompressor(StorageProperties properties, FileMetadataService metadataService) {
+        this.properties = properties;
+        this.metadataService = metadataService;
+    }
+
+    public void init(Path rootLocation) throws IOException {
+        this.location = rootLocation.resolve(properties.getPrecompressDir()).normalize();
+        if (properties.isPrecompressEnabled()) {
+            Files.createDirectories(location);
+        }
+    }
+
+    public boolean isCandidate(String filename, long size) {
+        if (!properties.isPrecompressEnabled() || location == null || size < properties.getPrecompressMinBytes()) {
+            return false;
+        }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String extension = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return properties.getPrecompressExtensions().contains(extension);
+    }
+
+    public void precompress(Path file, String md5) {
+        if (md5 == null) {
+            return;
+        }
+        try {
+            long size = Files.size(file);
+            if (!isCandidate(file.getFileName().toString(), size)) {
+                return;
+            }
+            Path sidecar = sidecarPath(md5);
+            if (Files.exists(sidecar)) {
+                return;
+            }
+            Files.createDirectories(sidecar.getParent());
+
+            Path tmp = sidecar.resolveSibling(md5 + GZIP_SUFFIX + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                Files.copy(file, out);
+            }
+            long compressed = Files.size(tmp);
+            if (compressed > size * 9 / 10) {
+                Files.delete(tmp);
+                return;
+            }
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("[TITAN] Precompressed {} ({} -> {} bytes)", file.getFileName(), size, compressed);
+        } catch (IOException e) {
+            log.warn("[TITAN] Failed to precompress {}", file, e);
+        }
+    }
+
+    public Optional<Path> findGzip(String md5) {
+        if (!properties.isPrecompressEnabled() || location == null || md5 == null) {
+            return Optional.empty();
+        }
+        Path sidecar = sidecarPath(md5);
+        return Files.isRegularFile(sidecar) ? Optional.of(sidecar) : Optional.empty();
+    }
+
+    public void collectGarbage() {
+        if (location == null || !Files.isDirectory(location)) {
+            return;
+        }
+        Set<String> known = metadataService.findKnownMd5s();
+        try (Stream<Path> stream = Files.walk(location, 2)) {
+            stream.filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return !name.endsWith(GZIP_SUFFIX)
+                                || !known.contains(name.substring(0, name.length() - GZIP_SUFFIX.length()));
+                    })
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            log.error("[TITAN] Failed to remove stale sidecar: {}", path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to walk precompressed sidecars for garbage collection", e);
+        }
+    }
+
+    private Path sidecarPath(String md5) {
+        return location.resolve(md5.substring(0, 2)).resolve(md5 + GZIP_SUFFIX);
+    }
+}
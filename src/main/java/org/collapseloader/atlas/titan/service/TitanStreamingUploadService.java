@@ -0,0 +1,369 @@
+package org.collapseloader.atlas.titan.service;
+
+import org.collapseloader.atlas.exception.EntityNotFoundException;
+import org.collapseloader.atlas.exception.TitanException;
+import org.collapseloader.atlas.exception.ValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming, resumable upload mode for Titan.
+ * <p>
+ * Each upload preallocates {@code temp/<uploadId>/data.part} and chunks are written straight to their offset
+ * through a {@link FileChannel}, so the request body is read once and never spooled into a multipart temp file or
+ * merged afterwards. Chunks that arrive in order are hashed while they are written; out-of-order chunks are
+ * folded into the digest as soon as the gap before them closes. Accepted chunk indexes are persisted next to the
+ * data file so a client can query which chunks are missing and resume, even across a restart.
+ */
+@Service
+public class TitanStreamingUploadService {
+    private static final Logger log = LoggerFactory.getLogger(TitanStreamingUploadService.class);
+    private static final String DATA_FILE = "data.part";
+    private static final String STATE_FILE = "upload.properties";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_CHUNK_SIZE = 64 * 1024;
+
+    private final TitanFileStorageService storageService;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public TitanStreamingUploadService(TitanFileStorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    public UploadStatus begin(String filename, String subDir, long totalSize, long chunkSize) {
+        if (filename == null || filename.isBlank()) {
+            throw new ValidationException("Filename is required.");
+        }
+        if (totalSize <= 0) {
+            throw new ValidationException("Total size must be positive.");
+        }
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new ValidationException("Chunk size must be at least " + MIN_CHUNK_SIZE + " bytes.");
+        }
+
+        try {
+            storageService.resolveDestination(subDir, filename);
+            String uploadId = UUID.randomUUID().toString();
+            Path dir = storageService.getTempLocation().resolve(uploadId);
+            Files.createDirectories(dir);
+            try (FileChannel channel = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(1), totalSize - 1);
+            }
+
+            UploadSession session = new UploadSession(uploadId, dir, filename, subDir == null ? "" : subDir,
+                    totalSize, chunkSize, storageService.newBlobDigest());
+            session.persist();
+            sessions.put(uploadId, session);
+            log.info("[TITAN] Started streaming upload {} for {} ({} bytes, {} chunks)", uploadId, filename,
+                    totalSize, session.totalChunks);
+            return session.status();
+        } catch (NoSuchAlgorithmException e) {
+            throw new TitanException("Failed to initialize digest algorithm.");
+        } catch (IOException e) {
+            log.error("[TITAN] Failed to start streaming upload for: {}", filename, e);
+            throw new TitanException("Failed to start upload for file: '" + filename + "', " + e);
+        }
+    }
+
+    public UploadStatus status(String uploadId) {
+        return session(uploadId).status();
+    }
+
+    public UploadStatus writeChunk(String uploadId, int chunkIndex, long contentLength, InputStream body) {
+        UploadSession session = session(uploadId);
+        if (chunkIndex < 0 || chunkIndex >= session.totalChunks) {
+            throw new ValidationException("Chunk index out of range: " + chunkIndex);
+        }
+        long offset = chunkIndex * session.chunkSize;
+        long expected = Math.min(session.chunkSize, session.totalSize - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new ValidationException("Chunk " + chunkIndex + " must be " + expected + " bytes.");
+        }
+
+        MessageDigest[] digests = session.claimInlineHash(chunkIndex);
+        try (FileChannel channel = FileChannel.open(session.dataFile(), StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = offset;
+            long remaining = expected;
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                int read = source.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                if (digests != null) {
+                    for (MessageDigest digest : digests) {
+                        if (digest != null) {
+                            digest.update(buffer.duplicate());
+                        }
+                    }
+                }
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                remaining -= read;
+            }
+            if (remaining != 0) {
+                throw new ValidationException("Chunk " + chunkIndex + " is incomplete, expected " + expected
+                        + " bytes.");
+            }
+        } catch (IOException e) {
+            session.releaseInlineHash(chunkIndex);
+            throw new TitanException("Failed to store chunk for uploadId: '" + uploadId + "', chunkIndex: "
+                    + chunkIndex + ", " + e);
+        } catch (RuntimeException e) {
+            session.releaseInlineHash(chunkIndex);
+            throw e;
+        }
+
+        try {
+            session.accept(chunkIndex, digests);
+        } catch (IOException e) {
+            throw new TitanException("Failed to record chunk for uploadId: '" + uploadId + "', chunkIndex: "
+                    + chunkIndex + ", " + e);
+        }
+        return session.status();
+    }
+
+    public TitanFileStorageService.StoredFile complete(String uploadId) {
+        UploadSession session = session(uploadId);
+        synchronized (session) {
+            List<Integer> missing = session.missingChunks();
+            if (!missing.isEmpty()) {
+                throw new TitanException("Missing chunks for uploadId '" + uploadId + "': " + missing);
+            }
+            try {
+                session.catchUpDigests(session.totalChunks);
+                Path destinationFile = storageService.resolveDestination(session.subDir, session.filename);
+                try (FileChannel channel = FileChannel.open(session.dataFile(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(session.dataFile(), destinationFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                discard(session);
+                log.info("[TITAN] Completed streaming upload {} into {}", uploadId, destinationFile);
+                return storageService.finishStore(destinationFile, session.filename, session.md5,
+                        session.blobDigest);
+            } catch (IOException e) {
+                log.error("[TITAN] Failed to complete streaming upload {}", uploadId, e);
+                throw new TitanException("Failed to complete upload for file: '" + session.filename + "', " + e);
+            }
+        }
+    }
+
+    public void abort(String uploadId) {
+        discard(session(uploadId));
+    }
+
+    @Scheduled(cron = "0 30 * * * *")
+    public void evictStaleSessions() {
+        sessions.values().removeIf(session -> !Files.exists(session.dir));
+    }
+
+    private void discard(UploadSession session) {
+        sessions.remove(session.uploadId);
+        try (var walk = Files.walk(session.dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("[TITAN] Failed to clean up upload directory {}", session.dir, e);
+        }
+    }
+
+    private UploadSession session(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ValidationException("Invalid upload id.");
+        }
+        return sessions.computeIfAbsent(uploadId, this::restore);
+    }
+
+    private UploadSession restore(String uploadId) {
+        Path dir = storageService.getTempLocation().resolve(uploadId);
+        Path stateFile = dir.resolve(STATE_FILE);
+        if (!Files.exists(stateFile) || !Files.exists(dir.resolve(DATA_FILE))) {
+            throw new EntityNotFoundException("Upload not found: " + uploadId);
+        }
+        try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            Properties state = new Properties();
+            state.load(reader);
+            UploadSession session = new UploadSession(uploadId, dir,
+                    state.getProperty("filename"),
+                    state.getProperty("subDir", ""),
+                    Long.parseLong(state.getProperty("totalSize")),
+                    Long.parseLong(state.getProperty("chunkSize")),
+                    storageService.newBlobDigest());
+            String received = state.getProperty("received", "");
+            for (String index : received.split(",")) {
+                if (!index.isBlank()) {
+                    session.received.set(Integer.parseInt(index.trim()));
+                }
+            }
+            log.info("[TITAN] Restored streaming upload {} with {} of {} chunks", uploadId,
+                    session.received.cardinality(), session.totalChunks);
+            return session;
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            log.error("[TITAN] Failed to restore streaming upload {}", uploadId, e);
+            throw new EntityNotFoundException("Upload not found: " + uploadId);
+        }
+    }
+
+    public record UploadStatus(String uploadId, String filename, long totalSize, long chunkSize, int totalChunks,
+                               int receivedChunks, List<Integer> missingChunks) {
+    }
+
+    private static final class UploadSession {
+        private final String uploadId;
+        private final Path dir;
+        private final String filename;
+        private final String subDir;
+        private final long totalSize;
+        private final long chunkSize;
+        private final int totalChunks;
+        private final BitSet received = new BitSet();
+        private MessageDigest md5;
+        private MessageDigest blobDigest;
+        private int hashedChunks;
+        private int inlineClaim = -1;
+
+        private UploadSession(String uploadId, Path dir, String filename, String subDir, long totalSize,
+                              long chunkSize, MessageDigest blobDigest) throws NoSuchAlgorithmException {
+            this.uploadId = uploadId;
+            this.dir = dir;
+            this.filename = filename;
+            this.subDir = subDir;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+            this.md5 = MessageDigest.getInstance("MD5");
+            this.blobDigest = blobDigest;
+        }
+
+        private Path dataFile() {
+            return dir.resolve(DATA_FILE);
+        }
+
+        private synchronized MessageDigest[] claimInlineHash(int chunkIndex) {
+            if (chunkIndex != hashedChunks || inlineClaim >= 0 || received.get(chunkIndex)) {
+                return null;
+            }
+            try {
+                MessageDigest[] digests = {(MessageDigest) md5.clone(),
+                        blobDigest != null ? (MessageDigest) blobDigest.clone() : null};
+                inlineClaim = chunkIndex;
+                return digests;
+            } catch (CloneNotSupportedException e) {
+                return null;
+            }
+        }
+
+        private synchronized void releaseInlineHash(int chunkIndex) {
+            if (inlineClaim == chunkIndex) {
+                inlineClaim = -1;
+            }
+        }
+
+        private synchronized void accept(int chunkIndex, MessageDigest[] inlineDigests) throws IOException {
+            boolean wasReceived = received.get(chunkIndex);
+            received.set(chunkIndex);
+            if (inlineClaim == chunkIndex) {
+                inlineClaim = -1;
+                if (inlineDigests != null && hashedChunks == chunkIndex) {
+                    md5 = inlineDigests[0];
+                    blobDigest = inlineDigests[1];
+                    hashedChunks++;
+                }
+            } else if (wasReceived && chunkIndex < hashedChunks) {
+                // A re-sent chunk that was already hashed invalidates the running digest.
+                md5.reset();
+                if (blobDigest != null) {
+                    blobDigest.reset();
+                }
+                hashedChunks = 0;
+            }
+            catchUpDigests(received.nextClearBit(hashedChunks));
+            persist();
+        }
+
+        private synchronized void catchUpDigests(int untilChunk) throws IOException {
+            if (hashedChunks >= untilChunk) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(dataFile(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (hashedChunks < untilChunk) {
+                    long position = hashedChunks * chunkSize;
+                    long end = Math.min(totalSize, position + chunkSize);
+                    while (position < end) {
+                        buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                        int read = channel.read(buffer, position);
+                        if (read < 0) {
+                            throw new IOException("Unexpected end of upload data at " + position);
+                        }
+                        buffer.flip();
+                        md5.update(buffer.duplicate());
+                        if (blobDigest != null) {
+                            blobDigest.update(buffer);
+                        }
+                        position += read;
+                    }
+                    hashedChunks++;
+                }
+            }
+        }
+
+        private synchronized List<Integer> missingChunks() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            return missing;
+        }
+
+        private synchronized UploadStatus status() {
+            return new UploadStatus(uploadId, filename, totalSize, chunkSize, totalChunks, received.cardinality(),
+                    missingChunks());
+        }
+
+        private synchronized void persist() throws IOException {
+            Properties state = new Properties();
+            state.setProperty("filename", filename);
+            state.setProperty("subDir", subDir);
+            state.setProperty("totalSize", String.valueOf(totalSize));
+            state.setProperty("chunkSize", String.valueOf(chunkSize));
+            StringJoiner joiner = new StringJoiner(",");
+            received.stream().forEach(index -> joiner.add(String.valueOf(index)));
+            state.setProperty("received", joiner.toString());
+
+            Path tmp = dir.resolve(STATE_FILE + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                state.store(writer, null);
+            }
+            Files.move(tmp, dir.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.collapseloader.atlas.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheManagerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConcurrentMapCacheManager remote;
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCacheManager();
+        redisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(remote, redisTemplate, objectMapper, meterRegistry,
+                "invalidate", 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void localTierAnswersAfterFirstRemoteHit() {
+        remote.getCache("users").put("alice", "details");
+        Cache cache = cacheManager.getCache("users");
+
+        assertEquals("details", cache.get("alice", String.class));
+        remote.getCache("users").clear();
+        assertEquals("details", cache.get("alice", String.class));
+
+        assertEquals(1.0, meterRegistry.get("atlas.cache.remote.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void evictionClearsBothTiersAndIsPublished() {
+        Cache cache = cacheManager.getCache("clients_list");
+        assertEquals("loaded", cache.get("k", () -> "loaded"));
+        assertEquals("loaded", remote.getCache("clients_list").get("k").get());
+
+        cache.clear();
+
+        assertNull(cache.get("k"));
+        assertNull(remote.getCache("clients_list").get("k"));
+        verify(redisTemplate).convertAndSend(eq("invalidate"), anyString());
+    }
+
+    @Test
+    void remoteInvalidationDropsOnlyTheLocalCopy() throws Exception {
+        Cache cache = cacheManager.getCache("news_list");
+        cache.put("en", "news");
+        remote.getCache("news_list").put("en", "fresh");
+
+        var message = new TwoLevelCacheManager.Invalidation("other-node", "news_list", "en");
+        cacheManager.onMessage(new DefaultMessage("invalidate".getBytes(StandardCharsets.UTF_8),
+                objectMapper.writeValueAsBytes(message)), null);
+
+        assertEquals("fresh", cache.get("en", String.class));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+}
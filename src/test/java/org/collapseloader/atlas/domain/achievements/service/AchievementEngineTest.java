@@ -0,0 +1,110 @@
+package org.collapseloader.atlas.domain.achievements.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.collapseloader.atlas.domain.achievements.entity.Achievement;
+import org.collapseloader.atlas.domain.achievements.repository.AchievementRepository;
+import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
+import org.collapseloader.atlas.domain.achievements.rules.AchievementEvent;
+import org.collapseloader.atlas.domain.achievements.rules.LaunchCountRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AchievementEngineTest {
+    private UserAchievementRepository userAchievementRepository;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private SimpMessagingTemplate messagingTemplate;
+    private AchievementEngine engine;
+
+    private static Achievement achievement(long id, String key) {
+        Achievement achievement = new Achievement(key, "icon", false);
+        ReflectionTestUtils.setField(achievement, "id", id);
+        return achievement;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AchievementRepository achievementRepository = mock(AchievementRepository.class);
+        when(achievementRepository.findAll()).thenReturn(List.of(
+                achievement(1, "FIRST_GAME"), achievement(2, "FREQUENT_FLYER")));
+        userAchievementRepository = mock(UserAchievementRepository.class);
+        when(userAchievementRepository.findAchievementIdsByUserId(7L)).thenReturn(List.of(1L));
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(7L);
+        when(row.getString(2)).thenReturn("alice");
+        doAnswer(inv -> {
+            inv.getArgument(2, RowCallbackHandler.class).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+
+        engine = new AchievementEngine(achievementRepository, userAchievementRepository, jdbcTemplate,
+                messagingTemplate, mock(AchievementStats.class), List.of(new LaunchCountRule()),
+                new SimpleMeterRegistry(), 100, 60, 100, 3);
+    }
+
+    @Test
+    void repeatsAreFilteredInMemoryAndNewUnlocksAreBatched() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1});
+
+        for (int i = 0; i < 5; i++) {
+            engine.publish(new AchievementEvent.LaunchesChanged(7L, 60));
+        }
+        engine.unlock(7L, "FIRST_GAME");
+        engine.flush();
+
+        verify(userAchievementRepository, times(1)).findAchievementIdsByUserId(7L);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(),
+                argThat((SqlParameterSource[] rows) -> rows.length == 1 && rows[0].getValue("achievementId").equals(2L)));
+        verify(messagingTemplate).convertAndSendToUser("alice", "/queue/achievements", Map.of("key", "FREQUENT_FLYER"));
+        verifyNoMoreInteractions(messagingTemplate);
+
+        engine.unlock(7L, "FREQUENT_FLYER");
+        engine.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void unknownKeysAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> engine.unlock(7L, "MISSING"));
+    }
+
+    @Test
+    void failedBatchesAreRetriedAndEventuallyGivenUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(new int[]{1});
+
+        engine.unlock(7L, "FREQUENT_FLYER");
+        engine.flush();
+        verifyNoInteractions(messagingTemplate);
+
+        engine.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+        verify(messagingTemplate).convertAndSendToUser("alice", "/queue/achievements", Map.of("key", "FREQUENT_FLYER"));
+
+        reset(jdbcTemplate);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+                .thenThrow(new IllegalStateException("db down"));
+        when(userAchievementRepository.findAchievementIdsByUserId(8L)).thenReturn(List.of());
+        engine.unlock(8L, "FIRST_GAME");
+        for (int i = 0; i < 5; i++) {
+            engine.flush();
+        }
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+}
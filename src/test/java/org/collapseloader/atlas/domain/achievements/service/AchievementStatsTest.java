@@ -0,0 +1,59 @@
+package org.collapseloader.atlas.domain.achievements.service;
+
+import org.collapseloader.atlas.domain.achievements.repository.UserAchievementRepository;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AchievementStatsTest {
+    private UserAchievementRepository userAchievementRepository;
+    private UserRepository userRepository;
+    private AchievementStats stats;
+
+    @BeforeEach
+    void setUp() {
+        userAchievementRepository = mock(UserAchievementRepository.class);
+        userRepository = mock(UserRepository.class);
+        when(userAchievementRepository.countUnlocksByAchievement())
+                .thenReturn(List.of(new Object[]{1L, 3L}, new Object[]{2L, 1L}));
+        when(userRepository.count()).thenReturn(8L);
+        stats = new AchievementStats(userAchievementRepository, userRepository);
+    }
+
+    @Test
+    void percentagesComeFromOneGroupedLoad() {
+        assertEquals(37.5, stats.percentage(1L));
+        assertEquals(12.5, stats.percentage(2L));
+        assertEquals(0.0, stats.percentage(3L));
+
+        verify(userAchievementRepository, times(1)).countUnlocksByAchievement();
+        verify(userRepository, times(1)).count();
+    }
+
+    @Test
+    void writesApplyOnlyAfterCommit() {
+        stats.percentage(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stats.recordUnlocked(1L);
+            stats.recordUserCreated();
+            assertEquals(37.5, stats.percentage(1L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(44.4, stats.percentage(1L));
+
+        stats.recordUserDeleted(List.of(1L, 2L));
+        assertEquals(37.5, stats.percentage(1L));
+        assertEquals(0.0, stats.percentage(2L));
+    }
+}
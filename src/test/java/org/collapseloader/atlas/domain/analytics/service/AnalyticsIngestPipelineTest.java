@@ -0,0 +1,70 @@
+package org.collapseloader.atlas.domain.analytics.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.collapseloader.atlas.domain.analytics.entity.Platform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsIngestPipelineTest {
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsIngestPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new AnalyticsIngestPipeline(jdbcTemplate, meterRegistry, 3, 500, 60_000);
+    }
+
+    @Test
+    void resolvesClientNamesFromTheLoadedMap() throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(2)).thenReturn("Collapse");
+        when(row.getLong(1)).thenReturn(7L);
+        doAnswer(inv -> {
+            inv.getArgument(1, RowCallbackHandler.class).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        assertEquals(7L, pipeline.resolveClientId("Collapse"));
+        assertNull(pipeline.resolveClientId("Unknown"));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregatesJoinsPerTopDomainAndDropsWhenFull() {
+        pipeline.submitClientLaunch(7L, Platform.LINUX);
+        pipeline.submitServerJoin(" Play.Hypixel.net ");
+        pipeline.submitServerJoin("mc.hypixel.net");
+        pipeline.submitServerJoin("other.example.com");
+
+        assertEquals(3.0, meterRegistry.get("atlas.analytics.ingest.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("atlas.analytics.ingest.dropped").tag("type", "server_join")
+                .counter().count());
+
+        pipeline.flush();
+
+        ArgumentCaptor<List<Object[]>> launches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into analytics_clients"), launches.capture());
+        assertEquals(7L, launches.getValue().getFirst()[0]);
+        assertEquals("LINUX", launches.getValue().getFirst()[2]);
+
+        ArgumentCaptor<List<Object[]>> joins = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into analytics_servers"), joins.capture());
+        assertEquals(1, joins.getValue().size());
+        assertArrayEquals(new Object[]{"hypixel.net", 2L}, joins.getValue().getFirst());
+        assertEquals(0.0, meterRegistry.get("atlas.analytics.ingest.queue.depth").gauge().value());
+    }
+}
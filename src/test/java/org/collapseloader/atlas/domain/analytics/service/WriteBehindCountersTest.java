@@ -0,0 +1,107 @@
+package org.collapseloader.atlas.domain.analytics.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.collapseloader.atlas.domain.analytics.service.WriteBehindCounters.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindCountersTest {
+    private JdbcTemplate jdbcTemplate;
+    private WriteBehindCounters counters;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0))
+                .doInTransaction(null));
+        counters = new WriteBehindCounters(jdbcTemplate, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushesOneBatchPerKindAndKeepsReadsConsistent() {
+        AtomicLong stored = new AtomicLong(10);
+        for (int i = 0; i < 3; i++) {
+            counters.increment(Kind.CLIENT_LAUNCHES, 2L);
+        }
+        counters.increment(Kind.CLIENT_LAUNCHES, 1L);
+        counters.increment(Kind.ANALYTICS, "loader_launches");
+
+        assertEquals(3, counters.unflushed(Kind.CLIENT_LAUNCHES, 2L));
+        assertEquals(4, counters.unflushedTotal(Kind.CLIENT_LAUNCHES));
+        assertEquals(11, counters.value(Kind.ANALYTICS, "loader_launches", stored::get));
+
+        List<Map<Object, Long>> flushed = new ArrayList<>();
+        counters.onFlush(Kind.CLIENT_LAUNCHES, flushed::add);
+        when(jdbcTemplate.batchUpdate(startsWith("insert into analytics_counters"), anyList())).thenAnswer(inv -> {
+            stored.addAndGet(1);
+            return new int[]{1};
+        });
+        counters.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("update clients set launches"), args.capture());
+        assertArrayEquals(new Object[]{1L, 1L}, args.getValue().get(0));
+        assertArrayEquals(new Object[]{3L, 2L}, args.getValue().get(1));
+        assertEquals(List.of(Map.of(1L, 1L, 2L, 3L)), flushed);
+        assertEquals(0, counters.unflushedTotal(Kind.CLIENT_LAUNCHES));
+        assertEquals(11, counters.value(Kind.ANALYTICS, "loader_launches", stored::get));
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForTheNextAttempt() {
+        counters.increment(Kind.CLIENT_DOWNLOADS, 5L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        counters.flush();
+        assertEquals(1, counters.unflushed(Kind.CLIENT_DOWNLOADS, 5L));
+
+        reset(jdbcTemplate);
+        counters.increment(Kind.CLIENT_DOWNLOADS, 5L);
+        counters.flush();
+        verify(jdbcTemplate).batchUpdate(startsWith("update clients set downloads"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.get(0)[0].equals(2L)));
+        assertEquals(0, counters.unflushed(Kind.CLIENT_DOWNLOADS, 5L));
+    }
+
+    @Test
+    void readOnlyValuesPickUpOtherWritersAfterAFlush() {
+        AtomicLong stored = new AtomicLong(10);
+        AtomicLong loads = new AtomicLong();
+        LongSupplier loader = () -> {
+            loads.incrementAndGet();
+            return stored.get();
+        };
+
+        assertEquals(10, counters.value(Kind.ANALYTICS, "loader_launches", loader));
+        stored.set(15);
+        assertEquals(10, counters.value(Kind.ANALYTICS, "loader_launches", loader));
+        assertEquals(1, loads.get());
+
+        counters.flush();
+        assertEquals(15, counters.value(Kind.ANALYTICS, "loader_launches", loader));
+        assertEquals(2, loads.get());
+        verifyNoInteractions(jdbcTemplate);
+
+        counters.increment(Kind.ANALYTICS, "loader_launches");
+        assertEquals(16, counters.value(Kind.ANALYTICS, "loader_launches", loader));
+    }
+}
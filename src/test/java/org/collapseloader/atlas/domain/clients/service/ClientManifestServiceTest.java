@@ -0,0 +1,158 @@
+package org.collapseloader.atlas.domain.clients.service;
+
+import org.collapseloader.atlas.domain.clients.dto.response.ClientManifestResponse;
+import org.collapseloader.atlas.domain.clients.entity.ClientType;
+import org.collapseloader.atlas.domain.clients.entity.fabric.FabricClient;
+import org.collapseloader.atlas.domain.clients.entity.fabric.FabricDependence;
+import org.collapseloader.atlas.domain.clients.entity.manifest.ClientManifestEntry;
+import org.collapseloader.atlas.domain.clients.repository.ClientManifestEntryRepository;
+import org.collapseloader.atlas.domain.clients.repository.ClientRepository;
+import org.collapseloader.atlas.domain.clients.repository.FabricClientRepository;
+import org.collapseloader.atlas.domain.clients.repository.ForgeClientRepository;
+import org.collapseloader.atlas.exception.EntityNotFoundException;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.collapseloader.atlas.titan.service.FileMetadataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ClientManifestServiceTest {
+
+    private final List<ClientManifestEntry> table = new ArrayList<>();
+    private FabricClientRepository fabricClientRepository;
+    private FileMetadataService metadataService;
+    private ClientManifestEntryRepository entryRepository;
+    private PlatformTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+    private ClientManifestService manifestService;
+    private FabricClient client;
+
+    private static FabricDependence dependency(FabricClient client, String name, String md5) {
+        FabricDependence dep = new FabricDependence();
+        dep.setClient(client);
+        dep.setName(name);
+        dep.setMd5Hash(md5);
+        dep.setSize(10);
+        return dep;
+    }
+
+    private static List<String> paths(ClientManifestResponse response) {
+        return response.entries().stream().map(ClientManifestResponse.Entry::path).toList();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        fabricClientRepository = mock(FabricClientRepository.class);
+        ForgeClientRepository forgeClientRepository = mock(ForgeClientRepository.class);
+        entryRepository = mock(ClientManifestEntryRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        metadataService = mock(FileMetadataService.class);
+
+        when(clientRepository.findAllByType(ClientType.VANILLA)).thenReturn(List.of());
+        when(forgeClientRepository.findAllByType(ClientType.FORGE)).thenReturn(List.of());
+        when(entryRepository.findAll()).thenAnswer(inv -> new ArrayList<>(table));
+        when(entryRepository.saveAll(any())).thenAnswer(inv -> {
+            for (ClientManifestEntry entry : (Collection<ClientManifestEntry>) inv.getArgument(0)) {
+                if (!table.contains(entry)) {
+                    table.add(entry);
+                }
+            }
+            return List.copyOf(table);
+        });
+        when(metadataService.findByFilePaths(anyCollection())).thenReturn(Map.of());
+
+        client = new FabricClient();
+        client.setName("Meteor");
+        client.setVersion("1.21.4");
+        client.setFilename("Meteor.jar");
+        client.setMd5Hash("client-md5");
+        client.setSize(100);
+        client.getDependencies().add(dependency(client, "fabric-api", "api-v1"));
+        client.getDependencies().add(dependency(client, "sodium", "sodium-v1"));
+        when(fabricClientRepository.findAllByType(ClientType.FABRIC)).thenReturn(List.of(client));
+
+        manifestService = new ClientManifestService(clientRepository, fabricClientRepository, forgeClientRepository,
+                entryRepository, metadataService, jdbcTemplate, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void revisionIsAllocatedUnderTheAdvisoryLock() {
+        manifestService.refresh();
+
+        InOrder order = inOrder(transactionManager, jdbcTemplate, entryRepository);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(jdbcTemplate).execute(ClientManifestService.REVISION_LOCK_SQL);
+        order.verify(entryRepository).findAll();
+        order.verify(entryRepository).saveAll(any());
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void fullManifestListsClientAndDependencies() {
+        var manifest = manifestService.getManifest(ClientType.FABRIC, "1.21.4", null);
+
+        assertEquals(1, manifest.revision());
+        assertFalse(manifest.delta());
+        assertEquals(List.of("clients/fabric/deps/jars/fabric-api.jar", "clients/fabric/deps/jars/sodium.jar",
+                "clients/fabric/jars/Meteor.jar"), paths(manifest));
+        assertThrows(EntityNotFoundException.class,
+                () -> manifestService.getManifest(ClientType.FABRIC, "1.20.1", null));
+    }
+
+    @Test
+    void deltaReturnsOnlyChangedAndRemovedEntries() {
+        manifestService.refresh();
+        client.getDependencies().getFirst().setMd5Hash("api-v2");
+        client.getDependencies().removeIf(dep -> dep.getName().equals("sodium"));
+        manifestService.refresh();
+
+        var delta = manifestService.getManifest(ClientType.FABRIC, "1.21.4", 1L);
+        assertEquals(2, delta.revision());
+        assertTrue(delta.delta());
+        assertEquals(List.of("clients/fabric/deps/jars/fabric-api.jar"), paths(delta));
+        assertEquals("api-v2", delta.entries().getFirst().md5Hash());
+        assertEquals(List.of("clients/fabric/deps/jars/sodium.jar"), delta.removed());
+
+        var upToDate = manifestService.getManifest(ClientType.FABRIC, "1.21.4", 2L);
+        assertTrue(upToDate.entries().isEmpty());
+        assertTrue(upToDate.removed().isEmpty());
+
+        manifestService.refresh();
+        assertEquals(2, manifestService.getManifest(ClientType.FABRIC, "1.21.4", null).revision());
+    }
+
+    @Test
+    void missingHashesFallBackToFileMetadata() {
+        client.setMd5Hash(null);
+        client.setSize(0);
+        when(metadataService.findByFilePaths(List.of("clients/fabric/jars/Meteor.jar"))).thenReturn(Map.of(
+                "clients/fabric/jars/Meteor.jar",
+                FileMetadata.builder().filePath("clients/fabric/jars/Meteor.jar").md5("from-disk").size(42).build()));
+
+        var manifest = manifestService.getManifest(ClientType.FABRIC, "1.21.4", null);
+
+        var jar = manifest.entries().stream()
+                .filter(entry -> entry.kind().equals(ClientManifestService.KIND_CLIENT))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("from-disk", jar.md5Hash());
+        assertEquals(42, jar.size());
+        verify(fabricClientRepository, times(1)).findAllByType(ClientType.FABRIC);
+    }
+}
@@ -0,0 +1,78 @@
+package org.collapseloader.atlas.domain.irc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The rate limiter as it was before {@link IrcRateLimit}: a deque of {@link Instant}s pruned and streamed on every
+ * check, with the deny message built per call. The state that used to live on {@link IrcSession} is held here
+ * instead. Kept only as the baseline for {@link IrcRateLimitBenchmark}.
+ */
+final class DequeIrcRateLimit {
+    private static final int VIOLATION_THRESHOLD = 5;
+    private static final Duration VIOLATION_RESET = Duration.ofMinutes(2);
+    private static final Duration TEMP_MUTE = Duration.ofMinutes(5);
+
+    private final int messagesPerSecond;
+    private final int messagesPerMinute;
+    private final int burstSize;
+
+    private final Deque<Instant> messageTimestamps = new ArrayDeque<>();
+    private int violationCount;
+    private Instant lastViolationTime;
+    private Instant tempMutedUntil;
+
+    DequeIrcRateLimit(int messagesPerSecond, int messagesPerMinute, int burstSize) {
+        this.messagesPerSecond = messagesPerSecond;
+        this.messagesPerMinute = messagesPerMinute;
+        this.burstSize = burstSize;
+    }
+
+    IrcRateLimit.Result check(Instant now) {
+        if (tempMutedUntil != null && now.isBefore(tempMutedUntil)) {
+            long remaining = Duration.between(now, tempMutedUntil).toSeconds();
+            return IrcRateLimit.Result.deny("You are temporarily muted for " + remaining + " more seconds due to spam.");
+        }
+
+        if (tempMutedUntil != null && now.isAfter(tempMutedUntil)) {
+            tempMutedUntil = null;
+            violationCount = 0;
+        }
+
+        if (lastViolationTime != null && Duration.between(lastViolationTime, now).compareTo(VIOLATION_RESET) > 0) {
+            violationCount = 0;
+        }
+
+        Instant minuteCutoff = now.minusSeconds(60);
+        messageTimestamps.removeIf(instant -> instant.isBefore(minuteCutoff));
+
+        long inSecond = messageTimestamps.stream().filter(ts -> ts.isAfter(now.minusSeconds(1))).count();
+        long inMinute = messageTimestamps.size();
+        long inBurst = messageTimestamps.stream().filter(ts -> ts.isAfter(now.minusSeconds(3))).count();
+
+        if (inSecond >= messagesPerSecond) {
+            return violation(now, "Rate limit: Maximum " + messagesPerSecond + " messages per second. Slow down!");
+        }
+        if (inMinute >= messagesPerMinute) {
+            return violation(now, "Rate limit: Maximum " + messagesPerMinute + " messages per minute. Take a break!");
+        }
+        if (inBurst >= burstSize) {
+            return violation(now, "Rate limit: Maximum " + burstSize + " messages in quick succession. Slow down!");
+        }
+
+        messageTimestamps.addLast(now);
+        return new IrcRateLimit.Result(true, "");
+    }
+
+    private IrcRateLimit.Result violation(Instant now, String message) {
+        violationCount++;
+        lastViolationTime = now;
+        if (violationCount >= VIOLATION_THRESHOLD) {
+            tempMutedUntil = now.plus(TEMP_MUTE);
+            violationCount = 0;
+        }
+        return IrcRateLimit.Result.deny(message);
+    }
+}
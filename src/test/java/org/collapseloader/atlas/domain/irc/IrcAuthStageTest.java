@@ -0,0 +1,85 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IrcAuthStageTest {
+    private IrcAuthService authService;
+    private IrcModerationRegistry moderationRegistry;
+    private SimpleMeterRegistry registry;
+    private IrcAuthStage stage;
+
+    @BeforeEach
+    void setUp() {
+        authService = mock(IrcAuthService.class);
+        moderationRegistry = mock(IrcModerationRegistry.class);
+        IrcSettings settings = mock(IrcSettings.class);
+        when(settings.getAuthThreads()).thenReturn(1);
+        when(settings.getAuthQueueCapacity()).thenReturn(1);
+        registry = new SimpleMeterRegistry();
+        stage = new IrcAuthStage(authService, moderationRegistry, settings, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stage.shutdown();
+    }
+
+    @Test
+    void decisionIsDeliveredThroughCallbackExecutor() throws Exception {
+        when(authService.authenticate("token"))
+                .thenReturn(new IrcAuthService.AuthResult(true, 7L, "alice", "user"));
+        when(moderationRegistry.isUserMuted(7L)).thenReturn(true);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<IrcAuthStage.Decision> result = new AtomicReference<>();
+        AtomicReference<String> callbackThread = new AtomicReference<>();
+        Executor loop = task -> new Thread(task, "fake-event-loop").start();
+
+        assertTrue(stage.submit("token", loop, (decision, error) -> {
+            result.set(decision);
+            callbackThread.set(Thread.currentThread().getName());
+            done.countDown();
+        }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("fake-event-loop", callbackThread.get());
+        assertTrue(result.get().muted());
+        assertFalse(result.get().banned());
+        assertEquals(1, registry.get("atlas.irc.auth.latency").timer().count());
+    }
+
+    @Test
+    void rejectsWhenQueueIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(authService.authenticate(anyString())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new IrcAuthService.AuthResult(false, null, null, null);
+        });
+        Executor direct = Runnable::run;
+
+        assertTrue(stage.submit("a", direct, (d, e) -> {
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(stage.submit("b", direct, (d, e) -> {
+        }));
+        assertEquals(1.0, registry.get("atlas.irc.auth.queue.depth").gauge().value());
+
+        assertFalse(stage.submit("c", direct, (d, e) -> {
+        }));
+        assertEquals(1.0, registry.get("atlas.irc.auth.rejected").counter().count());
+        release.countDown();
+    }
+}
@@ -0,0 +1,282 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs two IRC nodes in one JVM, connected through an in-memory stand-in for Redis pub/sub that delivers every
+ * published message synchronously to all subscribers of the channel. The relays publish on the calling thread.
+ */
+class IrcClusterRelayTest {
+    private static final String CHANNEL = "irc-cluster";
+
+    private final List<MessageListener> subscribers = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    // returns true to swallow a message instead of delivering it to the given subscriber
+    private BiPredicate<MessageListener, String> intercept = (subscriber, body) -> false;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Node(IrcServerState state, IrcClusterRelay relay) {
+    }
+
+    private Node nodeA;
+    private Node nodeB;
+    private EmbeddedChannel alice;
+
+    private Node startNode() {
+        IrcSettings settings = mock(IrcSettings.class);
+        when(settings.getHistoryLimit()).thenReturn(10);
+        when(settings.isClusterEnabled()).thenReturn(true);
+        when(settings.getClusterChannel()).thenReturn(CHANNEL);
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.convertAndSend(anyString(), any())).thenAnswer(inv -> {
+            String body = inv.getArgument(1, String.class);
+            published.add(body);
+            for (MessageListener subscriber : subscribers) {
+                if (!intercept.test(subscriber, body)) {
+                    deliver(subscriber, body);
+                }
+            }
+            return (long) subscribers.size();
+        });
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        doAnswer(inv -> subscribers.add(inv.getArgument(0)))
+                .when(container).addMessageListener(any(MessageListener.class), any(Topic.class));
+        doAnswer(inv -> subscribers.remove(inv.<MessageListener>getArgument(0)))
+                .when(container).removeMessageListener(any(MessageListener.class), any(Topic.class));
+
+        IrcServerState state = new IrcServerState(settings, new IrcPacketCodec(objectMapper));
+        state.setMetrics(mock(IrcMetrics.class));
+        IrcClusterRelay relay = new IrcClusterRelay(state, redisTemplate, container, objectMapper, settings, 5000,
+                Runnable::run);
+        relay.start();
+        return new Node(state, relay);
+    }
+
+    private static void deliver(MessageListener subscriber, String body) {
+        subscriber.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private long publishedOfType(String type) {
+        return published.stream().filter(body -> body.contains("\"type\":\"" + type + "\"")).count();
+    }
+
+    private static EmbeddedChannel connect(Node node, String userId, String name, String role) {
+        return connect(node, userId, name, role, new ArrayList<>());
+    }
+
+    private static EmbeddedChannel connect(Node node, String userId, String name, String role,
+                                           List<IrcPackets.OutgoingPacket> sent) {
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(),
+                new IrcOutboundHandler(16, mock(IrcMetrics.class)));
+        node.state().register(new IrcSession(channel, sent::add, "127.0.0.1", userId, "", "loader", "loader", role,
+                !"guest".equals(role), name, false, false));
+        return channel;
+    }
+
+    private static List<String> drain(EmbeddedChannel channel) {
+        channel.runPendingTasks();
+        List<String> frames = new ArrayList<>();
+        ByteBuf frame;
+        while ((frame = channel.readOutbound()) != null) {
+            frames.add(frame.toString(StandardCharsets.UTF_8));
+            frame.release();
+        }
+        return frames;
+    }
+
+    @BeforeEach
+    void setUp() {
+        nodeA = startNode();
+        alice = connect(nodeA, "1", "alice", "user");
+        nodeB = startNode();
+        drain(alice);
+        published.clear();
+    }
+
+    @Test
+    void lateNodeLearnsExistingSessionsAndListsAreClusterWide() {
+        connect(nodeB, "2", "bob", "user");
+        connect(nodeB, "guest-1", "Guest-1", "guest");
+
+        assertEquals(List.of("alice", "bob", "Guest-1"), nodeA.state().snapshotClusterUsers().stream()
+                .map(IrcSession::getName).sorted(String.CASE_INSENSITIVE_ORDER).toList());
+        assertEquals(3, nodeB.state().snapshotClusterUsers().size());
+        assertArrayEquals(new int[]{1, 1}, nodeA.relay().remoteCounts());
+        assertArrayEquals(new int[]{1, 0}, nodeB.relay().remoteCounts());
+    }
+
+    @Test
+    void broadcastsReachRemoteSessionsAndHistory() {
+        EmbeddedChannel bob = connect(nodeB, "2", "bob", "user");
+
+        nodeA.state().broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("hello").build());
+
+        assertEquals(List.of("{\"type\":\"chat\",\"content\":\"hello\"}\n"), drain(bob));
+        assertEquals(1, nodeB.state().historySnapshot().size());
+    }
+
+    @Test
+    void privateMessagesAreRoutedToTheOwningNode() {
+        List<IrcPackets.OutgoingPacket> bobReceived = new ArrayList<>();
+        connect(nodeB, "2", "bob", "user", bobReceived);
+
+        List<IrcSession> matches = nodeA.state().findClusterMembersByPartialName("bo", 10);
+        assertEquals(1, matches.size());
+        IrcSession target = matches.getFirst();
+        assertNull(target.getChannel());
+        target.setLastPrivatePartner("alice");
+        target.sendPacket(IrcPackets.OutgoingPacket.builder().type("private").content("psst").build());
+
+        assertEquals(List.of("psst"), bobReceived.stream().map(IrcPackets.OutgoingPacket::getContent).toList());
+        assertEquals("alice", nodeB.state().findByUserId("2").getLastPrivatePartner());
+    }
+
+    @Test
+    void roomStateCountsTheWholeCluster() {
+        EmbeddedChannel carol = connect(nodeA, "3", "carol", "user");
+        connect(nodeB, "2", "bob", "user");
+        connect(nodeB, "guest-1", "Guest-1", "guest");
+
+        nodeA.state().broadcastRoomState();
+
+        assertEquals(List.of("{\"type\":\"room_state\",\"room_state\":{\"online_users\":3,\"online_guests\":1}}\n"),
+                drain(carol));
+    }
+
+    @Test
+    void departedSessionsAndNodesLeaveTheDirectory() {
+        EmbeddedChannel bob = connect(nodeB, "2", "bob", "user");
+        nodeB.state().unregister(bob);
+        assertTrue(nodeA.state().findClusterMembersByPartialName("bob", 10).isEmpty());
+
+        connect(nodeB, "4", "dave", "user");
+        assertEquals(1, nodeA.state().findClusterMembersByPartialName("dave", 10).size());
+        nodeB.relay().shutdown();
+        assertTrue(nodeA.state().findClusterMembersByPartialName("dave", 10).isEmpty());
+        assertEquals(1, nodeA.state().snapshotClusterUsers().size());
+    }
+
+    @Test
+    void messagesDeliveredOutOfOrderAreAppliedInPublishOrder() {
+        List<String> held = new ArrayList<>();
+        intercept = (subscriber, body) -> subscriber == nodeA.relay() && held.add(body);
+        EmbeddedChannel bob = connect(nodeB, "2", "bob", "user");
+        nodeB.state().broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("one").build());
+        nodeB.state().broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("two").build());
+        nodeB.state().unregister(bob);
+        intercept = (subscriber, body) -> false;
+
+        for (String body : held.reversed()) {
+            deliver(nodeA.relay(), body);
+        }
+
+        assertEquals(List.of("one", "two"), nodeA.state().historySnapshot().stream()
+                .map(IrcPackets.OutgoingPacket::getContent).toList());
+        assertEquals(List.of("{\"type\":\"chat\",\"content\":\"one\"}\n", "{\"type\":\"chat\",\"content\":\"two\"}\n"),
+                drain(alice));
+        assertTrue(nodeA.state().findClusterMembersByPartialName("bob", 10).isEmpty());
+
+        // a duplicate of an already applied message is dropped
+        deliver(nodeA.relay(), held.getFirst());
+        assertEquals(2, nodeA.state().historySnapshot().size());
+    }
+
+    @Test
+    void churnBetweenHeartbeatsDoesNotResync() {
+        connect(nodeB, "2", "bob", "user");
+        EmbeddedChannel brief = connect(nodeB, "6", "frank", "user");
+        nodeB.relay().heartbeat();
+        nodeB.state().unregister(brief);
+        connect(nodeA, "7", "grace", "user");
+        nodeA.relay().heartbeat();
+        nodeB.relay().heartbeat();
+        nodeA.relay().heartbeat();
+
+        assertEquals(0, publishedOfType("SYNC"));
+        assertEquals(0, publishedOfType("SNAPSHOT"));
+        assertEquals(1, nodeA.state().findClusterMembersByPartialName("bob", 10).size());
+        assertTrue(nodeA.state().findClusterMembersByPartialName("frank", 10).isEmpty());
+    }
+
+    @Test
+    void lostMessagesTriggerResync() {
+        connect(nodeB, "2", "bob", "user");
+        intercept = (subscriber, body) -> subscriber == nodeA.relay() && body.contains("erin");
+        connect(nodeB, "5", "erin", "user");
+        intercept = (subscriber, body) -> false;
+        assertTrue(nodeA.state().findClusterMembersByPartialName("erin", 10).isEmpty());
+
+        // the heartbeat arrives after the gap left by the lost join and waits for it
+        nodeB.relay().heartbeat();
+        nodeA.relay().heartbeat();
+        assertTrue(nodeA.state().findClusterMembersByPartialName("erin", 10).isEmpty());
+
+        // still missing a full tick later: the gap is skipped and a snapshot requested
+        nodeA.relay().heartbeat();
+
+        assertEquals(1, publishedOfType("SYNC"));
+        assertEquals(1, nodeA.state().findClusterMembersByPartialName("erin", 10).size());
+        assertEquals(3, nodeA.state().snapshotClusterUsers().size());
+    }
+
+    @Test
+    void slowRedisDoesNotBlockTheCallerAndKeepsSendOrder() throws Exception {
+        IrcSettings settings = mock(IrcSettings.class);
+        when(settings.getHistoryLimit()).thenReturn(10);
+        when(settings.isClusterEnabled()).thenReturn(true);
+        when(settings.getClusterChannel()).thenReturn(CHANNEL);
+        CountDownLatch redisStalled = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.convertAndSend(anyString(), any())).thenAnswer(inv -> {
+            redisStalled.await(5, TimeUnit.SECONDS);
+            sent.add(inv.getArgument(1, String.class));
+            return 0L;
+        });
+        IrcServerState state = new IrcServerState(settings, new IrcPacketCodec(objectMapper));
+        state.setMetrics(mock(IrcMetrics.class));
+        IrcClusterRelay relay = new IrcClusterRelay(state, redisTemplate, mock(RedisMessageListenerContainer.class),
+                objectMapper, settings, 5000);
+        relay.start();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            relay.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("message " + i).build());
+        }
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(sent.isEmpty());
+
+        redisStalled.countDown();
+        relay.shutdown();
+        List<Long> seqs = new ArrayList<>();
+        for (String body : sent) {
+            seqs.add(objectMapper.readTree(body).get("seq").asLong());
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), seqs);
+    }
+}
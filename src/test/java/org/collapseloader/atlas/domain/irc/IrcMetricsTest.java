@@ -1,5 +1,6 @@
 package org.collapseloader.atlas.domain.irc;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -22,7 +24,7 @@ class IrcMetricsTest {
         registry = new SimpleMeterRegistry();
         IrcSettings settings = mock(IrcSettings.class);
         when(settings.getHistoryLimit()).thenReturn(50);
-        state = new IrcServerState(settings);
+        state = new IrcServerState(settings, new IrcPacketCodec(new ObjectMapper()));
         metrics = new IrcMetrics(registry, state);
     }
 
@@ -44,7 +46,7 @@ class IrcMetricsTest {
     void broadcastInvokesMetricsForChat() {
         MeterRegistry localRegistry = new SimpleMeterRegistry();
         IrcMetrics stubMetrics = mock(IrcMetrics.class);
-        IrcServerState localState = new IrcServerState(mock(IrcSettings.class));
+        IrcServerState localState = new IrcServerState(mock(IrcSettings.class), new IrcPacketCodec(new ObjectMapper()));
         localState.setMetrics(stubMetrics);
         new IrcMetrics(localRegistry, localState);
 
@@ -67,4 +69,23 @@ class IrcMetricsTest {
         DistributionSummary sum = registry.get("atlas.irc.message.length").tag("role", "user").summary();
         assertEquals(7.0, sum.totalAmount());
     }
+
+    @Test
+    void recordTransportMarksOnlyTheActiveTransport() {
+        metrics.recordTransport(IrcTransport.EPOLL);
+
+        assertEquals(1.0, registry.get("atlas.irc.transport").tag("transport", "epoll").gauge().value());
+        assertEquals(0.0, registry.get("atlas.irc.transport").tag("transport", "nio").gauge().value());
+        assertEquals(0.0, registry.get("atlas.irc.transport").tag("transport", "io_uring").gauge().value());
+    }
+
+    @Test
+    void transportSelectionFallsBackToAnAvailableTransport() {
+        assertEquals(IrcTransport.NIO, IrcTransport.select("nio"));
+        assertEquals(IrcTransport.NIO, IrcTransport.select("NIO"));
+        assertTrue(IrcTransport.select("io-uring").isAvailable());
+        assertTrue(IrcTransport.select("epoll").isAvailable());
+        assertTrue(IrcTransport.select("bogus").isAvailable());
+        assertTrue(IrcTransport.select(null).isAvailable());
+    }
 }
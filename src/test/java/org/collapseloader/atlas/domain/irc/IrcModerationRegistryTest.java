@@ -0,0 +1,145 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.collapseloader.atlas.domain.irc.entity.IrcIpRestriction;
+import org.collapseloader.atlas.domain.irc.repository.IrcBanRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcIpRestrictionRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcMuteRepository;
+import org.collapseloader.atlas.domain.irc.repository.IrcRestrictionView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IrcModerationRegistryTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StringRedisTemplate redisTemplate;
+    private IrcModerationRegistry registry;
+
+    private static IrcRestrictionView view(long userId, Instant expiresAt) {
+        return new IrcRestrictionView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Instant getExpiresAt() {
+                return expiresAt;
+            }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        IrcBanRepository banRepository = mock(IrcBanRepository.class);
+        IrcMuteRepository muteRepository = mock(IrcMuteRepository.class);
+        IrcIpRestrictionRepository ipRepository = mock(IrcIpRestrictionRepository.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        IrcSettings settings = mock(IrcSettings.class);
+        when(settings.getModerationChannel()).thenReturn("irc-moderation");
+
+        when(banRepository.findAllRestrictions()).thenReturn(List.of(view(1L, null)));
+        when(muteRepository.findAllRestrictions()).thenReturn(List.of(view(2L, Instant.now().plusSeconds(3600))));
+        when(ipRepository.findAll()).thenReturn(List.of(IrcIpRestriction.builder()
+                .ip("10.0.0.1").kind(IrcIpRestriction.Kind.BAN).reason("test").build()));
+
+        registry = new IrcModerationRegistry(banRepository, muteRepository, ipRepository, redisTemplate,
+                mock(RedisMessageListenerContainer.class), objectMapper, settings);
+        registry.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void loadsPersistedRestrictionsAndAppliesLocalChanges() {
+        assertTrue(registry.isUserBanned(1L));
+        assertTrue(registry.isUserMuted(2L));
+        assertTrue(registry.isIpBanned("10.0.0.1"));
+        assertFalse(registry.isIpMuted("10.0.0.1"));
+
+        registry.apply(IrcModerationRegistry.Kind.USER_BAN, "1", false, null);
+        registry.apply(IrcModerationRegistry.Kind.IP_MUTE, "10.0.0.2", true, null);
+
+        assertFalse(registry.isUserBanned(1L));
+        assertTrue(registry.isIpMuted("10.0.0.2"));
+        verify(redisTemplate, times(2)).convertAndSend(eq("irc-moderation"), anyString());
+    }
+
+    @Test
+    void changesInsideATransactionWaitForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.apply(IrcModerationRegistry.Kind.IP_BAN, "10.0.0.3", true, null);
+            assertFalse(registry.isIpBanned("10.0.0.3"));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(registry.isIpBanned("10.0.0.3"));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.apply(IrcModerationRegistry.Kind.IP_BAN, "10.0.0.3", true, null);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(registry.isIpBanned("10.0.0.3"));
+        verify(redisTemplate).convertAndSend(eq("irc-moderation"), anyString());
+    }
+
+    @Test
+    void remoteChangesAreAppliedAndOwnEchoesIgnored() throws Exception {
+        List<IrcModerationRegistry.Change> seen = new CopyOnWriteArrayList<>();
+        registry.addListener(seen::add);
+
+        var remote = new IrcModerationRegistry.Change("other-node", IrcModerationRegistry.Kind.USER_MUTE, "5",
+                true, null, false);
+        registry.onMessage(new DefaultMessage("irc-moderation".getBytes(StandardCharsets.UTF_8),
+                objectMapper.writeValueAsBytes(remote)), null);
+
+        assertTrue(registry.isUserMuted(5L));
+        assertEquals(List.of(remote), seen);
+    }
+
+    @Test
+    void timedRestrictionsExpireThroughTheTimer() throws Exception {
+        CountDownLatch expired = new CountDownLatch(1);
+        registry.addListener(change -> {
+            if (change.expired() && change.target().equals("9")) {
+                expired.countDown();
+            }
+        });
+
+        registry.apply(IrcModerationRegistry.Kind.USER_BAN, "9", true, Instant.now().plusMillis(100));
+        assertTrue(registry.isUserBanned(9L));
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        assertFalse(registry.isUserBanned(9L));
+        assertTrue(registry.isUserBanned(1L));
+    }
+}
@@ -0,0 +1,101 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IrcOutboundHandlerTest {
+    private MeterRegistry registry;
+    private IrcOutboundHandler handler;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        IrcMetrics metrics = new IrcMetrics(registry, mock(IrcServerState.class));
+        handler = new IrcOutboundHandler(2, metrics);
+        channel = new EmbeddedChannel(handler);
+    }
+
+    private static ByteBuf frame(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+    }
+
+    private void setWritable(boolean writable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        channel.runPendingTasks();
+    }
+
+    private String readOutbound() {
+        ByteBuf buf = channel.readOutbound();
+        try {
+            return buf.toString(StandardCharsets.UTF_8);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private double actions(String action) {
+        return registry.get("atlas.irc.slow_consumer.actions").tag("action", action).counter().count();
+    }
+
+    @Test
+    void writableChannelPassesEverythingThrough() {
+        channel.writeAndFlush(frame("live"));
+        channel.writeAndFlush(new IrcOutboundHandler.DroppableFrame(IrcOutboundHandler.Kind.HISTORY, frame("history")));
+
+        assertEquals("live", readOutbound());
+        assertEquals("history", readOutbound());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void backloggedChannelDropsOptionalFramesAndQueuesTheRestInOrder() {
+        setWritable(false);
+        ByteBuf history = frame("history");
+        ByteBuf roomState = frame("room");
+        channel.writeAndFlush(frame("first"));
+        channel.writeAndFlush(new IrcOutboundHandler.DroppableFrame(IrcOutboundHandler.Kind.HISTORY, history));
+        channel.writeAndFlush(new IrcOutboundHandler.DroppableFrame(IrcOutboundHandler.Kind.ROOM_STATE, roomState));
+        channel.writeAndFlush(frame("second"));
+
+        assertNull(channel.readOutbound());
+        assertEquals(2, handler.queued());
+        assertEquals(0, history.refCnt());
+        assertEquals(0, roomState.refCnt());
+        assertEquals(1.0, actions("drop_history"));
+        assertEquals(1.0, actions("drop_room_state"));
+
+        setWritable(true);
+        assertEquals("first", readOutbound());
+        assertEquals("second", readOutbound());
+        assertEquals(0, handler.queued());
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    void queueOverflowDisconnectsAndReleasesBufferedFrames() {
+        setWritable(false);
+        ByteBuf first = frame("1");
+        ByteBuf second = frame("2");
+        ByteBuf third = frame("3");
+        channel.writeAndFlush(first);
+        channel.writeAndFlush(second);
+        channel.writeAndFlush(third);
+
+        assertFalse(channel.isOpen());
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertEquals(0, third.refCnt());
+        assertEquals(1.0, actions("disconnect"));
+    }
+}
@@ -0,0 +1,62 @@
+package org.collapseloader.atlas.domain.irc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the ring-buffer {@link IrcRateLimit} against the {@link DequeIrcRateLimit} it replaced, using the
+ * default user limits (2/s, 60/min, burst of 3). Both limiters see the same simulated clock: {@code stepMillis=50} is
+ * a spammer that ends up temp-muted, {@code stepMillis=1500} is a steady chatter whose minute window stays full of
+ * accepted messages. Skipped unless explicitly requested:
+ * <pre>
+ * mvn test -Dtest=IrcRateLimitBenchmark -Dirc.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "irc.benchmark", matches = "true")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrcRateLimitBenchmark {
+    @Param({"50", "1500"})
+    public long stepMillis;
+
+    private IrcRateLimit ring;
+    private DequeIrcRateLimit deque;
+    private long step;
+    private long ringClock;
+    private long dequeClock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ring = new IrcRateLimit(new IrcRateLimit.Limits(2, 60, 3, 5, 120, 300));
+        deque = new DequeIrcRateLimit(2, 60, 3);
+        step = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+    }
+
+    @Benchmark
+    public IrcRateLimit.Result ring() {
+        ringClock += step;
+        return ring.check(ringClock);
+    }
+
+    @Benchmark
+    public IrcRateLimit.Result deque() {
+        dequeClock += step;
+        return deque.check(Instant.ofEpochSecond(0, dequeClock));
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(IrcRateLimitBenchmark.class.getName()).build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package org.collapseloader.atlas.domain.irc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IrcRateLimitTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long START = 1_000_000 * MS;
+
+    private static IrcRateLimit limiter(int perSecond, int perMinute, int burst) {
+        return new IrcRateLimit(new IrcRateLimit.Limits(perSecond, perMinute, burst, 5, 120, 300));
+    }
+
+    @Test
+    void enforcesPerSecondAndBurstWindows() {
+        IrcRateLimit limit = limiter(2, 60, 3);
+
+        assertTrue(limit.check(START).allowed());
+        assertTrue(limit.check(START + 100 * MS).allowed());
+        IrcRateLimit.Result denied = limit.check(START + 200 * MS);
+        assertFalse(denied.allowed());
+        assertTrue(denied.message().contains("per second"));
+
+        assertTrue(limit.check(START + 1_100 * MS).allowed());
+        IrcRateLimit.Result burst = limit.check(START + 2_500 * MS);
+        assertFalse(burst.allowed());
+        assertTrue(burst.message().contains("quick succession"));
+
+        assertTrue(limit.check(START + 3_200 * MS).allowed());
+    }
+
+    @Test
+    void enforcesPerMinuteWindowAcrossRingWrapAround() {
+        IrcRateLimit limit = limiter(10, 4, 10);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.check(START + i * 5_000 * MS).allowed());
+        }
+        assertFalse(limit.check(START + 30_000 * MS).allowed());
+        assertTrue(limit.check(START + 60_001 * MS).allowed());
+        assertTrue(limit.status(START + 60_002 * MS).contains("Last minute: 4/4"));
+    }
+
+    @Test
+    void repeatedViolationsTriggerTemporaryMute() {
+        IrcRateLimit limit = limiter(1, 60, 2);
+        assertTrue(limit.check(START).allowed());
+        for (int i = 1; i <= 5; i++) {
+            assertFalse(limit.check(START + i * MS).allowed());
+        }
+
+        IrcRateLimit.Result muted = limit.check(START + 10_000 * MS);
+        assertFalse(muted.allowed());
+        assertTrue(muted.message().startsWith("You are temporarily muted"));
+        assertSame(muted, limit.check(START + 10_004 * MS));
+        assertTrue(limit.status(START + 10_000 * MS).contains("Temporarily muted for"));
+
+        assertTrue(limit.check(START + 301_000 * MS).allowed());
+        assertTrue(limit.status(START + 301_000 * MS).contains("Violations: 0/5"));
+    }
+
+    @Test
+    void settingsShareOneLimitsPerRole() {
+        IrcSettings settings = new IrcSettings();
+        assertSame(settings.rateLimitFor("guest"), settings.rateLimitFor("Guest"));
+        assertSame(settings.rateLimitFor("user"), settings.rateLimitFor("admin"));
+        assertNotSame(settings.rateLimitFor("guest"), settings.rateLimitFor("user"));
+    }
+}
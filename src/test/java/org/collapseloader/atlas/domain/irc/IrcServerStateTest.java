@@ -0,0 +1,146 @@
+package org.collapseloader.atlas.domain.irc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IrcServerStateTest {
+    private IrcServerState state;
+
+    private static IrcSession session(EmbeddedChannel channel, String name) {
+        return new IrcSession(channel, p -> {
+        }, "127.0.0.1", name, "", "loader", "loader", "user", true, name, false, false);
+    }
+
+    private static String readFrame(EmbeddedChannel channel) {
+        ByteBuf frame = channel.readOutbound();
+        assertNotNull(frame);
+        try {
+            return frame.toString(StandardCharsets.UTF_8);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static EmbeddedChannel replayChannel() {
+        return new EmbeddedChannel(new IrcOutboundHandler(16, mock(IrcMetrics.class)));
+    }
+
+    @BeforeEach
+    void setUp() {
+        IrcSettings settings = mock(IrcSettings.class);
+        when(settings.getHistoryLimit()).thenReturn(2);
+        state = new IrcServerState(settings, new IrcPacketCodec(new ObjectMapper()));
+        state.setMetrics(mock(IrcMetrics.class));
+    }
+
+    @Test
+    void broadcastSharesOneEncodedFrameAcrossChannels() {
+        EmbeddedChannel first = new EmbeddedChannel();
+        EmbeddedChannel second = new EmbeddedChannel();
+        state.register(session(first, "alice"));
+        state.register(session(second, "bob"));
+
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("hi").build());
+        first.runPendingTasks();
+        second.runPendingTasks();
+
+        ByteBuf a = first.readOutbound();
+        ByteBuf b = second.readOutbound();
+        try {
+            assertEquals("{\"type\":\"chat\",\"content\":\"hi\"}\n", a.toString(StandardCharsets.UTF_8));
+            assertSame(a.unwrap(), b.unwrap());
+        } finally {
+            a.release();
+            b.release();
+        }
+        assertEquals(0, a.unwrap().refCnt());
+    }
+
+    @Test
+    void historyIsReplayedAsPreEncodedFrames() {
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("one").build());
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("two").build());
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("three").build());
+
+        EmbeddedChannel channel = replayChannel();
+        state.writeHistory(channel);
+
+        assertEquals("{\"type\":\"chat\",\"content\":\"two\",\"history\":true}\n"
+                + "{\"type\":\"chat\",\"content\":\"three\",\"history\":true}\n", readFrame(channel));
+        assertEquals(2, state.historySnapshot().size());
+    }
+
+    @Test
+    void replaysShareOneSnapshotUntilHistoryChanges() {
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("one").build());
+
+        EmbeddedChannel first = replayChannel();
+        EmbeddedChannel second = replayChannel();
+        state.writeHistory(first);
+        state.writeHistory(second);
+        ByteBuf a = first.readOutbound();
+        ByteBuf b = second.readOutbound();
+        assertSame(a.unwrap(), b.unwrap());
+
+        state.broadcast(IrcPackets.OutgoingPacket.builder().type("chat").content("two").build());
+        EmbeddedChannel third = replayChannel();
+        state.writeHistory(third);
+        ByteBuf c = third.readOutbound();
+        try {
+            assertNotSame(a.unwrap(), c.unwrap());
+            assertEquals("{\"type\":\"chat\",\"content\":\"one\",\"history\":true}\n"
+                    + "{\"type\":\"chat\",\"content\":\"two\",\"history\":true}\n", c.toString(StandardCharsets.UTF_8));
+        } finally {
+            a.release();
+            b.release();
+            c.release();
+        }
+        assertEquals(0, a.unwrap().refCnt());
+    }
+
+    @Test
+    void emptyHistoryWritesNothing() {
+        EmbeddedChannel channel = replayChannel();
+        state.writeHistory(channel);
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void nameAndUserIdIndexesFollowRegistrations() {
+        EmbeddedChannel alice = new EmbeddedChannel();
+        EmbeddedChannel aliceGame = new EmbeddedChannel();
+        EmbeddedChannel alfred = new EmbeddedChannel();
+        EmbeddedChannel bob = new EmbeddedChannel();
+        state.register(new IrcSession(alice, p -> {
+        }, "127.0.0.1", "1", "", "loader", "loader", "user", true, "Alice", false, false));
+        state.register(new IrcSession(aliceGame, p -> {
+        }, "127.0.0.1", "1", "", "client", "client", "user", true, "Alice", false, false));
+        state.register(session(alfred, "Alfred"));
+        state.register(session(bob, "bob"));
+
+        assertEquals(2, state.findAllByUserId("1").size());
+        assertEquals("Alfred", state.findByUserId("Alfred").getName());
+        assertEquals(1, state.findAllByPartialName("ALICE").size());
+        assertEquals(List.of("Alfred", "Alice", "Alice"),
+                state.findAllByPartialName("al").stream().map(IrcSession::getName).toList());
+        assertEquals(1, state.findAllByPartialName("al", 1).size());
+        assertTrue(state.findAllByPartialName("c").isEmpty());
+
+        state.unregister(alice);
+        assertEquals(List.of(aliceGame), state.findAllByUserId("1").stream().map(IrcSession::getChannel).toList());
+        state.unregister(aliceGame);
+        assertNull(state.findByUserId("1"));
+        assertEquals(List.of("Alfred"), state.findAllByPartialName("al").stream().map(IrcSession::getName).toList());
+        assertEquals(2, state.sessionCount());
+    }
+}
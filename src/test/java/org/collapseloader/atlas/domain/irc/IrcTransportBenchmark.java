@@ -0,0 +1,160 @@
+package org.collapseloader.atlas.domain.irc;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares connection setup rate and broadcast throughput of the available {@link IrcTransport}s over loopback,
+ * using the same event loop and channel types as {@link IrcNettyServer}. Skipped unless explicitly requested:
+ * <pre>
+ * mvn test -Dtest=IrcTransportBenchmark -Dirc.benchmark=true [-Dirc.benchmark.clients=500 -Dirc.benchmark.messages=2000]
+ * </pre>
+ * Each transport gets a warm-up round before the measured one; results are printed to stdout.
+ */
+@EnabledIfSystemProperty(named = "irc.benchmark", matches = "true")
+class IrcTransportBenchmark {
+    private static final int CLIENTS = Integer.getInteger("irc.benchmark.clients", 500);
+    private static final int MESSAGES = Integer.getInteger("irc.benchmark.messages", 2000);
+    private static final byte[] LINE = ("{\"type\":\"chat\",\"content\":\"" + "x".repeat(96) + "\"}\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // surefire runs with -ea, and Netty's io_uring write path trips one of its own internal assertions
+        IrcTransportBenchmark.class.getClassLoader().setPackageAssertionStatus("io.netty", false);
+    }
+
+    private record Result(double connectsPerSecond, double deliveriesPerSecond) {
+    }
+
+    @ChannelHandler.Sharable
+    private static final class Accepting extends ChannelInboundHandlerAdapter {
+        private final ChannelGroup channels;
+        private final CountDownLatch accepted;
+
+        Accepting(ChannelGroup channels, CountDownLatch accepted) {
+            this.channels = channels;
+            this.accepted = accepted;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            channels.add(ctx.channel());
+            accepted.countDown();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class Receiving extends ChannelInboundHandlerAdapter {
+        private final AtomicLong received;
+        private final long expectedBytes;
+        private final CountDownLatch delivered;
+
+        Receiving(AtomicLong received, long expectedBytes, CountDownLatch delivered) {
+            this.received = received;
+            this.expectedBytes = expectedBytes;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (received.addAndGet(buf.readableBytes()) >= expectedBytes) {
+                delivered.countDown();
+            }
+            buf.release();
+        }
+    }
+
+    @Test
+    void compareTransports() throws Exception {
+        for (IrcTransport transport : IrcTransport.values()) {
+            if (!transport.isAvailable()) {
+                System.out.printf("%-9s unavailable%n", transport.id());
+                continue;
+            }
+            Result result;
+            try {
+                run(transport);
+                result = run(transport);
+            } catch (Exception | AssertionError e) {
+                System.out.printf("%-9s failed: %s%n", transport.id(), e);
+                continue;
+            }
+            System.out.printf("%-9s connects/s=%,10.0f  deliveries/s=%,12.0f  (%d clients, %d broadcasts)%n",
+                    transport.id(), result.connectsPerSecond(), result.deliveriesPerSecond(), CLIENTS, MESSAGES);
+        }
+    }
+
+    private Result run(IrcTransport transport) throws Exception {
+        EventLoopGroup boss = transport.newEventLoopGroup(1);
+        EventLoopGroup workers = transport.newEventLoopGroup(0);
+        EventLoopGroup clientGroup = transport.newEventLoopGroup(0);
+        ChannelGroup serverSide = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        AtomicLong received = new AtomicLong();
+        long expectedBytes = (long) CLIENTS * MESSAGES * LINE.length;
+        CountDownLatch delivered = new CountDownLatch(1);
+        CountDownLatch accepted = new CountDownLatch(CLIENTS);
+
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverChannelClass())
+                    .option(ChannelOption.SO_BACKLOG, 8192)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new Accepting(serverSide, accepted))
+                    .bind("127.0.0.1", 0).sync().channel();
+            int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+            Bootstrap client = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(transport.socketChannelClass())
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new Receiving(received, expectedBytes, delivered));
+
+            List<Channel> clients = new ArrayList<>(CLIENTS);
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(client.connect("127.0.0.1", port).sync().channel());
+            }
+            assertTrue(accepted.await(30, TimeUnit.SECONDS), "server did not accept every client");
+            long connectNanos = System.nanoTime() - connectStart;
+
+            ByteBuf line = Unpooled.unreleasableBuffer(Unpooled.directBuffer(LINE.length).writeBytes(LINE));
+            long broadcastStart = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                serverSide.writeAndFlush(line.duplicate());
+            }
+            assertTrue(delivered.await(120, TimeUnit.SECONDS), "broadcasts were not fully delivered");
+            long broadcastNanos = System.nanoTime() - broadcastStart;
+
+            clients.forEach(c -> c.close().syncUninterruptibly());
+            serverSide.close().syncUninterruptibly();
+            server.close().sync();
+            return new Result(
+                    CLIENTS / (connectNanos / 1e9),
+                    (double) CLIENTS * MESSAGES / (broadcastNanos / 1e9));
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+}
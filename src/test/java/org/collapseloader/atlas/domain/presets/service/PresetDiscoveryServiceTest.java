@@ -0,0 +1,93 @@
+package org.collapseloader.atlas.domain.presets.service;
+
+import org.collapseloader.atlas.domain.presets.service.PresetDiscoveryService.SortKey;
+import org.collapseloader.atlas.exception.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PresetDiscoveryServiceTest {
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private PresetDiscoveryService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        service = new PresetDiscoveryService(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void returnRows(long... idsAndLikes) {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class))).thenAnswer(inv -> {
+            RowMapper<Object> mapper = inv.getArgument(2);
+            List<Object> rows = new ArrayList<>();
+            for (int i = 0; i < idsAndLikes.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(idsAndLikes[i]);
+                when(rs.getLong(2)).thenReturn(idsAndLikes[i + 1]);
+                rows.add(mapper.mapRow(rs, i / 2));
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nextPageContinuesAfterTheLastRowOfThePreviousOne() {
+        returnRows(9, 40, 7, 40, 3, 12);
+        var first = service.findPage(null, null, null, SortKey.LIKES, null, 2);
+
+        assertEquals(List.of(9L, 7L), first.ids());
+        assertNotNull(first.nextCursor());
+
+        returnRows(3, 12);
+        var second = service.findPage(null, null, null, SortKey.LIKES, first.nextCursor(), 2);
+        assertEquals(List.of(3L), second.ids());
+        assertNull(second.nextCursor());
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        var params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate, times(2)).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertTrue(sql.getValue().contains("(p.likes_count, p.id) < (:afterValue, :afterId)"));
+        assertTrue(sql.getValue().contains("order by p.likes_count desc, p.id desc"));
+        assertEquals(40L, params.getValue().getValue("afterValue"));
+        assertEquals(7L, params.getValue().getValue("afterId"));
+        assertEquals(3, params.getValue().getValue("limit"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchEscapesLikeWildcards() {
+        returnRows();
+        service.findPage(5L, null, " 100%_dark ", SortKey.NEWEST, null, 10);
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        var params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertTrue(sql.getValue().contains("(p.is_public = true or p.owner_id = :viewerId) and p.name ilike :pattern"));
+        assertEquals("%100\\%\\_dark%", params.getValue().getValue("pattern"));
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        returnRows(9, 40, 7, 40, 3, 12);
+        String cursor = service.findPage(null, null, null, SortKey.LIKES, null, 2).nextCursor();
+
+        assertThrows(ValidationException.class,
+                () -> service.findPage(null, null, null, SortKey.DOWNLOADS, cursor, 2));
+        assertThrows(ValidationException.class,
+                () -> service.findPage(null, null, null, SortKey.LIKES, "not a cursor", 2));
+    }
+}
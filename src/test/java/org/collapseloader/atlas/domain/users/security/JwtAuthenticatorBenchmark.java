@@ -0,0 +1,80 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import org.collapseloader.atlas.domain.users.entity.Role;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
+import org.collapseloader.atlas.domain.users.service.JwtService;
+import org.collapseloader.atlas.domain.users.service.TokenBlacklistService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * JMH comparison of per-request bearer token authentication: {@link JwtAuthenticator} against the
+ * {@link LegacyJwtAuthentication} path it replaced, for a user sending repeated requests with the same token.
+ * User lookups are in-memory on both sides, so the scores only show the CPU cost; in production the old path also
+ * paid a Redis cache lookup and a database query per request. Skipped unless explicitly requested:
+ * <pre>
+ * mvn test -Dtest=JwtAuthenticatorBenchmark -Dauth.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "auth.benchmark", matches = "true")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticatorBenchmark {
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs256";
+
+    private JwtAuthenticator authenticator;
+    private LegacyJwtAuthentication legacy;
+    private String token;
+
+    private static User alice() {
+        return User.builder().id(1L).username("alice").password("x").role(Role.USER).build();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheTtlSeconds", 300L);
+        jwtService.afterPropertiesSet();
+
+        TokenBlacklistService blacklist = mock(TokenBlacklistService.class, withSettings().stubOnly());
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findAllByUsernameIgnoreCase("alice")).thenAnswer(invocation -> List.of(alice()));
+
+        authenticator = new JwtAuthenticator(jwtService, blacklist, userRepository, 10_000, 30);
+        legacy = new LegacyJwtAuthentication(SECRET, blacklist, name -> List.of(alice()));
+        token = jwtService.generateAccessToken(alice());
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken authenticator() {
+        return authenticator.authenticate(token);
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken legacy() {
+        return legacy.authenticate(token);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticatorBenchmark.class.getName()).build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import org.collapseloader.atlas.domain.users.entity.Role;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.repository.UserRepository;
+import org.collapseloader.atlas.domain.users.service.JwtService;
+import org.collapseloader.atlas.domain.users.service.TokenBlacklistService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticatorTest {
+    private JwtService jwtService;
+    private TokenBlacklistService blacklist;
+    private UserRepository userRepository;
+    private JwtAuthenticator authenticator;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", "unit-test-secret-that-is-long-enough-for-hs256");
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheTtlSeconds", 60L);
+        jwtService.afterPropertiesSet();
+
+        blacklist = mock(TokenBlacklistService.class);
+        userRepository = mock(UserRepository.class);
+        alice = User.builder().id(1L).username("alice").password("x").role(Role.USER).build();
+        when(userRepository.findAllByUsernameIgnoreCase("alice")).thenReturn(List.of(alice));
+
+        authenticator = new JwtAuthenticator(jwtService, blacklist, userRepository, 100, 60);
+    }
+
+    @Test
+    void authenticatesFromCachedClaimsAndPrincipal() {
+        String token = jwtService.generateAccessToken(alice);
+
+        var first = authenticator.authenticate(token);
+        var second = authenticator.authenticate(token);
+
+        assertNotNull(first);
+        User principal = (User) first.getPrincipal();
+        assertNotSame(alice, principal);
+        assertNotSame(principal, second.getPrincipal());
+        assertEquals(1L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals(Role.USER, principal.getRole());
+        assertNull(principal.getPassword());
+        assertEquals(alice.getAuthorities(), List.copyOf(second.getAuthorities()));
+        verify(userRepository, times(1)).findAllByUsernameIgnoreCase("alice");
+        verify(blacklist, times(2)).isBlacklisted(token);
+    }
+
+    @Test
+    void cachedSnapshotIsNotAffectedByChangesToTheEntity() {
+        String token = jwtService.generateAccessToken(alice);
+        authenticator.authenticate(token);
+
+        ((User) authenticator.authenticate(token).getPrincipal()).setRole(Role.ADMIN);
+        alice.setRole(Role.ADMIN);
+
+        var next = authenticator.authenticate(token);
+        assertEquals(Role.USER, ((User) next.getPrincipal()).getRole());
+        assertEquals(List.of(Role.USER), List.copyOf(next.getAuthorities()));
+    }
+
+    @Test
+    void updatingTheUserEvictsItsSnapshot() {
+        String token = jwtService.generateAccessToken(alice);
+        authenticator.authenticate(token);
+
+        User promoted = User.builder().id(1L).username("alice").password("x").role(Role.ADMIN).build();
+        when(userRepository.findAllByUsernameIgnoreCase("alice")).thenReturn(List.of(promoted));
+        new PrincipalCacheListener(new StaticListableBeanFactory(Map.of("authenticator", authenticator))
+                .getBeanProvider(JwtAuthenticator.class)).onChange(promoted);
+
+        var next = authenticator.authenticate(token);
+        assertEquals(Role.ADMIN, ((User) next.getPrincipal()).getRole());
+        verify(userRepository, times(2)).findAllByUsernameIgnoreCase("alice");
+    }
+
+    @Test
+    void rejectsBlacklistedAndForgedTokens() {
+        String token = jwtService.generateAccessToken(alice);
+        when(blacklist.isBlacklisted(token)).thenReturn(true);
+        assertNull(authenticator.authenticate(token));
+
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+        assertNull(authenticator.authenticate(forged));
+        assertNull(jwtService.extractUsername(forged));
+        verifyNoInteractions(userRepository);
+    }
+}
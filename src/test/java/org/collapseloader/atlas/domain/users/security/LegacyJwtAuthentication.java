@@ -0,0 +1,79 @@
+package org.collapseloader.atlas.domain.users.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.collapseloader.atlas.domain.users.entity.User;
+import org.collapseloader.atlas.domain.users.service.TokenBlacklistService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The per-request authentication path as it was before {@link JwtAuthenticator}: the signing key and parser are
+ * rebuilt and the token parsed twice (subject extraction, then {@code isTokenValid}), the user details are loaded
+ * and the user is looked up again by name. Kept only as the baseline for {@link JwtAuthenticatorBenchmark}; the
+ * repository is replaced by {@code usersByName}.
+ */
+final class LegacyJwtAuthentication {
+    private final String secret;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final Function<String, List<User>> usersByName;
+
+    LegacyJwtAuthentication(String secret, TokenBlacklistService tokenBlacklistService,
+                            Function<String, List<User>> usersByName) {
+        this.secret = secret;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.usersByName = usersByName;
+    }
+
+    UsernamePasswordAuthenticationToken authenticate(String jwt) {
+        String username = extractUsername(jwt);
+        if (username == null || tokenBlacklistService.isBlacklisted(jwt)) {
+            return null;
+        }
+        UserDetails userDetails = loadUserByUsername(username);
+        if (userDetails == null || !username.equals(extractUsername(jwt))) {
+            return null;
+        }
+        var users = usersByName.apply(username);
+        if (users.size() != 1) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(users.getFirst(), null, userDetails.getAuthorities());
+    }
+
+    private String extractUsername(String token) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload()
+                    .getSubject();
+        } catch (JwtException | IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    private UserDetails loadUserByUsername(String username) {
+        List<User> users = usersByName.apply(username.trim());
+        if (users.size() != 1) {
+            return null;
+        }
+        User user = users.getFirst();
+        return CachedUser.builder()
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .authorities(new HashSet<>(user.getAuthorities()))
+                .enabled(user.isEnabled())
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+}
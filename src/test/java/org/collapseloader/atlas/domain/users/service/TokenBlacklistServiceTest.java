@@ -0,0 +1,133 @@
+package org.collapseloader.atlas.domain.users.service;
+
+import org.collapseloader.atlas.domain.users.security.TokenDigests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenBlacklistServiceTest {
+    private static final String PREFIX = "blacklist:token:";
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> values;
+    private TokenBlacklistService blacklist;
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<String> cursor(List<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(inv -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(inv -> iterator.next());
+        return cursor;
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        blacklist = new TokenBlacklistService(redisTemplate, mock(RedisMessageListenerContainer.class),
+                "blacklist", 1000, 0.001);
+    }
+
+    @Test
+    void fallsBackToRedisUntilTheFilterIsBuilt() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenThrow(new IllegalStateException("redis down"));
+        blacklist.start();
+
+        blacklist.isBlacklisted("a.b.c");
+
+        verify(redisTemplate).hasKey(PREFIX + TokenDigests.sha256Hex("a.b.c"));
+    }
+
+    @Test
+    void onlyFilterHitsReachRedis() {
+        String stored = TokenDigests.sha256Hex("old.token.sig");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(inv -> cursor(List.of(PREFIX + stored)));
+        when(redisTemplate.hasKey(anyString())).thenReturn(true);
+        blacklist.rebuild();
+
+        assertFalse(blacklist.isBlacklisted("fresh.token.sig"));
+        assertTrue(blacklist.isBlacklisted("old.token.sig"));
+
+        blacklist.blacklistToken("logout.token.sig", 60_000);
+        String digest = TokenDigests.sha256Hex("logout.token.sig");
+        verify(values).set(PREFIX + digest, "true", Duration.ofMillis(60_000));
+        verify(redisTemplate).convertAndSend("blacklist", digest);
+        assertTrue(blacklist.isBlacklisted("logout.token.sig"));
+
+        String remote = TokenDigests.sha256Hex("remote.token.sig");
+        blacklist.onMessage(new DefaultMessage("blacklist".getBytes(StandardCharsets.UTF_8),
+                remote.getBytes(StandardCharsets.US_ASCII)), null);
+        assertTrue(blacklist.isBlacklisted("remote.token.sig"));
+
+        verify(redisTemplate, never()).hasKey(PREFIX + TokenDigests.sha256Hex("fresh.token.sig"));
+    }
+
+    @Test
+    void rebuildMigratesRawTokenKeys() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(inv -> cursor(List.of(PREFIX + "raw.jwt.value")));
+        when(redisTemplate.getExpire(PREFIX + "raw.jwt.value", TimeUnit.MILLISECONDS)).thenReturn(5_000L);
+
+        blacklist.rebuild();
+
+        String digest = TokenDigests.sha256Hex("raw.jwt.value");
+        verify(values).set(PREFIX + digest, "true", Duration.ofMillis(5_000));
+        verify(redisTemplate).delete(PREFIX + "raw.jwt.value");
+        when(redisTemplate.hasKey(PREFIX + digest)).thenReturn(true);
+        assertTrue(blacklist.isBlacklisted("raw.jwt.value"));
+    }
+
+    @Test
+    void digestsArrivingWhileARebuildSwapsFiltersAreNotLost() throws Exception {
+        Set<String> stored = ConcurrentHashMap.newKeySet();
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(inv -> cursor(List.copyOf(stored)));
+        when(redisTemplate.hasKey(anyString())).thenReturn(true);
+        blacklist.rebuild();
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread rebuilder = new Thread(() -> {
+            while (!done.get()) {
+                blacklist.rebuild();
+            }
+        });
+        rebuilder.start();
+        List<String> missed = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5_000; i++) {
+                String token = "race." + i + ".sig";
+                String digest = TokenDigests.sha256Hex(token);
+                stored.add(PREFIX + digest);
+                blacklist.onMessage(new DefaultMessage("blacklist".getBytes(StandardCharsets.UTF_8),
+                        digest.getBytes(StandardCharsets.US_ASCII)), null);
+                if (!blacklist.isBlacklisted(token)) {
+                    missed.add(token);
+                }
+            }
+        } finally {
+            done.set(true);
+            rebuilder.join();
+        }
+        assertEquals(List.of(), missed);
+    }
+}
@@ -0,0 +1,121 @@
+package org.collapseloader.atlas.domain.users.service;
+
+import org.collapseloader.atlas.domain.achievements.service.AchievementEngine;
+import org.collapseloader.atlas.domain.friends.service.FriendPresenceNotifier;
+import org.collapseloader.atlas.domain.users.dto.response.UserStatusResponse;
+import org.collapseloader.atlas.domain.users.entity.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserStatusServiceTest {
+
+    @Test
+    void batchLookupUsesOnePipelineAndDeduplicatesIds() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        long now = System.currentTimeMillis();
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(
+                (double) now, Map.of("status", "ONLINE", "clientName", "Collapse", "updatedAt", Long.toString(now)),
+                (double) (now - 120_000), Map.of("status", "ONLINE"),
+                null, Map.of()));
+        UserStatusService service = new UserStatusService(redisTemplate, mock(NamedParameterJdbcTemplate.class),
+                mock(AchievementEngine.class), mock(FriendPresenceNotifier.class), 90_000, 500);
+
+        var statuses = service.getStatuses(List.of(1L, 2L, 1L, 3L));
+
+        assertEquals(3, statuses.size());
+        assertEquals(UserStatus.ONLINE, statuses.get(1L).status());
+        assertEquals("Collapse", statuses.get(1L).clientName());
+        assertEquals(Instant.ofEpochMilli(now), statuses.get(1L).updatedAt());
+        assertEquals(UserStatus.OFFLINE, statuses.get(2L).status());
+        assertEquals(UserStatus.OFFLINE, statuses.get(3L).status());
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sweepCreditsPlaytimeInOneBatchAndNotifiesFriends() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        FriendPresenceNotifier notifier = mock(FriendPresenceNotifier.class);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(
+                "1", "1000000", "ONLINE", "400000",
+                "2", "1000000", "OFFLINE", "",
+                "3", "2000000", "ONLINE", "1940000"));
+        UserStatusService service = new UserStatusService(redisTemplate, jdbcTemplate,
+                mock(AchievementEngine.class), notifier, 90_000, 500);
+
+        assertEquals(3, service.expireStaleStatuses());
+
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        Map<Object, Object> seconds = Arrays.stream(batch.getValue())
+                .collect(Collectors.toMap(p -> p.getValue("userId"), p -> p.getValue("seconds")));
+        assertEquals(Map.of(1L, 600L, 3L, 60L), seconds);
+
+        ArgumentCaptor<Map<Long, UserStatusResponse>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(notifier).notifyFriends(changes.capture());
+        assertEquals(Set.of(1L, 3L), changes.getValue().keySet());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void goingOfflineCreditsOnlyTheSessionTheScriptSawOnline() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        long startedAt = System.currentTimeMillis() - 120_000;
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("ONLINE", Long.toString(startedAt), "0"))
+                // a sweep already claimed the session and credited it
+                .thenReturn(List.of("OFFLINE", "", "0"));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(null, Map.of()));
+        UserStatusService service = new UserStatusService(redisTemplate, jdbcTemplate,
+                mock(AchievementEngine.class), mock(FriendPresenceNotifier.class), 90_000, 500);
+
+        service.setStatus(7L, UserStatus.OFFLINE, null);
+        service.setStatus(7L, UserStatus.OFFLINE, null);
+
+        ArgumentCaptor<SqlParameterSource[]> batch = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        long seconds = (long) batch.getValue()[0].getValue("seconds");
+        assertTrue(seconds >= 120 && seconds < 130, "credited " + seconds);
+        verify(redisTemplate, never()).opsForHash();
+    }
+
+    @Test
+    void comingOnlineStartsASessionOnlyWhenTheScriptSaysSo() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        AchievementEngine engine = mock(AchievementEngine.class);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("OFFLINE", "", "1"))
+                .thenReturn(List.of("ONLINE", "1000", "0"));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(null, Map.of()));
+        UserStatusService service = new UserStatusService(redisTemplate, mock(NamedParameterJdbcTemplate.class),
+                engine, mock(FriendPresenceNotifier.class), 90_000, 500);
+
+        service.setStatus(7L, UserStatus.ONLINE, "Collapse");
+        service.setStatus(7L, UserStatus.ONLINE, "Collapse");
+
+        verify(engine, times(1)).publish(any());
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class),
+                eq(List.of("user:status:7", "user:status:heartbeats", "user:online_set")),
+                eq("7"), eq("ONLINE"), eq("Collapse"), anyString());
+    }
+}
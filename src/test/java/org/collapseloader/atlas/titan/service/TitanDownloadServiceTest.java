@@ -0,0 +1,144 @@
+package org.collapseloader.atlas.titan.service;
+
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TitanDownloadServiceTest {
+    private static final String MD5 = "0123456789abcdef0123456789abcdef";
+
+    @TempDir
+    Path tempDir;
+
+    private FileMetadataService metadataService;
+    private TitanPrecompressor precompressor;
+    private TitanDownloadService downloadService;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setUploadDir(tempDir.toString());
+        properties.setPrecompressMinBytes(16);
+
+        metadataService = mock(FileMetadataService.class);
+        precompressor = new TitanPrecompressor(properties, metadataService);
+        TitanFileStorageService storageService = new TitanFileStorageService(properties, metadataService,
+                new TitanBlobStore(properties, metadataService), precompressor);
+        storageService.init();
+        downloadService = new TitanDownloadService(storageService, metadataService, precompressor);
+
+        file = storageService.getRootLocation().resolve("clients/data.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"values\": \"" + "abcdefghij".repeat(50) + "\"}");
+        when(metadataService.findByFilePath("clients/data.json")).thenReturn(Optional.of(FileMetadata.builder()
+                .filePath("clients/data.json")
+                .md5(MD5)
+                .size(Files.size(file))
+                .lastModified(Files.getLastModifiedTime(file).toMillis())
+                .build()));
+    }
+
+    @Test
+    void servesStrongEtagAndAnswersNotModified() throws Exception {
+        MockHttpServletResponse first = serve(new MockHttpServletRequest("GET", "/uploads/clients/data.json"));
+        assertEquals(200, first.getStatus());
+        assertEquals("\"" + MD5 + "\"", first.getHeader("ETag"));
+        assertArrayEquals(Files.readAllBytes(file), first.getContentAsByteArray());
+
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        revalidate.addHeader("If-None-Match", "\"" + MD5 + "\"");
+        MockHttpServletResponse second = serve(revalidate);
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesSingleAndMultipleRanges() throws Exception {
+        byte[] content = Files.readAllBytes(file);
+
+        MockHttpServletRequest single = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        single.addHeader("Range", "bytes=10-19");
+        MockHttpServletResponse partial = serve(single);
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 10-19/" + content.length, partial.getHeader("Content-Range"));
+        assertEquals(new String(content, 10, 10, StandardCharsets.UTF_8), partial.getContentAsString());
+
+        MockHttpServletRequest multi = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        multi.addHeader("Range", "bytes=0-4,-5");
+        MockHttpServletResponse multipart = serve(multi);
+        assertEquals(206, multipart.getStatus());
+        assertTrue(multipart.getContentType().startsWith("multipart/byteranges; boundary="));
+        assertEquals(multipart.getContentLengthLong(), multipart.getContentAsByteArray().length);
+        String body = multipart.getContentAsString();
+        assertTrue(body.contains("Content-Range: bytes 0-4/" + content.length));
+        assertTrue(body.contains("Content-Range: bytes " + (content.length - 5) + "-" + (content.length - 1)));
+
+        MockHttpServletRequest unsatisfiable = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        unsatisfiable.addHeader("Range", "bytes=" + content.length + "-");
+        MockHttpServletResponse rejected = serve(unsatisfiable);
+        assertEquals(416, rejected.getStatus());
+        assertEquals("bytes */" + content.length, rejected.getHeader("Content-Range"));
+    }
+
+    @Test
+    void staleIfRangeFallsBackToFullBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        request.addHeader("Range", "bytes=10-19");
+        request.addHeader("If-Range", "\"some-other-version\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Files.size(file), response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesPrecompressedSidecarToGzipClients() throws Exception {
+        precompressor.precompress(file, MD5);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        request.addHeader("Accept-Encoding", "br, gzip");
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals("\"" + MD5 + "-gzip\"", response.getHeader("ETag"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(Files.readAllBytes(file), in.readAllBytes());
+        }
+
+        MockHttpServletRequest identity = new MockHttpServletRequest("GET", "/uploads/clients/data.json");
+        identity.addHeader("Accept-Encoding", "gzip;q=0");
+        assertNull(serve(identity).getHeader("Content-Encoding"));
+    }
+
+    @Test
+    void refusesPathsOutsideTheStore() throws Exception {
+        assertFalse(downloadService.serve("../outside.json", null, null, null,
+                new MockHttpServletRequest("GET", "/uploads/x"), new MockHttpServletResponse()));
+        assertFalse(downloadService.serve("temp/anything", null, null, null,
+                new MockHttpServletRequest("GET", "/uploads/x"), new MockHttpServletResponse()));
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(downloadService.serve("clients/data.json", null, null, null, request, response));
+        return response;
+    }
+}
@@ -12,14 +12,17 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class TitanFileStorageServiceTest {
@@ -27,8 +30,10 @@ class TitanFileStorageServiceTest {
     @TempDir
     Path tempDir;
 
+    private StorageProperties properties;
     private TitanFileStorageService storageService;
     private FileMetadataService metadataService;
+    private TitanBlobStore blobStore;
 
     private static String md5(byte[] payload) {
         try {
@@ -48,7 +53,7 @@ class TitanFileStorageServiceTest {
 
     @BeforeEach
     void setUp() {
-        StorageProperties properties = new StorageProperties();
+        properties = new StorageProperties();
         properties.setUploadDir(tempDir.toString());
         properties.setTempDir("temp");
         properties.setTrashDir(".trash");
@@ -57,7 +62,9 @@ class TitanFileStorageServiceTest {
         when(metadataService.findAll()).thenReturn(List.of());
         when(metadataService.findTrash()).thenReturn(List.of());
 
-        storageService = new TitanFileStorageService(properties, metadataService);
+        blobStore = new TitanBlobStore(properties, metadataService);
+        storageService = new TitanFileStorageService(properties, metadataService, blobStore,
+                new TitanPrecompressor(properties, metadataService));
         storageService.init();
     }
 
@@ -81,7 +88,8 @@ class TitanFileStorageServiceTest {
                 eq(storageService.getRootLocation()),
                 eq(expectedMd5),
                 eq((long) payload.length),
-                anyLong());
+                anyLong(),
+                isNull());
     }
 
     @Test
@@ -111,7 +119,8 @@ class TitanFileStorageServiceTest {
                 eq(storageService.getRootLocation()),
                 eq(md5(merged)),
                 eq((long) merged.length),
-                anyLong());
+                anyLong(),
+                isNull());
     }
 
     @Test
@@ -139,4 +148,81 @@ class TitanFileStorageServiceTest {
 
         assertTrue(exception.getMessage().contains("outside current directory"));
     }
+
+    @Test
+    void dedupStoresIdenticalUploadsAsOneBlob() throws Exception {
+        properties.setDedupEnabled(true);
+        storageService.init();
+
+        byte[] payload = "shared fabric dependency".getBytes(StandardCharsets.UTF_8);
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/fabric/deps/jars", "dep.jar");
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/forge/deps/jars", "dep.jar");
+
+        Path root = storageService.getRootLocation();
+        Path fabric = root.resolve("clients/fabric/deps/jars/dep.jar");
+        Path forge = root.resolve("clients/forge/deps/jars/dep.jar");
+        assertArrayEquals(payload, Files.readAllBytes(fabric));
+        assertArrayEquals(payload, Files.readAllBytes(forge));
+        assertTrue(Files.isSameFile(fabric, forge));
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        assertTrue(Files.exists(root.resolve(".blobs").resolve(sha256.substring(0, 2)).resolve(sha256)));
+        verify(metadataService, times(2)).saveCalculatedMd5(any(), eq(root), eq(md5(payload)),
+                eq((long) payload.length), anyLong(), eq(sha256));
+        assertTrue(storageService.loadAll("").noneMatch(path -> path.startsWith(".blobs")));
+    }
+
+    @Test
+    void inPlaceEditOfADeduplicatedFileDetachesItAndDropsTheStaleBlob() throws Exception {
+        properties.setDedupEnabled(true);
+        storageService.init();
+
+        byte[] payload = "shared fabric dependency".getBytes(StandardCharsets.UTF_8);
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/fabric/deps/jars", "dep.jar");
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/forge/deps/jars", "dep.jar");
+        Path root = storageService.getRootLocation();
+        Path fabric = root.resolve("clients/fabric/deps/jars/dep.jar");
+        Path forge = root.resolve("clients/forge/deps/jars/dep.jar");
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        Path blob = root.resolve(".blobs").resolve(sha256.substring(0, 2)).resolve(sha256);
+
+        Files.writeString(fabric, "patched in place");
+        blobStore.detach(fabric, sha256);
+
+        assertFalse(Files.isSameFile(fabric, forge));
+        assertEquals("patched in place", Files.readString(fabric));
+        assertFalse(Files.exists(blob));
+
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/vanilla", "dep.jar");
+        assertArrayEquals(payload, Files.readAllBytes(blob));
+        try (var siblings = Files.list(fabric.getParent())) {
+            assertEquals(List.of(fabric), siblings.toList());
+        }
+    }
+
+    @Test
+    void fileReplacedByRenameLeavesTheBlobAlone() throws Exception {
+        properties.setDedupEnabled(true);
+        storageService.init();
+
+        byte[] payload = "shared fabric dependency".getBytes(StandardCharsets.UTF_8);
+        storageService.store(new MockMultipartFile("file", "dep.jar", "application/java-archive", payload),
+                "clients/fabric/deps/jars", "dep.jar");
+        Path root = storageService.getRootLocation();
+        Path fabric = root.resolve("clients/fabric/deps/jars/dep.jar");
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        Path blob = root.resolve(".blobs").resolve(sha256.substring(0, 2)).resolve(sha256);
+
+        Path replacement = Files.writeString(root.resolve("clients/replacement.tmp"), "rsynced");
+        Files.move(replacement, fabric, StandardCopyOption.REPLACE_EXISTING);
+        blobStore.detach(fabric, sha256);
+
+        assertArrayEquals(payload, Files.readAllBytes(blob));
+        assertEquals("rsynced", Files.readString(fabric));
+    }
 }
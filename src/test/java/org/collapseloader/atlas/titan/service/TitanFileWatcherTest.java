@@ -0,0 +1,139 @@
+package org.collapseloader.atlas.titan.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.*;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TitanFileWatcherTest {
+    private static final long DEBOUNCE_MS = 300;
+    private static final long WAIT_MS = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+    private FileMetadataService metadataService;
+    private TitanIntegrityScanner integrityScanner;
+    private MeterRegistry registry;
+    private TitanFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setUploadDir(tempDir.toString());
+        properties.setWatchDebounceMs(DEBOUNCE_MS);
+
+        metadataService = mock(FileMetadataService.class);
+        TitanBlobStore blobStore = new TitanBlobStore(properties, metadataService);
+        TitanFileStorageService storageService = new TitanFileStorageService(properties, metadataService, blobStore,
+                new TitanPrecompressor(properties, metadataService));
+        storageService.init();
+        root = storageService.getRootLocation();
+
+        integrityScanner = mock(TitanIntegrityScanner.class);
+        registry = new SimpleMeterRegistry();
+        watcher = new TitanFileWatcher(storageService, metadataService, integrityScanner, blobStore, properties,
+                registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    void burstOfWritesIsHashedOnceAfterItGoesQuiet() throws Exception {
+        watcher.start();
+        Path jar = root.resolve("client.jar");
+
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(jar, "chunk " + i);
+            Thread.sleep(20);
+        }
+        verify(metadataService, never()).getOrCalculateMD5(any(), any());
+
+        verify(metadataService, timeout(WAIT_MS)).getOrCalculateMD5(jar, root);
+        Thread.sleep(DEBOUNCE_MS * 2);
+        verify(metadataService, times(1)).getOrCalculateMD5(any(), any());
+        assertEquals(1.0, registry.get("atlas.titan.watch.events").tag("action", "updated").counter().count());
+    }
+
+    @Test
+    void newSubdirectoriesAreWatched() throws Exception {
+        watcher.start();
+        Path dir = root.resolve("clients/fabric");
+        Files.createDirectories(dir);
+        Path first = Files.writeString(dir.resolve("first.jar"), "first");
+
+        verify(metadataService, timeout(WAIT_MS)).getOrCalculateMD5(first, root);
+
+        Path second = Files.writeString(dir.resolve("second.jar"), "second");
+        verify(metadataService, timeout(WAIT_MS)).getOrCalculateMD5(second, root);
+    }
+
+    @Test
+    void removedFilesAreSoftDeletedAndModifiedFilesRehashed() throws Exception {
+        Path kept = Files.writeString(root.resolve("kept.jar"), "v1");
+        Path removed = Files.writeString(root.resolve("removed.jar"), "gone");
+        Path dir = Files.createDirectories(root.resolve("old"));
+        Files.writeString(dir.resolve("a.jar"), "a");
+        when(metadataService.findByFilePath("removed.jar"))
+                .thenReturn(Optional.of(FileMetadata.builder().filePath("removed.jar").md5("x").build()));
+        when(metadataService.deleteMetadataPrefix("old")).thenReturn(1);
+        watcher.start();
+
+        Files.writeString(kept, "v2");
+        Files.delete(removed);
+        Files.delete(dir.resolve("a.jar"));
+        Files.delete(dir);
+
+        verify(metadataService, timeout(WAIT_MS)).getOrCalculateMD5(kept, root);
+        verify(metadataService, timeout(WAIT_MS)).deleteMetadata("removed.jar");
+        verify(metadataService, timeout(WAIT_MS)).deleteMetadataPrefix("old");
+        verify(metadataService, never()).getOrCalculateMD5(eq(removed), any());
+        verify(metadataService, never()).deleteMetadata("kept.jar");
+    }
+
+    @Test
+    void overflowFallsBackToAFullScan() {
+        WatchEvent<Object> overflow = new WatchEvent<>() {
+            @Override
+            public Kind<Object> kind() {
+                return StandardWatchEventKinds.OVERFLOW;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Object context() {
+                return null;
+            }
+        };
+        WatchKey key = mock(WatchKey.class);
+        when(key.pollEvents()).thenReturn(List.of(overflow));
+        when(key.reset()).thenReturn(true);
+
+        watcher.handleKey(key);
+
+        verify(integrityScanner).scanAsync();
+        verify(metadataService, never()).deleteMetadata(anyString());
+        assertEquals(1.0, registry.get("atlas.titan.watch.events").tag("action", "overflow").counter().count());
+    }
+}
@@ -0,0 +1,167 @@
+package org.collapseloader.atlas.titan.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.titan.model.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TitanIntegrityScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TitanFileStorageService storageService;
+    private FileMetadataService metadataService;
+    private MeterRegistry registry;
+    private TitanIntegrityScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setUploadDir(tempDir.toString());
+        properties.setIntegrityScanThreads(2);
+        properties.setIntegrityScanBatchSize(2);
+
+        metadataService = mock(FileMetadataService.class);
+        storageService = new TitanFileStorageService(properties, metadataService,
+                new TitanBlobStore(properties, metadataService), new TitanPrecompressor(properties, metadataService));
+        storageService.init();
+
+        registry = new SimpleMeterRegistry();
+        scanner = new TitanIntegrityScanner(storageService, metadataService, properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanner.shutdown();
+    }
+
+    @Test
+    void rehashesOnlyChangedFilesAndPurgesMissingOnes() throws Exception {
+        Path root = storageService.getRootLocation();
+        Path unchanged = write(root.resolve("clients/a.jar"), "stable");
+        write(root.resolve("clients/b.jar"), "fresh");
+
+        FileMetadata known = FileMetadata.builder()
+                .filePath("clients/a.jar")
+                .md5("cached")
+                .size(Files.size(unchanged))
+                .lastModified(Files.getLastModifiedTime(unchanged).toMillis())
+                .build();
+        FileMetadata gone = FileMetadata.builder().filePath("clients/gone.jar").md5("x").build();
+        when(metadataService.loadIndex()).thenReturn(new HashMap<>(Map.of(
+                known.getFilePath(), known,
+                gone.getFilePath(), gone)));
+        when(metadataService.findAllByFilePaths(List.of("clients/gone.jar")))
+                .thenReturn(Map.of(gone.getFilePath(), gone));
+
+        assertEquals(TitanIntegrityScanner.Outcome.COMPLETED, scanner.scan());
+
+        List<FileMetadata> saved = capturedSaves();
+        assertEquals(1, saved.size());
+        assertEquals("clients/b.jar", saved.getFirst().getFilePath());
+        assertEquals("cached", known.getMd5());
+        verify(metadataService).purgeAll(List.of(gone));
+
+        assertEquals(2.0, registry.get("atlas.titan.scan.files.scanned").gauge().value());
+        assertEquals(1.0, registry.get("atlas.titan.scan.files.hashed").gauge().value());
+        assertFalse(Files.exists(storageService.getTempLocation().resolve(TitanIntegrityScanner.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    void resumesAfterCheckpoint() throws Exception {
+        Path root = storageService.getRootLocation();
+        write(root.resolve("a.jar"), "a");
+        write(root.resolve("b.jar"), "b");
+        write(root.resolve("c.jar"), "c");
+        long interruptedRunStart = System.currentTimeMillis() + 60_000;
+        writeCheckpoint(interruptedRunStart, "b.jar");
+        when(metadataService.loadIndex()).thenReturn(new HashMap<>());
+
+        assertEquals(TitanIntegrityScanner.Outcome.COMPLETED, scanner.scan());
+
+        List<FileMetadata> saved = capturedSaves();
+        assertEquals(List.of("c.jar"), saved.stream().map(FileMetadata::getFilePath).toList());
+    }
+
+    @Test
+    void resumeRechecksFilesBeforeCheckpointModifiedSinceTheRunStarted() throws Exception {
+        Path root = storageService.getRootLocation();
+        long interruptedRunStart = System.currentTimeMillis() - 60_000;
+        Path edited = write(root.resolve("a.jar"), "edited after the interrupted run");
+        Path untouched = write(root.resolve("b.jar"), "b");
+        Files.setLastModifiedTime(untouched, FileTime.fromMillis(interruptedRunStart - 60_000));
+        write(root.resolve("c.jar"), "c");
+        writeCheckpoint(interruptedRunStart, "b.jar");
+        when(metadataService.loadIndex()).thenReturn(new HashMap<>());
+
+        assertEquals(TitanIntegrityScanner.Outcome.COMPLETED, scanner.scan());
+
+        List<FileMetadata> saved = capturedSaves();
+        assertEquals(List.of("a.jar", "c.jar"), saved.stream().map(FileMetadata::getFilePath).sorted().toList());
+        assertEquals(Files.getLastModifiedTime(edited).toMillis(), saved.getFirst().getLastModified());
+    }
+
+    @Test
+    void reportsAScanThatIsAlreadyRunning() throws Exception {
+        Path root = storageService.getRootLocation();
+        write(root.resolve("a.jar"), "a");
+        AtomicReference<TitanIntegrityScanner.Outcome> nested = new AtomicReference<>();
+        when(metadataService.loadIndex()).thenAnswer(inv -> {
+            nested.set(scanner.scan());
+            return new HashMap<>();
+        });
+
+        assertEquals(TitanIntegrityScanner.Outcome.COMPLETED, scanner.scan());
+        assertEquals(TitanIntegrityScanner.Outcome.ALREADY_RUNNING, nested.get());
+    }
+
+    @Test
+    void doesNotPurgeFilesRestoredWhileScanning() throws Exception {
+        Path root = storageService.getRootLocation();
+        FileMetadata trashed = FileMetadata.builder().filePath("clients/restored.jar").md5("x").deleted(true).build();
+        when(metadataService.loadIndex()).thenReturn(new HashMap<>(Map.of(trashed.getFilePath(), trashed)));
+        when(metadataService.findAllByFilePaths(List.of("clients/restored.jar"))).thenAnswer(inv -> {
+            // restored from trash after the scan walked the tree
+            write(root.resolve("clients/restored.jar"), "back");
+            return Map.of(trashed.getFilePath(),
+                    FileMetadata.builder().filePath("clients/restored.jar").md5("x").deleted(false).build());
+        });
+
+        assertEquals(TitanIntegrityScanner.Outcome.COMPLETED, scanner.scan());
+
+        verify(metadataService).purgeAll(List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FileMetadata> capturedSaves() {
+        ArgumentCaptor<Collection<FileMetadata>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(metadataService, atLeastOnce()).upsertAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(Collection::stream).toList();
+    }
+
+    private void writeCheckpoint(long runStartMillis, String lastPath) throws Exception {
+        Files.writeString(storageService.getTempLocation().resolve(TitanIntegrityScanner.CHECKPOINT_FILE),
+                runStartMillis + "\n" + lastPath, StandardCharsets.UTF_8);
+    }
+
+    private Path write(Path path, String content) throws Exception {
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, content, StandardCharsets.UTF_8);
+    }
+}
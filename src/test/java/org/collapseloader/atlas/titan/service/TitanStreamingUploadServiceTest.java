@@ -0,0 +1,87 @@
+package org.collapseloader.atlas.titan.service;
+
+import org.collapseloader.atlas.config.StorageProperties;
+import org.collapseloader.atlas.exception.TitanException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TitanStreamingUploadServiceTest {
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private TitanFileStorageService storageService;
+    private TitanStreamingUploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setUploadDir(tempDir.toString());
+
+        FileMetadataService metadataService = mock(FileMetadataService.class);
+        storageService = new TitanFileStorageService(properties, metadataService,
+                new TitanBlobStore(properties, metadataService), new TitanPrecompressor(properties, metadataService));
+        storageService.init();
+        uploadService = new TitanStreamingUploadService(storageService);
+    }
+
+    @Test
+    void outOfOrderChunksAreWrittenInPlaceAndHashed() throws Exception {
+        byte[] payload = new byte[CHUNK * 2 + 123];
+        new Random(7).nextBytes(payload);
+
+        var status = uploadService.begin("big.jar", "clients", payload.length, CHUNK);
+        String id = status.uploadId();
+        assertEquals(3, status.totalChunks());
+
+        write(id, 2, payload);
+        write(id, 0, payload);
+        assertEquals(List.of(1), uploadService.status(id).missingChunks());
+        assertThrows(TitanException.class, () -> uploadService.complete(id));
+
+        write(id, 1, payload);
+        TitanFileStorageService.StoredFile stored = uploadService.complete(id);
+
+        Path file = storageService.getRootLocation().resolve("clients/big.jar");
+        assertArrayEquals(payload, Files.readAllBytes(file));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(payload)), stored.md5());
+        assertFalse(Files.exists(storageService.getTempLocation().resolve(id)));
+    }
+
+    @Test
+    void sessionIsRestoredFromDisk() throws Exception {
+        byte[] payload = new byte[CHUNK + 10];
+        new Random(11).nextBytes(payload);
+
+        String id = uploadService.begin("resume.jar", "", payload.length, CHUNK).uploadId();
+        write(id, 0, payload);
+
+        TitanStreamingUploadService restarted = new TitanStreamingUploadService(storageService);
+        assertEquals(List.of(1), restarted.status(id).missingChunks());
+
+        restarted.writeChunk(id, 1, 10, new ByteArrayInputStream(Arrays.copyOfRange(payload, CHUNK, CHUNK + 10)));
+        TitanFileStorageService.StoredFile stored = restarted.complete(id);
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(payload)), stored.md5());
+    }
+
+    private void write(String id, int index, byte[] payload) {
+        int from = index * CHUNK;
+        int to = Math.min(payload.length, from + CHUNK);
+        uploadService.writeChunk(id, index, to - from, new ByteArrayInputStream(Arrays.copyOfRange(payload, from, to)));
+    }
+}